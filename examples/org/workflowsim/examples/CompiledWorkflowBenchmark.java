@@ -0,0 +1,105 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.WorkflowCompiler;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * This benchmark compiles each DAX file of a directory with WorkflowCompiler,
+ * and checks that loading the compiled workflow returns the same tasks as
+ * parsing the DAX with the DOM parser, with and without runtime and size files
+ * overriding the values of the DAX. It prints the average time to parse the
+ * DAX and to load the compiled workflow. DAX files without any task cannot be
+ * compiled and are skipped. Pass the directory of the DAX files and the number
+ * of runs as arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class CompiledWorkflowBenchmark extends ParserBenchmark {
+
+    public static void main(String[] args) {
+        String daxDir = args.length > 0 ? args[0] : "config/dax";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> daxPaths = getDaxPaths(daxDir);
+        if (daxPaths.isEmpty()) {
+            Log.printLine("Warning: Please replace daxDir with the physical path in your working environment!");
+            return;
+        }
+
+        try {
+            File runtimeFile = File.createTempFile("runtime", ".txt");
+            File datasizeFile = File.createTempFile("datasize", ".txt");
+            File compiledFile = File.createTempFile("workflow", ".wfc");
+            File overriddenFile = File.createTempFile("overridden", ".wfc");
+            runtimeFile.deleteOnExit();
+            datasizeFile.deleteOnExit();
+            compiledFile.deleteOnExit();
+            overriddenFile.deleteOnExit();
+            int compiled = 0;
+            for (String daxPath : daxPaths) {
+                String name = new File(daxPath).getName();
+                writeOverrideFiles(daxPath, runtimeFile, datasizeFile);
+                Log.disable();
+                try {
+                    WorkflowCompiler.compile(daxPath, null, null, compiledFile.getPath());
+                    WorkflowCompiler.compile(daxPath, runtimeFile.getPath(), datasizeFile.getPath(),
+                            overriddenFile.getPath());
+                } catch (IOException e) {
+                    Log.enable();
+                    Log.printLine(name + ": skipped, " + e.getMessage());
+                    continue;
+                }
+                Log.enable();
+                compiled++;
+
+                String reference = describe(parse(daxPath, Parameters.ParserMode.DOM, null, null), 0);
+                String tasks = describe(parse(compiledFile.getPath(), Parameters.ParserMode.DOM,
+                        null, null), 0);
+                String overridden = describe(parse(daxPath, Parameters.ParserMode.DOM,
+                        runtimeFile.getPath(), datasizeFile.getPath()), 0);
+                String overriddenTasks = describe(parse(overriddenFile.getPath(),
+                        Parameters.ParserMode.DOM, null, null), 0);
+                if (!reference.equals(tasks) || !overridden.equals(overriddenTasks)) {
+                    throw new IllegalStateException("The compiled workflow returned other tasks for "
+                            + daxPath);
+                }
+
+                // the parses above also warm up the JVM
+                long parseTime = 0;
+                long loadTime = 0;
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    parse(daxPath, Parameters.ParserMode.DOM, null, null);
+                    parseTime += System.nanoTime() - start;
+                    start = System.nanoTime();
+                    parse(compiledFile.getPath(), Parameters.ParserMode.DOM, null, null);
+                    loadTime += System.nanoTime() - start;
+                }
+                Log.printLine(name + ": DAX " + parseTime / runs / 1000000.0 + " ms, compiled "
+                        + loadTime / runs / 1000000.0 + " ms");
+            }
+            Log.printLine("The " + compiled + " compiled workflows returned the same tasks as their DAX");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * This benchmark replays a workflow several times with and without event
+ * pooling and prints the average wall clock time, the bytes allocated by the
+ * simulation thread and the number of reused events per run. Like
+ * EventQueueBenchmark, it checks that every run returns the same jobs at the
+ * same times. The allocated bytes are measured with the HotSpot thread bean,
+ * and are not printed on other virtual machines. Pass the dax path and the
+ * number of runs as arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class EventPoolBenchmark extends EventQueueBenchmark {
+
+    public static void main(String[] args) {
+        String daxPath = args.length > 0 ? args[0] : "config/dax/Montage_1000.xml";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        if (!new File(daxPath).exists()) {
+            Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+            return;
+        }
+
+        try {
+            String reference = null;
+            boolean measured = getAllocatedBytes() >= 0;
+            boolean[] pooling = {false, true};
+            for (boolean enabled : pooling) {
+                CloudSim.setEventPoolingEnabled(enabled);
+                // the first run of each mode only warms up the JVM
+                runWorkflow(daxPath);
+                long total = 0;
+                long allocated = 0;
+                long reused = 0;
+                for (int i = 0; i < runs; i++) {
+                    long bytes = getAllocatedBytes();
+                    long start = System.nanoTime();
+                    String trace = runWorkflow(daxPath);
+                    total += System.nanoTime() - start;
+                    allocated += getAllocatedBytes() - bytes;
+                    reused += CloudSim.getNumReusedEvents();
+                    if (reference == null) {
+                        reference = trace;
+                    } else if (!reference.equals(trace)) {
+                        throw new IllegalStateException("The simulation results changed with "
+                                + (enabled ? "event pooling" : "no event pooling"));
+                    }
+                }
+                StringBuilder line = new StringBuilder(enabled ? "Pooled" : "Unpooled");
+                line.append(": ").append(total / runs / 1000000.0).append(" ms per run");
+                if (measured) {
+                    line.append(", ").append(allocated / runs / 1024).append(" KB allocated per run");
+                }
+                line.append(", ").append(reused / runs).append(" events reused per run");
+                Log.printLine(line);
+            }
+            CloudSim.setEventPoolingEnabled(false);
+            Log.printLine("All runs returned the same results");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Gets the number of bytes allocated so far by the current thread
+     *
+     * @return the number of bytes, or -1 if the virtual machine cannot
+     * measure it
+     */
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CalendarQueue;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureEventQueue;
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This benchmark replays a workflow several times with each implementation of
+ * the future event queue and prints the average wall clock time of a run.
+ * <p>
+ * It also checks that the events are processed in the same order as by a
+ * reference drain, which takes the events from the queue one at a time and
+ * looks at the head of the queue again after each of them, as the kernel did
+ * before it took all the events of a clock tick at once. The events are
+ * recorded as the queue hands them to the kernel, which processes them in
+ * that order. Pass the dax path and the number of runs as arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class EventQueueBenchmark extends WorkflowSimBasicExample1 {
+
+    /**
+     * A future event queue that records the events it hands to the kernel
+     */
+    private static class RecordingQueue implements FutureEventQueue {
+
+        private final FutureEventQueue queue;
+        /**
+         * Whether the events are handed one at a time
+         */
+        private final boolean reference;
+        private final StringBuilder trace = new StringBuilder();
+
+        private RecordingQueue(FutureEventQueue queue, boolean reference) {
+            this.queue = queue;
+            this.reference = reference;
+        }
+
+        private void record(SimEvent ev) {
+            trace.append(ev.eventTime()).append(' ').append(ev.getType()).append(' ')
+                    .append(ev.getSource()).append(' ').append(ev.getDestination()).append(' ')
+                    .append(ev.getTag()).append('\n');
+        }
+
+        @Override
+        public void addEvent(SimEvent newEvent) {
+            queue.addEvent(newEvent);
+        }
+
+        @Override
+        public void addEventFirst(SimEvent newEvent) {
+            queue.addEventFirst(newEvent);
+        }
+
+        @Override
+        public SimEvent peek() {
+            return queue.peek();
+        }
+
+        @Override
+        public SimEvent pollFirst() {
+            SimEvent ev = queue.pollFirst();
+            if (ev != null) {
+                record(ev);
+            }
+            return ev;
+        }
+
+        @Override
+        public int pollFirstTime(List<SimEvent> buffer) {
+            if (reference) {
+                SimEvent ev = pollFirst();
+                if (ev == null) {
+                    return 0;
+                }
+                buffer.add(ev);
+                return 1;
+            }
+            int from = buffer.size();
+            int num = queue.pollFirstTime(buffer);
+            for (int i = from; i < buffer.size(); i++) {
+                record(buffer.get(i));
+            }
+            return num;
+        }
+
+        @Override
+        public boolean remove(SimEvent event) {
+            return queue.remove(event);
+        }
+
+        @Override
+        public SimEvent findFirst(int src, Predicate p) {
+            return queue.findFirst(src, p);
+        }
+
+        @Override
+        public SimEvent remove(int src, Predicate p) {
+            return queue.remove(src, p);
+        }
+
+        @Override
+        public int removeAll(int src, Predicate p) {
+            return queue.removeAll(src, p);
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        @Override
+        public void clear() {
+            queue.clear();
+        }
+    }
+
+    public static void main(String[] args) {
+        String daxPath = args.length > 0 ? args[0] : "config/dax/Montage_1000.xml";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        if (!new File(daxPath).exists()) {
+            Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+            return;
+        }
+
+        try {
+            String reference = traceEvents(daxPath, new FutureQueue(), true);
+            boolean[] calendarQueue = {false, true};
+            for (boolean enabled : calendarQueue) {
+                String name = enabled ? "CalendarQueue" : "FutureQueue";
+                String trace = traceEvents(daxPath,
+                        enabled ? new CalendarQueue() : new FutureQueue(), false);
+                if (!reference.equals(trace)) {
+                    throw new IllegalStateException("The event order changed with " + name);
+                }
+                CloudSim.setCalendarQueueEnabled(enabled);
+                // the first run of each queue only warms up the JVM
+                runWorkflow(daxPath);
+                long total = 0;
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    runWorkflow(daxPath);
+                    total += System.nanoTime() - start;
+                }
+                Log.printLine(name + ": " + (total / runs / 1000000.0) + " ms per run");
+            }
+            CloudSim.setCalendarQueueEnabled(false);
+            Log.printLine("Both queues processed the events in the same order as the reference drain");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Simulates a workflow on a future event queue and records the events in
+     * the order they are processed
+     *
+     * @param daxPath the dax file
+     * @param queue an empty future event queue
+     * @param reference whether the events are taken from the queue one at a
+     * time
+     * @return the time, type, source, destination and tag of the events
+     */
+    protected static String traceEvents(String daxPath, FutureEventQueue queue, boolean reference)
+            throws Exception {
+        RecordingQueue recordingQueue = new RecordingQueue(queue, reference);
+        CloudSim.setFutureEventQueue(recordingQueue);
+        runWorkflow(daxPath);
+        return recordingQueue.trace.toString();
+    }
+
+    /**
+     * Simulates a workflow with the MINMIN scheduler on 20 vms
+     *
+     * @param daxPath the dax file
+     * @return the job id, vm id, start time and finish time of the returned
+     * jobs, in the order they were returned
+     */
+    protected static String runWorkflow(String daxPath) throws Exception {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0, ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(20, daxPath, null, null, op, cp, Parameters.SchedulingAlgorithm.MINMIN,
+                Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+
+        Log.disable();
+        CloudSim.init(1, Calendar.getInstance(), false);
+        WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+        CloudSim.startSimulation();
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+        Log.enable();
+
+        StringBuilder trace = new StringBuilder();
+        for (Job job : outputList0) {
+            trace.append(job.getCloudletId()).append(' ').append(job.getVmId()).append(' ')
+                    .append(job.getExecStartTime()).append(' ').append(job.getFinishTime()).append('\n');
+        }
+        return trace.toString();
+    }
+}
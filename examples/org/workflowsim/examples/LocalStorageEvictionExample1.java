@@ -0,0 +1,174 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.ClusterStorage;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This LocalStorageEvictionExample1 runs a workflow on vms whose local storage
+ * (file.system=LOCAL) has a bounded capacity and an LRU eviction policy, and
+ * prints the hit and miss ratios and the size re-transferred by each vm, which
+ * helps sizing the scratch space of the vms.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class LocalStorageEvictionExample1 extends WorkflowSimBasicExample1 {
+
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+
+        try {
+            // First step: Initialize the WorkflowSim package.
+
+            /**
+             * However, the exact number of vms may not necessarily be vmNum If
+             * the data center or the host doesn't have sufficient resources the
+             * exact vmNum would be smaller than that. Take care.
+             */
+            int vmNum = 5;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "C:/Users/patil/git/WorkflowSim-1.0/config/dax/Montage_100.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.LOCAL;
+
+            /**
+             * No overheads
+             */
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+
+            /**
+             * No Clustering
+             */
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            /**
+             * Initialize static parameters
+             */
+            Parameters.init(vmNum, daxPath, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 0);
+            ReplicaCatalog.init(file_system);
+
+            /**
+             * Each vm keeps at most 50 MB of replicas (the file sizes of the
+             * DAX are in bytes) and evicts the least recently used first. It
+             * has to be set before the vms are created.
+             */
+            Parameters.setEvictionPolicy(Parameters.EvictionPolicy.LRU);
+            Parameters.setVmStorageCapacity(5e7);
+
+            // before creating any entities.
+            int num_user = 1;   // number of grid users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+
+            /**
+             * Create a WorkflowPlanner with one schedulers.
+             */
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            /**
+             * Create a WorkflowEngine.
+             */
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            /**
+             * Create a list of VMs.The userId of a vm is basically the id of
+             * the scheduler that controls this vm.
+             */
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+
+            /**
+             * Submits this list of vms to this WorkflowEngine.
+             */
+            wfEngine.submitVmList(vmlist0, 0);
+
+            /**
+             * Binds the data centers with the scheduler.
+             */
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            CloudSim.startSimulation();
+
+            List<Job> outputList0 = wfEngine.getJobsReceivedList();
+
+            CloudSim.stopSimulation();
+
+            printJobList(outputList0);
+            printStorageList(vmlist0);
+
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Prints the statistics of the local storage of each vm
+     *
+     * @param list list of vms
+     */
+    protected static void printStorageList(List<CondorVM> list) {
+        String indent = "    ";
+        Log.printLine();
+        Log.printLine("========== STORAGE ==========");
+        Log.printLine("VM ID" + indent + "Hits" + indent + "Misses" + indent + "Hit Ratio"
+                + indent + "Evictions" + indent + "Re-transferred" + indent + "Cached");
+        DecimalFormat dft = new DecimalFormat("###.##");
+        for (CondorVM vm : list) {
+            ClusterStorage storage = vm.getStorage();
+            if (storage == null || !storage.isCaching()) {
+                continue;
+            }
+            Log.printLine(indent + vm.getId() + indent + indent + storage.getHitNum()
+                    + indent + indent + storage.getMissNum()
+                    + indent + indent + dft.format(storage.getHitRatio())
+                    + indent + indent + storage.getEvictionNum()
+                    + indent + indent + dft.format(storage.getReTransferredSize())
+                    + indent + indent + dft.format(storage.getCachedSize()));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Workflow;
+import org.workflowsim.WorkflowArrivalGenerator;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This MultiTenantWorkflowExample1 runs several workflows of different sizes
+ * at the same time: a large Montage workflow arrives first and small ones
+ * arrive while it is running. The fair share arbitration keeps the large one
+ * from taking all the idle vms, so the small ones are not starved. Set the
+ * arbitration policy to NONE to compare.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class MultiTenantWorkflowExample1 extends OpenSystemWorkloadExample1 {
+
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+
+        try {
+            // First step: Initialize the WorkflowSim package.
+
+            /**
+             * However, the exact number of vms may not necessarily be vmNum If
+             * the data center or the host doesn't have sufficient resources the
+             * exact vmNum would be smaller than that. Take care.
+             */
+            int vmNum = 10;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxDir = "C:/Users/patil/git/WorkflowSim-1.0/config/dax/";
+            String largeDaxPath = daxDir + "Montage_1000.xml";
+            String smallDaxPath = daxDir + "Montage_25.xml";
+            if (!new File(largeDaxPath).exists() || !new File(smallDaxPath).exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+
+            /**
+             * No overheads
+             */
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+
+            /**
+             * No Clustering
+             */
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            /**
+             * Initialize static parameters. The workflows come from the
+             * arrival generator, so there is no DAX path. The deadline of a
+             * workflow, relative to its arrival, is 3600 seconds unless the
+             * workflow has its own.
+             */
+            Parameters.init(vmNum, null, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 3600);
+            ReplicaCatalog.init(file_system);
+
+            /**
+             * The idle vms are shared evenly among the workflows that have
+             * waiting jobs. WEIGHTED shares them according to the weights of
+             * the workflows, EDF gives them to the earliest deadline first.
+             */
+            Parameters.setArbitrationPolicy(Parameters.ArbitrationPolicy.FAIRSHARE);
+
+            // before creating any entities.
+            int num_user = 1;   // number of grid users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+
+            /**
+             * Create a WorkflowPlanner with one schedulers.
+             */
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            /**
+             * Create a WorkflowEngine.
+             */
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            /**
+             * A large workflow at time 0, then a small one every 100 seconds.
+             * The small ones weigh twice as much and have a tighter deadline.
+             */
+            WorkflowArrivalGenerator generator = new WorkflowArrivalGenerator("arrivals_0", wfPlanner);
+            generator.addWorkflow(0.0, largeDaxPath);
+            for (int i = 1; i <= 5; i++) {
+                Workflow workflow = generator.addWorkflow(i * 100.0, smallDaxPath);
+                workflow.setWeight(2.0);
+                workflow.setDeadline(600.0);
+            }
+            /**
+             * Create a list of VMs.The userId of a vm is basically the id of
+             * the scheduler that controls this vm.
+             */
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+
+            /**
+             * Submits this list of vms to this WorkflowEngine.
+             */
+            wfEngine.submitVmList(vmlist0, 0);
+
+            /**
+             * Binds the data centers with the scheduler.
+             */
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            CloudSim.startSimulation();
+
+            List<Workflow> outputList0 = generator.getWorkflowList();
+
+            CloudSim.stopSimulation();
+
+            printWorkflowList(outputList0);
+            printDeadlines(outputList0);
+
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Prints the mean slowdown of the workflows and the ones that have missed
+     * their deadlines
+     *
+     * @param list list of workflows
+     */
+    protected static void printDeadlines(List<Workflow> list) {
+        DecimalFormat dft = new DecimalFormat("###.##");
+        double slowdown = 0.0;
+        int finished = 0;
+        for (Workflow workflow : list) {
+            if (!workflow.isFinished()) {
+                continue;
+            }
+            finished++;
+            slowdown += workflow.getSlowdown();
+            if (workflow.isDeadlineMissed()) {
+                Log.printLine("Workflow #" + workflow.getId() + " has missed its deadline ("
+                        + dft.format(workflow.getAbsoluteDeadline()) + ") by "
+                        + dft.format(workflow.getFinishTime() - workflow.getAbsoluteDeadline()));
+            }
+        }
+        if (finished > 0) {
+            Log.printLine("Mean slowdown: " + dft.format(slowdown / finished));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.MultiWorkflowParser;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+
+/**
+ * This benchmark parses all the DAX files of a directory together with
+ * MultiWorkflowParser, and one after another with WorkflowParser in the same
+ * simulation. It checks that each workflow has the same tasks and files in
+ * both cases, once the ids of MultiWorkflowParser are shifted back to start
+ * from 1, and prints the
+ * average time of the sequential parses and of MultiWorkflowParser on pools
+ * of 1 thread and of as many threads as there are processors. Pass the
+ * directory of the DAX files and the number of runs as arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class MultiWorkflowParserBenchmark extends ParserBenchmark {
+
+    public static void main(String[] args) {
+        String daxDir = args.length > 0 ? args[0] : "config/dax";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> daxPaths = getDaxPaths(daxDir);
+        if (daxPaths.isEmpty()) {
+            Log.printLine("Warning: Please replace daxDir with the physical path in your working environment!");
+            return;
+        }
+
+        try {
+            List<String> references = new ArrayList<String>();
+            for (List<Task> list : parseSequentially(daxPaths)) {
+                references.add(describe(list, 0));
+            }
+            int threads = Runtime.getRuntime().availableProcessors();
+            int[] poolSizes = threads > 1 ? new int[]{1, threads} : new int[]{1};
+            for (int poolSize : poolSizes) {
+                ForkJoinPool pool = new ForkJoinPool(poolSize);
+                List<List<Task>> lists = parseAll(daxPaths, pool);
+                int firstId = 1;
+                for (int i = 0; i < daxPaths.size(); i++) {
+                    List<Task> list = lists.get(i);
+                    if (!references.get(i).equals(describe(list, firstId - 1))) {
+                        throw new IllegalStateException("MultiWorkflowParser returned other tasks for "
+                                + daxPaths.get(i));
+                    }
+                    firstId += list.size();
+                }
+                pool.shutdown();
+            }
+
+            // the parses above also warm up the JVM
+            long total = 0;
+            for (int i = 0; i < runs; i++) {
+                long start = System.nanoTime();
+                parseSequentially(daxPaths);
+                total += System.nanoTime() - start;
+            }
+            Log.printLine(daxPaths.size() + " workflows: sequential " + total / runs / 1000000.0 + " ms");
+            for (int poolSize : poolSizes) {
+                ForkJoinPool pool = new ForkJoinPool(poolSize);
+                total = 0;
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    parseAll(daxPaths, pool);
+                    total += System.nanoTime() - start;
+                }
+                pool.shutdown();
+                Log.printLine(daxPaths.size() + " workflows: MultiWorkflowParser on " + poolSize
+                        + " threads " + total / runs / 1000000.0 + " ms");
+            }
+            Log.printLine("MultiWorkflowParser returned the same tasks as the sequential parses for the "
+                    + daxPaths.size() + " workflows");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Parses workflows one after another with WorkflowParser in a new
+     * simulation, so files of the same name are shared
+     *
+     * @param daxPaths the dax files
+     * @return the tasks of each workflow, each numbered from 1
+     */
+    protected static List<List<Task>> parseSequentially(List<String> daxPaths) {
+        Log.disable();
+        initSimulation(daxPaths.get(0));
+        List<List<Task>> lists = new ArrayList<List<Task>>();
+        for (String daxPath : daxPaths) {
+            WorkflowParser parser = new WorkflowParser(1, null, null, daxPath);
+            parser.parse();
+            lists.add(parser.getTaskList());
+        }
+        Log.enable();
+        return lists;
+    }
+
+    /**
+     * Parses workflows together in a new simulation
+     *
+     * @param daxPaths the dax files
+     * @param pool the pool that parses the workflows
+     * @return the tasks of each workflow
+     */
+    protected static List<List<Task>> parseAll(List<String> daxPaths, ForkJoinPool pool) {
+        Log.disable();
+        initSimulation(daxPaths.get(0));
+        MultiWorkflowParser parser = new MultiWorkflowParser(1, daxPaths, pool);
+        parser.parse();
+        Log.enable();
+        return parser.getTaskLists();
+    }
+}
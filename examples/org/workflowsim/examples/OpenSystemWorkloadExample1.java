@@ -0,0 +1,190 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Workflow;
+import org.workflowsim.WorkflowArrivalGenerator;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This OpenSystemWorkloadExample1 runs WorkflowSim as an open system: Montage
+ * workflows of several sizes arrive as a Poisson process and share the vms.
+ * It prints the queueing delay, makespan and slowdown of each workflow and
+ * the throughput of the system.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class OpenSystemWorkloadExample1 extends WorkflowSimBasicExample1 {
+
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+
+        try {
+            // First step: Initialize the WorkflowSim package.
+
+            /**
+             * However, the exact number of vms may not necessarily be vmNum If
+             * the data center or the host doesn't have sufficient resources the
+             * exact vmNum would be smaller than that. Take care.
+             */
+            int vmNum = 10;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxDir = "C:/Users/patil/git/WorkflowSim-1.0/config/dax/";
+            List<String> daxPaths = new ArrayList<String>();
+            daxPaths.add(daxDir + "Montage_25.xml");
+            daxPaths.add(daxDir + "Montage_50.xml");
+            daxPaths.add(daxDir + "Montage_100.xml");
+            for (String daxPath : daxPaths) {
+                if (!new File(daxPath).exists()) {
+                    Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                    return;
+                }
+            }
+
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+
+            /**
+             * No overheads
+             */
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+
+            /**
+             * No Clustering
+             */
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            /**
+             * Initialize static parameters. The workflows come from the
+             * arrival generator, so there is no DAX path.
+             */
+            Parameters.init(vmNum, null, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 0);
+            ReplicaCatalog.init(file_system);
+
+            // before creating any entities.
+            int num_user = 1;   // number of grid users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+
+            /**
+             * Create a WorkflowPlanner with one schedulers.
+             */
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            /**
+             * Create a WorkflowEngine.
+             */
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            /**
+             * 20 workflows arrive, one every 60 seconds on average. The seed
+             * makes the arrivals the same from one run to another.
+             */
+            WorkflowArrivalGenerator generator = new WorkflowArrivalGenerator("arrivals_0", wfPlanner);
+            generator.addPoissonArrivals(daxPaths, 20, 60.0, 1L);
+            /**
+             * Create a list of VMs.The userId of a vm is basically the id of
+             * the scheduler that controls this vm.
+             */
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+
+            /**
+             * Submits this list of vms to this WorkflowEngine.
+             */
+            wfEngine.submitVmList(vmlist0, 0);
+
+            /**
+             * Binds the data centers with the scheduler.
+             */
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            CloudSim.startSimulation();
+
+            List<Workflow> outputList0 = generator.getWorkflowList();
+
+            CloudSim.stopSimulation();
+
+            printWorkflowList(outputList0);
+
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Prints the workflows and the throughput of the system
+     *
+     * @param list list of workflows
+     */
+    protected static void printWorkflowList(List<Workflow> list) {
+        String indent = "    ";
+        Log.printLine();
+        Log.printLine("========== WORKFLOWS ==========");
+        Log.printLine("Workflow ID" + indent + "Jobs" + indent + "Arrival" + indent + "Start"
+                + indent + "Finish" + indent + "Queueing Delay" + indent + "Makespan"
+                + indent + "Slowdown");
+        DecimalFormat dft = new DecimalFormat("###.##");
+        double first = Double.MAX_VALUE;
+        double last = 0.0;
+        int finished = 0;
+        for (Workflow workflow : list) {
+            if (!workflow.isFinished()) {
+                Log.printLine(indent + workflow.getId() + indent + indent + "UNFINISHED");
+                continue;
+            }
+            finished++;
+            first = Math.min(first, workflow.getArrivalTime());
+            last = Math.max(last, workflow.getFinishTime());
+            Log.printLine(indent + workflow.getId() + indent + indent + workflow.getJobNum()
+                    + indent + dft.format(workflow.getArrivalTime())
+                    + indent + dft.format(workflow.getStartTime())
+                    + indent + dft.format(workflow.getFinishTime())
+                    + indent + indent + dft.format(workflow.getQueueingDelay())
+                    + indent + indent + dft.format(workflow.getMakespan())
+                    + indent + indent + dft.format(workflow.getSlowdown()));
+        }
+        if (finished > 0 && last > first) {
+            Log.printLine("Throughput: " + dft.format(finished * 3600.0 / (last - first))
+                    + " workflows per hour");
+        }
+    }
+}
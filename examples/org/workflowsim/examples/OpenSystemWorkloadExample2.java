@@ -0,0 +1,152 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Workflow;
+import org.workflowsim.WorkflowArrivalGenerator;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This OpenSystemWorkloadExample2 checks that an open system finishes when
+ * some of the workflows that arrive have no tasks: a DAX without jobs and a
+ * DAX that does not exist arrive among Montage workflows, and the last
+ * workflow to arrive is empty. Each of them finishes as soon as it arrives.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class OpenSystemWorkloadExample2 extends OpenSystemWorkloadExample1 {
+
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+
+        try {
+            int vmNum = 5;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxDir = "C:/Users/patil/git/WorkflowSim-1.0/config/dax/";
+            String montagePath = daxDir + "Montage_25.xml";
+            String emptyPath = daxDir + "Empty.xml";
+            if (!new File(montagePath).exists() || !new File(emptyPath).exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+
+            /**
+             * No overheads
+             */
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+
+            /**
+             * No Clustering
+             */
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            /**
+             * Initialize static parameters. The workflows come from the
+             * arrival generator, so there is no DAX path.
+             */
+            Parameters.init(vmNum, null, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 0);
+            ReplicaCatalog.init(file_system);
+
+            // before creating any entities.
+            int num_user = 1;   // number of grid users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+
+            /**
+             * Create a WorkflowPlanner with one schedulers.
+             */
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            /**
+             * Create a WorkflowEngine.
+             */
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            /**
+             * An empty workflow arrives with the first Montage workflow, a
+             * missing one in between, and another empty one long after the
+             * Montage workflows have completed.
+             */
+            WorkflowArrivalGenerator generator = new WorkflowArrivalGenerator("arrivals_0", wfPlanner);
+            generator.addWorkflow(0.0, montagePath);
+            generator.addWorkflow(0.0, emptyPath);
+            generator.addWorkflow(30.0, daxDir + "Missing.xml");
+            generator.addWorkflow(60.0, montagePath);
+            generator.addWorkflow(100000.0, emptyPath);
+            /**
+             * Create a list of VMs.The userId of a vm is basically the id of
+             * the scheduler that controls this vm.
+             */
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+
+            /**
+             * Submits this list of vms to this WorkflowEngine.
+             */
+            wfEngine.submitVmList(vmlist0, 0);
+
+            /**
+             * Binds the data centers with the scheduler.
+             */
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            CloudSim.startSimulation();
+
+            List<Workflow> outputList0 = generator.getWorkflowList();
+
+            CloudSim.stopSimulation();
+
+            printWorkflowList(outputList0);
+
+            int finished = 0;
+            for (Workflow workflow : outputList0) {
+                if (workflow.isFinished()) {
+                    finished++;
+                }
+            }
+            Log.printLine(finished + " of " + outputList0.size() + " workflows finished");
+
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This benchmark simulates a workflow on several data centers of 8 vms each,
+ * once with a single thread and once with the data centers running on several
+ * threads (see CloudSim.setParallelism). It checks that both simulations
+ * return the same jobs, on the same vms at the same times, and print the same
+ * log, and prints the average time of each. Pass the path to the DAX file, the
+ * number of data centers, the number of threads and the number of runs as
+ * arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ParallelSimulationBenchmark extends WorkflowSimMultipleClusterExample1 {
+
+    public static void main(String[] args) {
+        String daxPath = args.length > 0 ? args[0] : "config/dax/Montage_1000.xml";
+        int datacenterNum = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        if (!new File(daxPath).exists()) {
+            Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+            return;
+        }
+
+        try {
+            ByteArrayOutputStream referenceLog = new ByteArrayOutputStream();
+            String reference = simulate(daxPath, datacenterNum, 1, referenceLog);
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            if (!reference.equals(simulate(daxPath, datacenterNum, threads, log))) {
+                throw new IllegalStateException("The simulation on " + threads + " threads returned other jobs");
+            }
+            if (!Arrays.equals(referenceLog.toByteArray(), log.toByteArray())) {
+                throw new IllegalStateException("The simulation on " + threads + " threads printed another log");
+            }
+
+            // the simulations above also warm up the JVM
+            long serialTime = 0;
+            long parallelTime = 0;
+            for (int i = 0; i < runs; i++) {
+                long start = System.nanoTime();
+                simulate(daxPath, datacenterNum, 1, new ByteArrayOutputStream());
+                serialTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                simulate(daxPath, datacenterNum, threads, new ByteArrayOutputStream());
+                parallelTime += System.nanoTime() - start;
+            }
+            Log.printLine(new File(daxPath).getName() + " on " + datacenterNum + " data centers: 1 thread "
+                    + serialTime / runs / 1000000.0 + " ms, " + threads + " threads "
+                    + parallelTime / runs / 1000000.0 + " ms");
+            Log.printLine("The simulations on 1 and " + threads + " threads returned the same "
+                    + reference.split("\n").length + " jobs and printed the same "
+                    + referenceLog.size() + " bytes of log");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Simulates a workflow on data centers of 8 vms each
+     *
+     * @param daxPath the dax file
+     * @param datacenterNum the number of data centers
+     * @param threads the number of threads the data centers run on
+     * @param log the stream the log is printed to
+     * @return the id, vm, start time and finish time of each job, in the order
+     * they returned
+     * @throws Exception if the simulation fails
+     */
+    protected static String simulate(String daxPath, int datacenterNum, int threads, OutputStream log)
+            throws Exception {
+        int vmNum = 8 * datacenterNum;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0, ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(vmNum, daxPath, null, null, op, cp, Parameters.SchedulingAlgorithm.MINMIN,
+                Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+
+        OutputStream output = Log.getOutput();
+        Log.setOutput(log);
+        try {
+            CloudSim.init(1, Calendar.getInstance(), false);
+            CloudSim.setParallelism(threads);
+            List<WorkflowDatacenter> datacenters = new ArrayList<WorkflowDatacenter>();
+            for (int i = 0; i < datacenterNum; i++) {
+                datacenters.add(createDatacenter("Datacenter_" + i));
+            }
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            for (int i = 0; i < datacenterNum; i++) {
+                wfEngine.submitVmList(createVM(wfEngine.getSchedulerId(0), 8, 8 * i), 0);
+            }
+            for (WorkflowDatacenter datacenter : datacenters) {
+                wfEngine.bindSchedulerDatacenter(datacenter.getId(), 0);
+            }
+
+            CloudSim.startSimulation();
+            List<Job> outputList = wfEngine.getJobsReceivedList();
+            CloudSim.stopSimulation();
+
+            StringBuilder jobs = new StringBuilder();
+            for (Job job : outputList) {
+                jobs.append(job.getCloudletId()).append(' ').append(job.getVmId()).append(' ')
+                        .append(job.getExecStartTime()).append(' ').append(job.getFinishTime()).append('\n');
+            }
+            return jobs.toString();
+        } finally {
+            Log.setOutput(output);
+        }
+    }
+}
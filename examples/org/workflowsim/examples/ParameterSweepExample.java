@@ -0,0 +1,78 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.util.Arrays;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.SweepRunner;
+
+/**
+ * This example simulates several workflows with several scheduling algorithms
+ * and numbers of vms, on as many threads as there are processors, and prints
+ * the makespan and the cost of every combination. It then simulates the same
+ * combinations again on a single thread and checks that the results are the
+ * same.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ParameterSweepExample {
+
+    public static void main(String[] args) {
+        try {
+            List<String> daxPaths = Arrays.asList(
+                    "config/dax/Montage_100.xml",
+                    "config/dax/CyberShake_100.xml",
+                    "config/dax/Inspiral_100.xml");
+            List<Parameters.SchedulingAlgorithm> schedulers = Arrays.asList(
+                    Parameters.SchedulingAlgorithm.MINMIN,
+                    Parameters.SchedulingAlgorithm.MAXMIN,
+                    Parameters.SchedulingAlgorithm.FCFS);
+            List<Parameters.PlanningAlgorithm> planners = Arrays.asList(
+                    Parameters.PlanningAlgorithm.INVALID);
+            List<ClusteringParameters> clusterings = Arrays.asList(
+                    new ClusteringParameters(0, 0, ClusteringParameters.ClusteringMethod.NONE, null));
+            List<Integer> vmNums = Arrays.asList(5, 10, 20);
+            List<SweepRunner.Run> runs = SweepRunner.grid(daxPaths, schedulers, planners, clusterings, vmNums);
+
+            int threadNum = Runtime.getRuntime().availableProcessors();
+            long start = System.nanoTime();
+            List<SweepRunner.Result> results = new SweepRunner(threadNum).run(runs);
+            long parallel = System.nanoTime() - start;
+            SweepRunner.printResults(results, System.out);
+
+            start = System.nanoTime();
+            List<SweepRunner.Result> reference = new SweepRunner(1).run(runs);
+            long sequential = System.nanoTime() - start;
+            for (int i = 0; i < runs.size(); i++) {
+                SweepRunner.Result result = results.get(i);
+                SweepRunner.Result expected = reference.get(i);
+                if (result.getError() != null || result.getJobNum() != expected.getJobNum()
+                        || result.getMakespan() != expected.getMakespan()
+                        || result.getCost() != expected.getCost()) {
+                    throw new IllegalStateException("Run " + i + " differs from the sequential run");
+                }
+            }
+            System.out.println(runs.size() + " runs took " + parallel / 1000000 + " ms on "
+                    + threadNum + " threads and " + sequential / 1000000 + " ms on one thread");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
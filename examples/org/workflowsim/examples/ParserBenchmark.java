@@ -0,0 +1,224 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This benchmark parses each DAX file of a directory with the DOM parser and
+ * with the streaming parser, and prints the average parse time of each. It
+ * checks that both return the same tasks, with the same files, parents and
+ * children, with and without runtime and size files overriding the values of
+ * the DAX. Pass the directory of the DAX files and the number of runs as
+ * arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ParserBenchmark {
+
+    public static void main(String[] args) {
+        String daxDir = args.length > 0 ? args[0] : "config/dax";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> daxPaths = getDaxPaths(daxDir);
+        if (daxPaths.isEmpty()) {
+            Log.printLine("Warning: Please replace daxDir with the physical path in your working environment!");
+            return;
+        }
+
+        try {
+            Parameters.ParserMode[] modes = Parameters.ParserMode.values();
+            File runtimeFile = File.createTempFile("runtime", ".txt");
+            File datasizeFile = File.createTempFile("datasize", ".txt");
+            runtimeFile.deleteOnExit();
+            datasizeFile.deleteOnExit();
+            for (String daxPath : daxPaths) {
+                writeOverrideFiles(daxPath, runtimeFile, datasizeFile);
+                String reference = null;
+                String overridden = null;
+                StringBuilder line = new StringBuilder(new File(daxPath).getName());
+                for (Parameters.ParserMode mode : modes) {
+                    List<Task> list = parse(daxPath, mode, null, null);
+                    String tasks = describe(list, 0);
+                    String overriddenTasks = describe(parse(daxPath, mode, runtimeFile.getPath(),
+                            datasizeFile.getPath()), 0);
+                    if (reference == null) {
+                        reference = tasks;
+                        overridden = overriddenTasks;
+                        line.append(": ").append(list.size()).append(" tasks");
+                    } else if (!reference.equals(tasks) || !overridden.equals(overriddenTasks)) {
+                        throw new IllegalStateException("The " + mode + " parser returned other tasks for "
+                                + daxPath);
+                    }
+                    // the parse above also warms up the JVM
+                    long total = 0;
+                    for (int i = 0; i < runs; i++) {
+                        long start = System.nanoTime();
+                        parse(daxPath, mode, null, null);
+                        total += System.nanoTime() - start;
+                    }
+                    line.append(", ").append(mode).append(" ").append(total / runs / 1000000.0).append(" ms");
+                }
+                Log.printLine(line);
+            }
+            Log.printLine("Both parsers returned the same tasks for the " + daxPaths.size() + " workflows");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Gets the DAX files of a directory
+     *
+     * @param daxDir the directory
+     * @return the paths of the DAX files, sorted by name, empty if there is
+     * none
+     */
+    protected static List<String> getDaxPaths(String daxDir) {
+        List<String> daxPaths = new ArrayList<String>();
+        File[] files = new File(daxDir).listFiles();
+        if (files == null) {
+            return daxPaths;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.getName().endsWith(".xml")) {
+                daxPaths.add(file.getPath());
+            }
+        }
+        return daxPaths;
+    }
+
+    /**
+     * Writes a runtime file and a size file that override the runtime of each
+     * job and the size of each file of a DAX
+     *
+     * @param daxPath the dax file
+     * @param runtimeFile the runtime file
+     * @param datasizeFile the size file
+     * @throws IOException if a file cannot be read or written
+     */
+    protected static void writeOverrideFiles(String daxPath, File runtimeFile, File datasizeFile)
+            throws IOException {
+        Pattern job = Pattern.compile("<job\\s[^>]*\\bid=\"([^\"]+)\"");
+        Pattern uses = Pattern.compile("<uses\\s[^>]*\\b(?:name|file)=\"([^\"]+)\"");
+        BufferedReader br = new BufferedReader(new FileReader(daxPath));
+        PrintWriter runtimes = new PrintWriter(new FileWriter(runtimeFile));
+        PrintWriter sizes = new PrintWriter(new FileWriter(datasizeFile));
+        int i = 0;
+        String thisline;
+        while ((thisline = br.readLine()) != null) {
+            Matcher matcher = job.matcher(thisline);
+            if (matcher.find()) {
+                runtimes.println(matcher.group(1) + " " + (i++ % 7 + 1) * 1.5);
+            }
+            matcher = uses.matcher(thisline);
+            if (matcher.find()) {
+                sizes.println(matcher.group(1) + " " + (i++ % 5 + 1) * 1000.0);
+            }
+        }
+        br.close();
+        runtimes.close();
+        sizes.close();
+    }
+
+    /**
+     * Starts a new simulation in which a workflow can be parsed
+     *
+     * @param daxPath the dax file
+     */
+    protected static void initSimulation(String daxPath) {
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0, ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(20, daxPath, null, null, op, cp, Parameters.SchedulingAlgorithm.MINMIN,
+                Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        CloudSim.init(1, Calendar.getInstance(), false);
+    }
+
+    /**
+     * Parses a workflow in a new simulation
+     *
+     * @param daxPath the dax file
+     * @param mode the parser mode
+     * @param runtimePath the runtime file, may be null
+     * @param datasizePath the size file, may be null
+     * @return the tasks
+     */
+    protected static List<Task> parse(String daxPath, Parameters.ParserMode mode, String runtimePath,
+            String datasizePath) {
+        Log.disable();
+        initSimulation(daxPath);
+        Parameters.setParserMode(mode);
+        WorkflowParser parser = new WorkflowParser(1, datasizePath, runtimePath, daxPath);
+        parser.parse();
+        Parameters.setParserMode(Parameters.ParserMode.DOM);
+        Log.enable();
+        return parser.getTaskList();
+    }
+
+    /**
+     * Describes tasks: their ids, lengths, types, depths, parents, children
+     * and files, in the order of the list
+     *
+     * @param list the tasks
+     * @param idOffset the offset subtracted from the task ids
+     * @return the description
+     */
+    protected static String describe(List<Task> list, int idOffset) {
+        StringBuilder description = new StringBuilder();
+        for (Task task : list) {
+            description.append(task.getCloudletId() - idOffset).append(' ')
+                    .append(task.getCloudletLength()).append(' ')
+                    .append(task.getType()).append(' ')
+                    .append(task.getDepth()).append(" parents");
+            for (Task parent : task.getParentList()) {
+                description.append(' ').append(parent.getCloudletId() - idOffset);
+            }
+            description.append(" children");
+            for (Task child : task.getChildList()) {
+                description.append(' ').append(child.getCloudletId() - idOffset);
+            }
+            description.append(" files");
+            for (Object o : task.getFileList()) {
+                org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) o;
+                description.append(' ').append(file.getName()).append(':').append(file.getSize())
+                        .append(':').append(file.getType());
+            }
+            description.append('\n');
+        }
+        return description.toString();
+    }
+}
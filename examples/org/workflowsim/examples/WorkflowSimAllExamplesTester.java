@@ -48,6 +48,10 @@ public class WorkflowSimAllExamplesTester {
             WorkflowSimBasicExample3.main(args);
             DynamicWorkloadExample1.main(args);
             WorkflowSimMultipleClusterExample1.main(args);
+            LocalStorageEvictionExample1.main(args);
+            OpenSystemWorkloadExample1.main(args);
+            OpenSystemWorkloadExample2.main(args);
+            MultiTenantWorkflowExample1.main(args);
             
             /*
              * Horizontal Clustering Examples
@@ -82,6 +86,7 @@ public class WorkflowSimAllExamplesTester {
              */
             DHEFTPlanningAlgorithmExample1.main(args);
             HEFTPlanningAlgorithmExample1.main(args);
+            ScalableHEFTPlanningAlgorithmExample1.main(args);
             
             /**
              * Scheduling Algorithms
@@ -91,6 +96,7 @@ public class WorkflowSimAllExamplesTester {
             MAXMINSchedulingAlgorithmExample.main(args);
             MCTSchedulingAlgorithmExample.main(args);
             MINMINSchedulingAlgorithmExample.main(args);
+            DCPSchedulingAlgorithmExample.main(args);
             
         }catch (Exception e){
             Log.printLine("ERROR: please check your workflow examples");
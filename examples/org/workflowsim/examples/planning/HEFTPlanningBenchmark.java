@@ -0,0 +1,126 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.planning;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.examples.ParserBenchmark;
+import org.workflowsim.planning.HEFTPlanningAlgorithm;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * This benchmark plans each DAX file of a directory with HEFT on many vms of
+ * random speeds, once evaluating the vms of each task one after another and
+ * once on several threads. It checks that every task is planned on the same vm
+ * in both cases, and prints the average planning time of each. Pass the
+ * directory of the DAX files, the number of vms, the number of threads and the
+ * number of runs as arguments.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class HEFTPlanningBenchmark extends ParserBenchmark {
+
+    public static void main(String[] args) {
+        String daxDir = args.length > 0 ? args[0] : "config/dax";
+        int vmNum = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        List<String> daxPaths = getDaxPaths(daxDir);
+        if (daxPaths.isEmpty()) {
+            Log.printLine("Warning: Please replace daxDir with the physical path in your working environment!");
+            return;
+        }
+
+        try {
+            for (String daxPath : daxPaths) {
+                String reference = plan(daxPath, vmNum, 1);
+                if (!reference.equals(plan(daxPath, vmNum, threads))) {
+                    throw new IllegalStateException("HEFT planned other vms on " + threads
+                            + " threads for " + daxPath);
+                }
+
+                // the plans above also warm up the JVM
+                long serialTime = 0;
+                long parallelTime = 0;
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    plan(daxPath, vmNum, 1);
+                    serialTime += System.nanoTime() - start;
+                    start = System.nanoTime();
+                    plan(daxPath, vmNum, threads);
+                    parallelTime += System.nanoTime() - start;
+                }
+                Log.printLine(new File(daxPath).getName() + ": 1 thread " + serialTime / runs / 1000000.0
+                        + " ms, " + threads + " threads " + parallelTime / runs / 1000000.0 + " ms");
+            }
+            Log.printLine("HEFT planned the same vms on 1 and " + threads + " threads for the "
+                    + daxPaths.size() + " workflows");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Creates vms of random speeds, the same ones on every call
+     *
+     * @param userId the user id
+     * @param vms the number of vms
+     * @return the vms
+     */
+    protected static List<CondorVM> createVM(int userId, int vms) {
+        List<CondorVM> list = new ArrayList<CondorVM>();
+        Random random = new Random(vms);
+        for (int i = 0; i < vms; i++) {
+            double ratio = 0.1 + random.nextDouble();
+            list.add(new CondorVM(i, userId, 1000 * ratio, 1, 512, (long) (1000 * ratio), 10000,
+                    "Xen", new CloudletSchedulerSpaceShared()));
+        }
+        return list;
+    }
+
+    /**
+     * Parses a workflow in a new simulation and plans it with HEFT
+     *
+     * @param daxPath the dax file
+     * @param vmNum the number of vms
+     * @param threads the planning parallelism
+     * @return the vm of each task, in the order of the task list
+     * @throws Exception if HEFT fails
+     */
+    protected static String plan(String daxPath, int vmNum, int threads) throws Exception {
+        List<Task> list = parse(daxPath, Parameters.ParserMode.DOM, null, null);
+        Parameters.setPlanningParallelism(threads);
+        HEFTPlanningAlgorithm planner = new HEFTPlanningAlgorithm();
+        planner.setTaskList(list);
+        planner.setVmList(createVM(1, vmNum));
+        Log.disable();
+        planner.run();
+        Log.enable();
+        StringBuilder plan = new StringBuilder();
+        for (Task task : list) {
+            plan.append(task.getCloudletId()).append(':').append(task.getVmId()).append(' ');
+        }
+        return plan.toString();
+    }
+}
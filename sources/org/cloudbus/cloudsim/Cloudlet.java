@@ -1322,15 +1322,8 @@ public class Cloudlet {
 			setRequiredFiles(new LinkedList<String>());
 		}
 
-		// then check whether filename already exists or not
-		boolean result = false;
-		for (int i = 0; i < getRequiredFiles().size(); i++) {
-			final String temp = getRequiredFiles().get(i);
-			if (temp.equals(fileName)) {
-				result = true;
-				break;
-			}
-		}
+		// then check whether filename already exists or not, without indexing the linked list
+		boolean result = getRequiredFiles().contains(fileName);
 
 		if (!result) {
 			getRequiredFiles().add(fileName);
@@ -29,6 +29,9 @@ public class Log {
 	/** The disable output flag. */
 	private static boolean disabled;
 
+	/** The messages held back by each thread, if any. */
+	private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>();
+
 	/**
 	 * Prints the message.
 	 * 
@@ -36,11 +39,25 @@ public class Log {
 	 */
 	public static void print(String message) {
 		if (!isDisabled()) {
-			try {
-				getOutput().write(message.getBytes());
-			} catch (IOException e) {
-				e.printStackTrace();
+			StringBuilder buffer = buffers.get();
+			if (buffer != null) {
+				buffer.append(message);
+				return;
 			}
+			write(message);
+		}
+	}
+
+	/**
+	 * Writes a message to the output.
+	 * 
+	 * @param message the message
+	 */
+	private static void write(String message) {
+		try {
+			getOutput().write(message.getBytes());
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
@@ -110,6 +127,28 @@ public class Log {
 		}
 	}
 
+	/**
+	 * Holds back the messages printed by the calling thread until {@link #flushBuffer()} is called.
+	 * Simulation entities that run in parallel use it to print in the same order as in a sequential
+	 * simulation.
+	 */
+	public static void startBuffer() {
+		buffers.set(new StringBuilder());
+	}
+
+	/**
+	 * Prints the messages held back by the calling thread, and prints the next ones right away.
+	 */
+	public static void flushBuffer() {
+		StringBuilder buffer = buffers.get();
+		if (buffer != null) {
+			buffers.remove();
+			if (buffer.length() > 0) {
+				write(buffer.toString());
+			}
+		}
+	}
+
 	/**
 	 * Sets the output.
 	 * 
@@ -0,0 +1,402 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * This class implements the future event queue used by {@link CloudSim} as a calendar queue (R.
+ * Brown, "Calendar Queues: A Fast O(1) Priority Queue Implementation for the Simulation Event Set
+ * Problem", CACM 31(10), 1988). Events are hashed by time into an array of buckets, each one
+ * holding a sorted singly-linked list of events threaded through the events themselves, so adding
+ * and removing events takes amortised constant time. The number of buckets and the bucket width
+ * are adapted to the queue contents as it grows and shrinks; apart from the new bucket arrays
+ * allocated when the number of buckets changes, the queue does not allocate.
+ * <p>
+ * Events are ordered exactly as in {@link FutureQueue}: by time and then by serial number.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureQueue
+ * @see FutureEventQueue
+ */
+public class CalendarQueue implements FutureEventQueue {
+
+	/** The minimum number of buckets. */
+	private static final int MIN_BUCKETS = 2;
+
+	/** The number of events sampled to estimate the bucket width on resize. */
+	private static final int WIDTH_SAMPLE = 25;
+
+	/** The buckets, each one the head of a sorted list of events. */
+	private SimEvent[] buckets;
+
+	/** The last event of each bucket. */
+	private SimEvent[] tails;
+
+	/** The events sampled to estimate the bucket width, emptied once they are back in the queue. */
+	private final SimEvent[] sample = new SimEvent[WIDTH_SAMPLE];
+
+	/** The times of the events sampled to estimate the bucket width. */
+	private final double[] sampleTimes = new double[WIDTH_SAMPLE];
+
+	/** The mask used to map a virtual bucket number to a bucket index. */
+	private int mask;
+
+	/** The time width of a bucket. */
+	private double width;
+
+	/** The virtual bucket (time divided by width) of the last event taken from the queue. */
+	private long current;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** Queue size above which the number of buckets is doubled. */
+	private int topThreshold;
+
+	/** Queue size below which the number of buckets is halved. */
+	private int bottomThreshold;
+
+	/** The events indexed by source entity. */
+	private final SourceIndex sources = new SourceIndex();
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The serial of the next event added to the head of the queue, as in {@link FutureQueue}. */
+	private long firstSerial = Long.MIN_VALUE;
+
+	/**
+	 * Creates an empty calendar queue.
+	 */
+	public CalendarQueue() {
+		width = 1.0;
+		allocate(MIN_BUCKETS);
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		// the very first event shares serial 0 with the events added to the head
+		newEvent.setSerial(serial == 0 ? firstSerial++ : serial);
+		serial++;
+		insert(newEvent);
+		sources.add(newEvent);
+		if (size > topThreshold) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(firstSerial++);
+		insert(newEvent);
+		sources.add(newEvent);
+		if (size > topThreshold) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		return buckets[locateFirst()];
+	}
+
+	@Override
+	public SimEvent pollFirst() {
+		if (size == 0) {
+			return null;
+		}
+		int index = locateFirst();
+		SimEvent first = buckets[index];
+		unlink(index, null, first);
+		sources.remove(first);
+		if (size < bottomThreshold) {
+			resize(buckets.length / 2);
+		}
+		return first;
+	}
+
+	@Override
+	public int pollFirstTime(List<SimEvent> buffer) {
+		if (size == 0) {
+			return 0;
+		}
+		// events with the same time share a bucket and are contiguous at its head
+		int index = locateFirst();
+		SimEvent ev = buckets[index];
+		double time = ev.eventTime();
+		int count = 0;
+		while (ev != null && ev.eventTime() == time) {
+			SimEvent next = ev.next;
+			unlink(index, null, ev);
+			sources.remove(ev);
+			buffer.add(ev);
+			count++;
+			ev = next;
+		}
+		if (size < bottomThreshold) {
+			resize(buckets.length / 2);
+		}
+		return count;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		int index = (int) (bucketOf(event.eventTime()) & mask);
+		SimEvent prev = null;
+		for (SimEvent ev = buckets[index]; ev != null; ev = ev.next) {
+			if (ev == event) {
+				unlink(index, prev, ev);
+				sources.remove(ev);
+				return true;
+			}
+			prev = ev;
+		}
+		return false;
+	}
+
+	@Override
+	public SimEvent findFirst(int src, Predicate p) {
+		return sources.findFirst(src, p);
+	}
+
+	@Override
+	public SimEvent remove(int src, Predicate p) {
+		SimEvent ev = sources.findFirst(src, p);
+		if (ev != null) {
+			remove(ev);
+		}
+		return ev;
+	}
+
+	@Override
+	public int removeAll(int src, Predicate p) {
+		int removed = 0;
+		SimEvent ev = sources.first(src);
+		while (ev != null) {
+			SimEvent next = ev.sourceNext;
+			if (ev.getSource() == src && p.match(ev)) {
+				remove(ev);
+				removed++;
+			}
+			ev = next;
+		}
+		return removed;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		width = 1.0;
+		current = 0;
+		size = 0;
+		allocate(MIN_BUCKETS);
+		sources.clear();
+	}
+
+	/**
+	 * Gets the virtual bucket of a given time, i.e. the number of bucket widths elapsed since time
+	 * zero. Times too large for a long all fall in the last virtual bucket.
+	 *
+	 * @param time the event time
+	 * @return the virtual bucket
+	 */
+	private long bucketOf(double time) {
+		return (long) (time / width);
+	}
+
+	/**
+	 * Inserts an event in its bucket, after all the events that precede it.
+	 *
+	 * @param newEvent the event
+	 */
+	private void insert(SimEvent newEvent) {
+		long vb = bucketOf(newEvent.eventTime());
+		int index = (int) (vb & mask);
+		SimEvent tail = tails[index];
+		if (tail == null) {
+			newEvent.next = null;
+			buckets[index] = newEvent;
+			tails[index] = newEvent;
+		} else if (newEvent.compareTo(tail) > 0) {
+			// the common case of events scheduled in time order
+			newEvent.next = null;
+			tail.next = newEvent;
+			tails[index] = newEvent;
+		} else {
+			SimEvent prev = null;
+			SimEvent ev = buckets[index];
+			while (newEvent.compareTo(ev) > 0) {
+				prev = ev;
+				ev = ev.next;
+			}
+			newEvent.next = ev;
+			if (prev == null) {
+				buckets[index] = newEvent;
+			} else {
+				prev.next = newEvent;
+			}
+		}
+		if (size == 0 || vb < current) {
+			current = vb;
+		}
+		size++;
+	}
+
+	/**
+	 * Removes an event from a bucket.
+	 *
+	 * @param index the bucket index
+	 * @param prev the event preceding the one to remove, or null if it is the head of the bucket
+	 * @param ev the event to remove
+	 */
+	private void unlink(int index, SimEvent prev, SimEvent ev) {
+		if (prev == null) {
+			buckets[index] = ev.next;
+		} else {
+			prev.next = ev.next;
+		}
+		if (tails[index] == ev) {
+			tails[index] = prev;
+		}
+		ev.next = null;
+		size--;
+	}
+
+	/**
+	 * Finds the bucket holding the first event of a non-empty queue, and moves the current virtual
+	 * bucket to it.
+	 *
+	 * @return the bucket index
+	 */
+	private int locateFirst() {
+		// scan one year of buckets starting from the current one
+		for (int i = 0; i < buckets.length; i++) {
+			long vb = current + i;
+			if (vb < current) {
+				break; // overflow
+			}
+			int index = (int) (vb & mask);
+			SimEvent head = buckets[index];
+			if (head != null && bucketOf(head.eventTime()) == vb) {
+				current = vb;
+				return index;
+			}
+		}
+
+		// no event within a year: search the minimum directly
+		int first = -1;
+		for (int i = 0; i < buckets.length; i++) {
+			if (buckets[i] != null && (first < 0 || buckets[i].compareTo(buckets[first]) < 0)) {
+				first = i;
+			}
+		}
+		current = bucketOf(buckets[first].eventTime());
+		return first;
+	}
+
+	/**
+	 * Allocates an empty bucket array.
+	 *
+	 * @param nBuckets the number of buckets, a power of two
+	 */
+	private void allocate(int nBuckets) {
+		buckets = new SimEvent[nBuckets];
+		tails = new SimEvent[nBuckets];
+		mask = nBuckets - 1;
+		topThreshold = 2 * nBuckets;
+		bottomThreshold = nBuckets > MIN_BUCKETS ? nBuckets / 2 - 2 : -1;
+	}
+
+	/**
+	 * Changes the number of buckets, re-estimating the bucket width from the events at the head of
+	 * the queue.
+	 *
+	 * @param nBuckets the new number of buckets
+	 */
+	private void resize(int nBuckets) {
+		if (nBuckets < MIN_BUCKETS) {
+			nBuckets = MIN_BUCKETS;
+		}
+
+		double newWidth = estimateWidth();
+		SimEvent[] old = buckets;
+		allocate(nBuckets);
+		width = newWidth;
+		size = 0;
+		for (SimEvent head : old) {
+			SimEvent ev = head;
+			while (ev != null) {
+				SimEvent next = ev.next;
+				insert(ev);
+				ev = next;
+			}
+		}
+	}
+
+	/**
+	 * Estimates a bucket width as three times the average separation between the first events in
+	 * the queue, ignoring separations much larger than the average.
+	 *
+	 * @return the new bucket width
+	 */
+	private double estimateWidth() {
+		int n = Math.min(size, WIDTH_SAMPLE);
+		if (n < 2) {
+			return width;
+		}
+
+		// take the first events out of the queue and put them back afterwards
+		int savedTop = topThreshold;
+		int savedBottom = bottomThreshold;
+		topThreshold = Integer.MAX_VALUE;
+		bottomThreshold = -1;
+		for (int i = 0; i < n; i++) {
+			sample[i] = pollFirst();
+		}
+		for (int i = 0; i < n; i++) {
+			SimEvent ev = sample[i];
+			sample[i] = null;
+			sampleTimes[i] = ev.eventTime();
+			insert(ev);
+			sources.add(ev);
+		}
+		topThreshold = savedTop;
+		bottomThreshold = savedBottom;
+
+		double average = (sampleTimes[n - 1] - sampleTimes[0]) / (n - 1);
+		if (average <= 0 || Double.isInfinite(average)) {
+			return width;
+		}
+		double total = 0;
+		int count = 0;
+		for (int i = 1; i < n; i++) {
+			double separation = sampleTimes[i] - sampleTimes[i - 1];
+			if (separation < 2 * average) {
+				total += separation;
+				count++;
+			}
+		}
+		double newWidth = count > 0 ? 3 * total / count : 3 * average;
+		if (newWidth <= 0 || Double.isInfinite(newWidth)) {
+			return width;
+		}
+		return newWidth;
+	}
+
+}
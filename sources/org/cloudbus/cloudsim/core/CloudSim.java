@@ -9,13 +9,11 @@
 package org.cloudbus.cloudsim.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
@@ -29,6 +27,9 @@ import org.cloudbus.cloudsim.core.predicates.PredicateNone;
  * network. Later, nodes in such file are mapped to CloudSim entities. Delay calculated from the
  * BRITE model are added to the messages send through CloudSim. Messages using the old model are
  * converted to the apropriate methods with the correct parameters.
+ * <p>
+ * The simulation state is kept in the {@link SimulationContext} bound to the calling thread, so
+ * independent simulations can run concurrently on different threads.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -39,31 +40,8 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
 	/** The Constant NOT_FOUND. */
 	private static final int NOT_FOUND = -1;
-
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
-
-	/** The calendar. */
-	private static Calendar calendar = null;
-
-	/** The termination time. */
-	private static double terminateAt = -1;
-
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.1;
 	
 	/**
 	 * Initialises all the common attributes.
@@ -78,21 +56,22 @@ public class CloudSim {
 	 */
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
 			throws Exception {
+		SimulationContext context = SimulationContext.current();
 		initialize();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		context.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			context.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			context.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		context.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -117,14 +96,15 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		SimulationContext context = SimulationContext.current();
 		try {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			context.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			context.cisId = context.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -158,12 +138,13 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag, double periodBetweenEvents) {
+		SimulationContext context = SimulationContext.current();
 	    if (periodBetweenEvents <= 0) {
 		throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + periodBetweenEvents);
 	    }
 	    
 	    init(numUser, cal, traceFlag);
-	    minTimeBetweenEvents = periodBetweenEvents;
+	    context.minTimeBetweenEvents = periodBetweenEvents;
 	}
 	
 	
@@ -183,16 +164,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationContext context = SimulationContext.current();
 		Log.printLine("Starting CloudSim version " + CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
 			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			context.cisId = -1;
+			context.shutdownId = -1;
+			context.cis = null;
+			context.calendar = null;
+			context.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -229,7 +211,9 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		awaitTurn();
+		SimulationContext context = SimulationContext.current();
+		context.running = false;
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -241,10 +225,12 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		awaitTurn();
+		SimulationContext context = SimulationContext.current();
+		if (time <= context.clock) {
 			return false;
 		} else {
-			terminateAt = time;
+			context.terminateAt = time;
 		}
 		return true;
 	}
@@ -255,7 +241,146 @@ public class CloudSim {
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+	    return SimulationContext.current().minTimeBetweenEvents;
+	}
+
+	/**
+	 * Selects the implementation of the future event queue used by the next simulation. A
+	 * {@link CalendarQueue} adds and removes events in amortised constant time, whereas the default
+	 * {@link FutureQueue} is a sorted tree. Both process events in exactly the same order. This
+	 * method should be called before {@link #init(int, Calendar, boolean)}.
+	 * 
+	 * @param enabled true to use a calendar queue, false to use the default queue
+	 */
+	public static void setCalendarQueueEnabled(boolean enabled) {
+		SimulationContext.current().calendarQueueEnabled = enabled;
+	}
+
+	/**
+	 * Checks whether the future event queue is a {@link CalendarQueue}.
+	 * 
+	 * @return true, if the calendar queue is enabled
+	 */
+	public static boolean isCalendarQueueEnabled() {
+		return SimulationContext.current().calendarQueueEnabled;
+	}
+
+	/**
+	 * Sets the future event queue of the next simulation, instead of the one selected by
+	 * {@link #setCalendarQueueEnabled(boolean)}. The queue is used by one simulation only. This is
+	 * meant for benchmarks and for checking the order in which events are processed. This method
+	 * should be called before {@link #init(int, Calendar, boolean)}.
+	 * 
+	 * @param queue an empty queue, or null to use the selected one
+	 */
+	public static void setFutureEventQueue(FutureEventQueue queue) {
+		SimulationContext.current().futureQueue = queue;
+	}
+
+	/**
+	 * Enables or disables event pooling for the next simulation. When enabled, an event is recycled
+	 * as soon as it has been processed, i.e., when {@link SimEntity#processEvent(SimEvent)} returns
+	 * for events sent to an entity, and new events reuse the recycled ones. Entities must then not
+	 * keep references to the events they process, nor to their fields after the call. Events taken
+	 * from the queues with {@link SimEntity#selectEvent} or {@link SimEntity#cancelEvent} are never
+	 * recycled. This method should be called before {@link #init(int, Calendar, boolean)}.
+	 * 
+	 * @param enabled true to recycle events, false to allocate a new event each time
+	 */
+	public static void setEventPoolingEnabled(boolean enabled) {
+		SimulationContext.current().eventPoolingEnabled = enabled;
+	}
+
+	/**
+	 * Checks whether event pooling is enabled.
+	 * 
+	 * @return true, if events are recycled
+	 */
+	public static boolean isEventPoolingEnabled() {
+		return SimulationContext.current().eventPoolingEnabled;
+	}
+
+	/**
+	 * Sets the number of threads that run the independent entities of the next simulation (see
+	 * {@link SimEntity#setIndependent(boolean)}). Independent entities that have events to process
+	 * at the same time, with no other entity between them in the order of the ids, then run
+	 * concurrently. The events they send are queued in the same order as with a single thread, so
+	 * the results do not change. This method should be called before
+	 * {@link #startSimulation()}.
+	 * 
+	 * @param threads the number of threads, 1 to run all the entities on the calling thread
+	 */
+	public static void setParallelism(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive.");
+		}
+		SimulationContext.current().parallelism = threads;
+	}
+
+	/**
+	 * Gets the number of threads that run independent entities.
+	 * 
+	 * @return the number of threads
+	 * @see #setParallelism(int)
+	 */
+	public static int getParallelism() {
+		return SimulationContext.current().parallelism;
+	}
+
+	/**
+	 * Waits, in an independent entity that runs concurrently with others, until the entities before
+	 * it are done. The entity can then read and change state shared with other entities as it would
+	 * in a sequential simulation, until it returns from {@link SimEntity#run()}. This method returns
+	 * immediately in any other case, so the code that guards shared state with it also works
+	 * sequentially.
+	 * 
+	 * @see #setParallelism(int)
+	 */
+	public static void awaitTurn() {
+		ParallelExecutor parallel = SimulationContext.current().parallel;
+		if (parallel != null) {
+			parallel.awaitTurn();
+		}
+	}
+
+	/**
+	 * Runs an action that changes state shared with other entities, at the turn of the calling
+	 * entity (see {@link #awaitTurn()}). An independent entity that runs concurrently with others
+	 * and whose turn has not come yet keeps the action aside, like the events it sends, and goes on;
+	 * the action is run once the entities before it are done. It is run right away in any other
+	 * case. The code that reads the state the action changes must therefore wait for its turn.
+	 * 
+	 * @param action the action
+	 * @see #setParallelism(int)
+	 */
+	public static void runInTurn(Runnable action) {
+		ParallelExecutor parallel = SimulationContext.current().parallel;
+		if (parallel == null || !parallel.deferAction(action)) {
+			action.run();
+		}
+	}
+
+	/**
+	 * Gets the number of events of the current or last simulation that reused a recycled event
+	 * instead of being allocated.
+	 * 
+	 * @return the number of reused events, or 0 if event pooling is disabled
+	 * @see #setEventPoolingEnabled(boolean)
+	 */
+	public static long getNumReusedEvents() {
+		SimulationContext context = SimulationContext.current();
+		return context.eventPool == null ? 0 : context.eventPool.getNumReused();
+	}
+
+	/**
+	 * Gets the number of events allocated by the current or last simulation.
+	 * 
+	 * @return the number of allocated events, or 0 if event pooling is disabled
+	 * @see #setEventPoolingEnabled(boolean)
+	 */
+	public static long getNumAllocatedEvents() {
+		SimulationContext context = SimulationContext.current();
+		return context.eventPool == null ? 0 : context.eventPool.getNumCreated();
 	}
 
 	/**
@@ -268,10 +393,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationContext context = SimulationContext.current();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = context.calendar;
+		if (context.calendar != null) {
+			clone = (Calendar) context.calendar.clone();
 		}
 
 		return clone;
@@ -285,7 +411,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return SimulationContext.current().cisId;
 	}
 
 	/**
@@ -298,59 +424,41 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationContext context = SimulationContext.current();
+		if (context.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return context.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
-
-	/** The simulation clock. */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
+		SimulationContext context = SimulationContext.current();
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		context.entities = new ArrayList<SimEntity>();
+		context.entityView = Collections.unmodifiableList(context.entities);
+		context.entitiesByName = new HashMap<String, SimEntity>();
+		if (context.futureQueue != null) {
+			context.future = context.futureQueue;
+			context.futureQueue = null;
+		} else if (context.calendarQueueEnabled) {
+			context.future = new CalendarQueue();
+		} else {
+			context.future = new FutureQueue();
+		}
+		context.deferred = new DeferredQueue();
+		context.tickEvents = new ArrayList<SimEvent>();
+		context.eventPool = context.eventPoolingEnabled ? new EventPool() : null;
+		context.waitPredicates = new Predicate[16];
+		context.coalescedEvents = 0;
+		context.clock = 0;
+		context.running = false;
 	}
 
 	// The two standard predicates
@@ -369,7 +477,7 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return SimulationContext.current().clock;
 	}
 
 	/**
@@ -378,7 +486,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return SimulationContext.current().entities.size();
 	}
 
 	/**
@@ -388,7 +496,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return SimulationContext.current().entities.get(id);
 	}
 
 	/**
@@ -398,7 +506,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return SimulationContext.current().entitiesByName.get(name);
 	}
 
 	/**
@@ -408,7 +516,8 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimulationContext context = SimulationContext.current();
+		SimEntity obj = context.entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -450,16 +559,13 @@ public class CloudSim {
 	}
 
 	/**
-	 * Returns a list of entities created for the simulation.
+	 * Returns a list of entities created for the simulation. The list is a read-only view that
+	 * reflects the entities added afterwards, so it must not be iterated while entities are added.
 	 * 
-	 * @return the entity iterator
+	 * @return the entity list
 	 */
 	public static List<SimEntity> getEntityList() {
-		// create a new list to prevent the user from changing
-		// the list of entities used by Simulation
-		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
-		return list;
+		return SimulationContext.current().entityView;
 	}
 
 	// Public update methods
@@ -471,17 +577,22 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		awaitTurn();
+		SimulationContext context = SimulationContext.current();
 		SimEvent evt;
-		if (running) {
+		if (context.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = newEvent(context, SimEvent.CREATE, context.clock, 1, 0, 0, e);
+			context.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
+			int id = context.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			context.entities.add(e);
+			context.entitiesByName.put(e.getName(), e);
+			if (id >= context.waitPredicates.length) {
+				context.waitPredicates = Arrays.copyOf(context.waitPredicates, context.waitPredicates.length * 2);
+			}
 		}
 	}
 
@@ -507,47 +618,48 @@ public class CloudSim {
 	 * @return true, if successful otherwise
 	 */
 	public static boolean runClockTick() {
+		SimulationContext context = SimulationContext.current();
 		SimEntity ent;
 		boolean queue_empty;
 		
-		int entities_size = entities.size();
+		int entities_size = context.entities.size();
 
 		for (int i = 0; i < entities_size; i++) {
-			ent = entities.get(i);
+			ent = context.entities.get(i);
 			if (ent.getState() == SimEntity.RUNNABLE) {
-				ent.run();
+				if (context.parallel != null && ent.isIndependent()) {
+					i = context.parallel.runEntities(i, entities_size) - 1;
+				} else {
+					ent.run();
+				}
 			}
 		}
 				
 		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		if (context.future.size() > 0) {
 			queue_empty = false;
-			SimEvent first = fit.next();
-			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
-
-			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
+			double time = context.future.peek().eventTime();
+
+			// Take all the events at the same time at once. Processing them may add new events for
+			// this time, which are handled in the same tick.
+			SimEvent next;
+			do {
+				context.future.pollFirstTime(context.tickEvents);
+				for (int i = 0; i < context.tickEvents.size(); i++) {
+					SimEvent ev = context.tickEvents.get(i);
+					processEvent(context, ev);
+					if (context.eventPool != null && ev.getType() != SimEvent.SEND) {
+						// events sent to an entity are recycled once the entity has processed them
+						context.eventPool.recycle(ev);
+					}
 				}
-			}
-
-			future.removeAll(toRemove);
+				context.tickEvents.clear();
+				next = context.future.peek();
+			} while (next != null && next.eventTime() == time);
 
 		} else {
 			queue_empty = true;
-			running = false;
+			context.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
@@ -568,9 +680,13 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = SimulationContext.current();
+		double time = context.clock + delay;
+		if (context.parallel == null
+				|| !context.parallel.deferEvent(SimEvent.HOLD_DONE, time, src, -1, -1, null, false)) {
+			queue(context, SimEvent.HOLD_DONE, time, src, -1, -1, null, false);
+		}
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -580,9 +696,13 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = SimulationContext.current();
+		double time = context.clock + delay;
+		if (context.parallel == null
+				|| !context.parallel.deferEvent(SimEvent.HOLD_DONE, time, src, -1, -1, null, false)) {
+			queue(context, SimEvent.HOLD_DONE, time, src, -1, -1, null, false);
+		}
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -595,12 +715,118 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void send(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = SimulationContext.current();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		double time = context.clock + delay;
+		if (context.parallel == null
+				|| !context.parallel.deferEvent(SimEvent.SEND, time, src, dest, tag, data, false)) {
+			queue(context, SimEvent.SEND, time, src, dest, tag, data, false);
+		}
+	}
+
+	/**
+	 * Adds an event to the future event queue, unless it is coalesced with a pending one.
+	 * 
+	 * @param context the simulation context
+	 * @param evtype the internal event type
+	 * @param time the event time
+	 * @param src the id of the source entity
+	 * @param dest the id of the destination entity
+	 * @param tag the tag
+	 * @param data the data
+	 * @param first whether the event is queued first among the events with the same time
+	 */
+	static void queue(SimulationContext context, int evtype, double time, int src, int dest, int tag,
+			Object data, boolean first) {
+		if (first) {
+			context.future.addEventFirst(newEvent(context, evtype, time, src, dest, tag, data));
+			return;
+		}
+		if (evtype == SimEvent.SEND && src == dest && data == null && coalesce(context, src, tag, time)) {
+			return;
+		}
+		context.future.addEvent(newEvent(context, evtype, time, src, dest, tag, data));
+	}
+
+	/**
+	 * Creates an event, reusing a recycled one if event pooling is enabled.
+	 * 
+	 * @param context the simulation context
+	 * @param evtype the internal event type
+	 * @param time the event time
+	 * @param src the id of the source entity
+	 * @param dest the id of the destination entity
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the event
+	 */
+	private static SimEvent newEvent(SimulationContext context, int evtype, double time, int src,
+			int dest, int tag, Object data) {
+		if (context.eventPool != null) {
+			return context.eventPool.obtain(evtype, time, src, dest, tag, data);
+		}
+		return new SimEvent(evtype, time, src, dest, tag, data);
+	}
+
+	/**
+	 * Returns an event that has been processed by its destination entity to the event pool, if
+	 * event pooling is enabled.
+	 * 
+	 * @param e the event
+	 */
+	static void recycle(SimEvent e) {
+		SimulationContext context = SimulationContext.current();
+		if (context.eventPool != null
+				&& (context.parallel == null || !context.parallel.deferRecycle(e))) {
+			context.eventPool.recycle(e);
+		}
+	}
+
+	/**
+	 * Checks whether an event an entity sends to itself can be coalesced with a pending one, as
+	 * declared with {@link SimEntity#setCoalescible(int, double)}. If the pending event is later
+	 * than the new one, it is removed from the queue.
+	 * 
+	 * @param context the simulation context
+	 * @param src the entity
+	 * @param tag the tag
+	 * @param time the time of the new event
+	 * @return true if the new event must be dropped
+	 */
+	private static boolean coalesce(SimulationContext context, int src, int tag, double time) {
+		double window = context.entities.get(src).getCoalescingWindow(tag);
+		if (window < 0) {
+			return false;
+		}
+
+		context.coalescing.set(src, tag, time - window, time + window);
+		SimEvent pending = context.future.findFirst(src, context.coalescing);
+		if (pending == null) {
+			return false;
+		}
+		context.coalescedEvents++;
+		if (pending.eventTime() <= time) {
+			return true;
+		}
+		context.future.remove(pending);
+		if (context.eventPool != null) {
+			context.eventPool.recycle(pending);
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the number of events that were not queued, or were removed from the queue, because they
+	 * were coalesced with another event of the current or last simulation.
+	 * 
+	 * @return the number of coalesced events
+	 * @see SimEntity#setCoalescible(int, double)
+	 */
+	public static long getNumCoalescedEvents() {
+		return SimulationContext.current().coalescedEvents;
 	}
 
 	/**
@@ -613,12 +839,16 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = SimulationContext.current();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+		double time = context.clock + delay;
+		if (context.parallel == null
+				|| !context.parallel.deferEvent(SimEvent.SEND, time, src, dest, tag, data, true)) {
+			queue(context, SimEvent.SEND, time, src, dest, tag, data, true);
+		}
 	}
 
 	/**
@@ -630,10 +860,11 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+		SimulationContext context = SimulationContext.current();
+		context.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			context.waitPredicates[src] = p;
 		}
 	}
 
@@ -645,16 +876,7 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return SimulationContext.current().deferred.count(d, p);
 	}
 
 	/**
@@ -665,16 +887,7 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		return SimulationContext.current().deferred.select(src, p);
 	}
 
 	/**
@@ -685,15 +898,7 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		return SimulationContext.current().deferred.findFirst(src, p);
 	}
 
 	/**
@@ -704,17 +909,8 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-				break;
-			}
-		}
-
-		return ev;
+		awaitTurn();
+		return SimulationContext.current().future.remove(src, p);
 	}
 
 	/**
@@ -726,16 +922,8 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-			}
-		}
-		return previousSize < future.size();
+		awaitTurn();
+		return SimulationContext.current().future.removeAll(src, p) > 0;
 	}
 
 	//
@@ -745,16 +933,17 @@ public class CloudSim {
 	/**
 	 * Processes an event.
 	 * 
+	 * @param context the simulation context
 	 * @param e the e
 	 */
-	private static void processEvent(SimEvent e) {
+	private static void processEvent(SimulationContext context, SimEvent e) {
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < context.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		context.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -773,19 +962,19 @@ public class CloudSim {
 					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 				} else {
 					int tag = e.getTag();
-					dest_ent = entities.get(dest);
+					dest_ent = context.entities.get(dest);
 					if (dest_ent.getState() == SimEntity.WAITING) {
-						Integer destObj = Integer.valueOf(dest);
-						Predicate p = waitPredicates.get(destObj);
+						Predicate p = context.waitPredicates[dest];
 						if ((p == null) || (tag == 9999) || (p.match(e))) {
-							dest_ent.setEventBuffer((SimEvent) e.clone());
+							// the event has left the queue, so a pooled event can be handed over as is
+							dest_ent.setEventBuffer(context.eventPool != null ? e : (SimEvent) e.clone());
 							dest_ent.setState(SimEntity.RUNNABLE);
-							waitPredicates.remove(destObj);
+							context.waitPredicates[dest] = null;
 						} else {
-							deferred.addEvent(e);
+							context.deferred.addEvent(e);
 						}
 					} else {
-						deferred.addEvent(e);
+						context.deferred.addEvent(e);
 					}
 				}
 				break;
@@ -795,7 +984,7 @@ public class CloudSim {
 				if (src < 0) {
 					throw new IllegalArgumentException("Null entity holding.");
 				} else {
-					entities.get(src).setState(SimEntity.RUNNABLE);
+					context.entities.get(src).setState(SimEntity.RUNNABLE);
 				}
 				break;
 
@@ -809,9 +998,10 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext context = SimulationContext.current();
+		context.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.startEntity();
 		}
 
@@ -825,7 +1015,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return SimulationContext.current().running;
 	}
 
 	/**
@@ -834,8 +1024,9 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext context = SimulationContext.current();
+		context.paused = true;
+		return context.paused;
 	}
 
 	/**
@@ -845,10 +1036,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext context = SimulationContext.current();
+		if (time <= context.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			context.pauseAt = time;
 		}
 		return true;
 	}
@@ -859,13 +1051,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext context = SimulationContext.current();
+		context.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (context.pauseAt <= context.clock) {
+			context.pauseAt = -1;
 		}
 
-		return !paused;
+		return !context.paused;
 	}
 
 	/**
@@ -875,29 +1068,59 @@ public class CloudSim {
 	 * @return the double last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationContext context = SimulationContext.current();
+		if (!context.running) {
 			runStart();
 		}
+		if (context.parallelism > 1) {
+			context.parallel = new ParallelExecutor(context, context.parallelism);
+		}
+		try {
+			runLoop(context);
+		} finally {
+			if (context.parallel != null) {
+				context.parallel.shutdown();
+				context.parallel = null;
+			}
+		}
+
+		double clock = clock();
+
+		if (context.coalescedEvents > 0) {
+			printMessage("Simulation: " + context.coalescedEvents + " redundant events were coalesced");
+		}
+
+		finishSimulation();
+		runStop();
+
+		return clock;
+	}
+
+	/**
+	 * Runs the clock ticks until the simulation ends, is terminated or is abruptly terminated.
+	 * 
+	 * @param context the simulation context
+	 */
+	private static void runLoop(SimulationContext context) {
 		while (true) {
-			if (runClockTick() || abruptTerminate) {
+			if (runClockTick() || context.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (context.terminateAt > 0.0 && context.clock >= context.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				context.clock = context.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+			if (context.pauseAt != -1
+					&& ((context.future.size() > 0 && context.clock <= context.pauseAt && context.pauseAt <= context.future.peek().eventTime()) || context.future.size() == 0 && context.pauseAt <= context.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				context.clock = context.pauseAt;
 			}
 
-			while (paused) {
+			while (context.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -905,13 +1128,6 @@ public class CloudSim {
 				}
 			}
 		}
-
-		double clock = clock();
-
-		finishSimulation();
-		runStop();
-
-		return clock;
 	}
 
 	/**
@@ -919,39 +1135,43 @@ public class CloudSim {
 	 * in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationContext context = SimulationContext.current();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!context.abruptTerminate) {
+			for (SimEntity ent : context.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.shutdownEntity();
 		}
 
 		// reset all static variables
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
-
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		context.entities = null;
+		context.entityView = null;
+		context.entitiesByName = null;
+		context.future = null;
+		context.deferred = null;
+		context.tickEvents = null;
+		context.clock = 0L;
+		context.running = false;
+
+		context.waitPredicates = null;
+		context.paused = false;
+		context.pauseAt = -1;
+		context.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		awaitTurn();
+		SimulationContext.current().abruptTerminate = true;
 	}
 
 	/**
@@ -969,7 +1189,48 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return SimulationContext.current().paused;
+	}
+
+	/**
+	 * A predicate that matches the events without data that an entity sent to itself with a given
+	 * tag, for a time within a given interval.
+	 */
+	static class CoalescingPredicate extends Predicate {
+
+		/** The entity. */
+		private int entity;
+
+		/** The tag. */
+		private int tag;
+
+		/** The start of the interval. */
+		private double from;
+
+		/** The end of the interval. */
+		private double to;
+
+		/**
+		 * Sets the events to match.
+		 * 
+		 * @param entity the entity
+		 * @param tag the tag
+		 * @param from the start of the interval
+		 * @param to the end of the interval
+		 */
+		private void set(int entity, int tag, double from, double to) {
+			this.entity = entity;
+			this.tag = tag;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean match(SimEvent ev) {
+			return ev.getType() == SimEvent.SEND && ev.getDestination() == entity && ev.getTag() == tag
+					&& ev.getData() == null && ev.eventTime() >= from && ev.eventTime() <= to;
+		}
+
 	}
 
 }
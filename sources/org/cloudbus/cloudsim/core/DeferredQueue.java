@@ -8,15 +8,22 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. The events are kept
+ * in one linked list per destination entity, so looking up the events of an entity does not scan
+ * the events of the others. Each list is in the same order as the events of that entity would be
+ * in a single queue ordered by time, and events are only ever selected for a given destination, so
+ * the global time order is preserved.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
@@ -24,65 +31,177 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
-
-	/** The max time. */
-	private double maxTime = -1;
+	/** The lists of events, indexed by destination entity id. */
+	private final List<EntityQueue> queues = new ArrayList<EntityQueue>();
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int dest = newEvent.getDestination();
+		while (queues.size() <= dest) {
+			queues.add(null);
+		}
+		EntityQueue queue = queues.get(dest);
+		if (queue == null) {
+			queue = new EntityQueue();
+			queues.set(dest, queue);
 		}
+		queue.addEvent(newEvent);
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+	/**
+	 * Counts the events for a given destination entity that match a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null) {
+			return 0;
+		}
+		if (p instanceof PredicateAny) {
+			return queue.list.size();
+		}
+		int count = 0;
+		for (SimEvent ev : queue.list) {
+			if (p.match(ev)) {
+				count++;
 			}
 		}
+		return count;
+	}
 
-		list.add(newEvent);
+	/**
+	 * Finds the first event for a given destination entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null || queue.list.isEmpty()) {
+			return null;
+		}
+		if (p instanceof PredicateAny) {
+			return queue.list.getFirst();
+		}
+		for (SimEvent ev : queue.list) {
+			if (p.match(ev)) {
+				return ev;
+			}
+		}
+		return null;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
-	 * @return the iterator
+	 * Removes the first event for a given destination entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if no event matches
 	 */
-	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+	public SimEvent select(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null || queue.list.isEmpty()) {
+			return null;
+		}
+		if (p instanceof PredicateAny) {
+			return queue.list.removeFirst();
+		}
+		Iterator<SimEvent> iterator = queue.list.iterator();
+		while (iterator.hasNext()) {
+			SimEvent ev = iterator.next();
+			if (p.match(ev)) {
+				iterator.remove();
+				return ev;
+			}
+		}
+		return null;
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		// not kept as a counter, since entities that run concurrently select their own events
+		int size = 0;
+		for (EntityQueue queue : queues) {
+			if (queue != null) {
+				size += queue.list.size();
+			}
+		}
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		queues.clear();
+	}
+
+	/**
+	 * Gets the list of events of a destination entity.
+	 *
+	 * @param dest the id of the destination entity
+	 * @return the list, or <tt>null</tt> if no event has been sent to the entity
+	 */
+	private EntityQueue getQueue(int dest) {
+		if (dest < 0 || dest >= queues.size()) {
+			return null;
+		}
+		return queues.get(dest);
+	}
+
+	/**
+	 * The events sent to one entity, ordered by time.
+	 */
+	private static class EntityQueue {
+
+		/** The list. */
+		private final LinkedList<SimEvent> list = new LinkedList<SimEvent>();
+
+		/** The max time. */
+		private double maxTime = -1;
+
+		/**
+		 * Adds a new event, after all the events with the same or an earlier time.
+		 *
+		 * @param newEvent the event
+		 */
+		private void addEvent(SimEvent newEvent) {
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			double eventTime = newEvent.eventTime();
+			if (eventTime >= maxTime) {
+				list.add(newEvent);
+				maxTime = eventTime;
+				return;
+			}
+
+			ListIterator<SimEvent> iterator = list.listIterator();
+			SimEvent event;
+			while (iterator.hasNext()) {
+				event = iterator.next();
+				if (event.eventTime() > eventTime) {
+					iterator.previous();
+					iterator.add(newEvent);
+					return;
+				}
+			}
+
+			list.add(newEvent);
+		}
+
 	}
 
-}
\ No newline at end of file
+}
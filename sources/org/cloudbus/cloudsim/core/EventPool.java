@@ -0,0 +1,97 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * This class keeps the events that have been consumed by their entity so that {@link CloudSim} can
+ * reuse them for new events instead of allocating new ones. Free events are kept in a stack
+ * threaded through {@link SimEvent#next}, so the pool itself does not allocate. An event must only
+ * be recycled once nothing refers to it any more: neither a queue nor the entity that processed
+ * it.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim#setEventPoolingEnabled(boolean)
+ */
+final class EventPool {
+
+	/** The maximum number of free events kept by the pool. */
+	private static final int MAX_FREE = 4096;
+
+	/** The top of the stack of free events. */
+	private SimEvent free;
+
+	/** The number of free events. */
+	private int numFree;
+
+	/** The number of events created by the pool. */
+	private long numCreated;
+
+	/** The number of events taken from the stack of free events. */
+	private long numReused;
+
+	/**
+	 * Gets an event with the given values, reusing a free event if there is one.
+	 *
+	 * @param evtype the internal event type
+	 * @param time the event time
+	 * @param src the id of the source entity
+	 * @param dest the id of the destination entity
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the event
+	 */
+	SimEvent obtain(int evtype, double time, int src, int dest, int tag, Object data) {
+		SimEvent ev = free;
+		if (ev == null) {
+			numCreated++;
+			return new SimEvent(evtype, time, src, dest, tag, data);
+		}
+		free = ev.next;
+		ev.next = null;
+		numFree--;
+		numReused++;
+		ev.reset(evtype, time, src, dest, tag, data);
+		return ev;
+	}
+
+	/**
+	 * Returns an event to the pool. The data is released right away so that the pool does not keep
+	 * it from being garbage collected.
+	 *
+	 * @param ev the event
+	 */
+	void recycle(SimEvent ev) {
+		if (numFree >= MAX_FREE) {
+			return;
+		}
+		ev.reset(SimEvent.ENULL, -1, -1, -1, -1, null);
+		ev.next = free;
+		free = ev;
+		numFree++;
+	}
+
+	/**
+	 * Gets the number of events created by the pool.
+	 *
+	 * @return the number of events created
+	 */
+	long getNumCreated() {
+		return numCreated;
+	}
+
+	/**
+	 * Gets the number of events that were reused instead of created.
+	 *
+	 * @return the number of events reused
+	 */
+	long getNumReused() {
+		return numReused;
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * This interface defines the future event queue used by {@link CloudSim}. Implementations must
+ * keep the events ordered by event time and, for events with the same time, by the serial number
+ * assigned when the event was added (see {@link SimEvent#compareTo(SimEvent)}).
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureQueue
+ * @see CalendarQueue
+ */
+public interface FutureEventQueue {
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Add a new event to the head of the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent pollFirst();
+
+	/**
+	 * Removes all the events that have the same time as the first event of the queue, appending
+	 * them to a buffer in queue order.
+	 *
+	 * @param buffer the list the removed events are appended to
+	 * @return the number of events removed
+	 */
+	int pollFirstTime(List<SimEvent> buffer);
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Finds the first event sent by a given entity that matches a predicate, without removing it.
+	 *
+	 * @param src the id of the entity that scheduled the event
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	SimEvent findFirst(int src, Predicate p);
+
+	/**
+	 * Removes the first event sent by a given entity that matches a predicate.
+	 *
+	 * @param src the id of the entity that scheduled the event
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if no event matches
+	 */
+	SimEvent remove(int src, Predicate p);
+
+	/**
+	 * Removes all the events sent by a given entity that match a predicate.
+	 *
+	 * @param src the id of the entity that scheduled the events
+	 * @param p the predicate
+	 * @return the number of events removed
+	 */
+	int removeAll(int src, Predicate p);
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Clears the queue.
+	 */
+	void clear();
+
+}
@@ -9,36 +9,54 @@
 package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.SortedSet;
+import java.util.List;
 import java.util.TreeSet;
 
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
 /**
  * This class implements the future event queue used by {@link Simulation}. The event queue uses a
- * {@link TreeSet} in order to store the events.
+ * {@link TreeSet} in order to store the events, and a {@link SourceIndex} to find the events
+ * scheduled by a given entity.
  * 
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see java.util.TreeSet
  */
-public class FutureQueue {
+public class FutureQueue implements FutureEventQueue {
 
 	/** The sorted set. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+
+	/** The events indexed by source entity. */
+	private final SourceIndex sources = new SourceIndex();
 
 	/** The serial. */
 	private long serial = 0;
 
+	/**
+	 * The serial of the next event added to the head of the queue. These serials are negative and
+	 * increasing, so that such events come before the other events with the same time, but after
+	 * those added to the head earlier, and all events in the queue have distinct serials.
+	 */
+	private long firstSerial = Long.MIN_VALUE;
+
 	/**
 	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
 	 * the events in the queue.
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEvent(SimEvent newEvent) {
-		newEvent.setSerial(serial++);
+		// the very first event shares serial 0 with the events added to the head
+		newEvent.setSerial(serial == 0 ? firstSerial++ : serial);
+		serial++;
 		sortedSet.add(newEvent);
+		sources.add(newEvent);
 	}
 
 	/**
@@ -46,18 +64,20 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEventFirst(SimEvent newEvent) {
-		newEvent.setSerial(0);
+		newEvent.setSerial(firstSerial++);
 		sortedSet.add(newEvent);
+		sources.add(newEvent);
 	}
 
 	/**
-	 * Returns an iterator to the queue.
+	 * Returns a read-only iterator to the queue.
 	 * 
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return sortedSet.iterator();
+		return Collections.unmodifiableSet(sortedSet).iterator();
 	}
 
 	/**
@@ -65,6 +85,7 @@ public class FutureQueue {
 	 * 
 	 * @return the size
 	 */
+	@Override
 	public int size() {
 		return sortedSet.size();
 	}
@@ -75,8 +96,74 @@ public class FutureQueue {
 	 * @param event the event
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
+		if (sortedSet.remove(event)) {
+			sources.remove(event);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (sortedSet.isEmpty()) {
+			return null;
+		}
+		return sortedSet.first();
+	}
+
+	@Override
+	public SimEvent pollFirst() {
+		SimEvent first = sortedSet.pollFirst();
+		if (first != null) {
+			sources.remove(first);
+		}
+		return first;
+	}
+
+	@Override
+	public int pollFirstTime(List<SimEvent> buffer) {
+		if (sortedSet.isEmpty()) {
+			return 0;
+		}
+		SimEvent first = pollFirst();
+		buffer.add(first);
+		int count = 1;
+		while (!sortedSet.isEmpty() && sortedSet.first().eventTime() == first.eventTime()) {
+			buffer.add(pollFirst());
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public SimEvent findFirst(int src, Predicate p) {
+		return sources.findFirst(src, p);
+	}
+
+	@Override
+	public SimEvent remove(int src, Predicate p) {
+		SimEvent ev = sources.findFirst(src, p);
+		if (ev != null) {
+			remove(ev);
+		}
+		return ev;
+	}
+
+	@Override
+	public int removeAll(int src, Predicate p) {
+		int removed = 0;
+		SimEvent ev = sources.first(src);
+		while (ev != null) {
+			SimEvent next = ev.sourceNext;
+			if (ev.getSource() == src && p.match(ev)) {
+				remove(ev);
+				removed++;
+			}
+			ev = next;
+		}
+		return removed;
 	}
 
 	/**
@@ -86,14 +173,20 @@ public class FutureQueue {
 	 * @return true, if successful
 	 */
 	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
+		boolean changed = false;
+		for (SimEvent ev : events) {
+			changed |= remove(ev);
+		}
+		return changed;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
+	@Override
 	public void clear() {
 		sortedSet.clear();
+		sources.clear();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,388 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.cloudbus.cloudsim.Log;
+
+/**
+ * This class runs the independent entities of a simulation on several threads. Each independent
+ * entity is a logical process of its own, and all the other entities form a single sequential
+ * logical process. Within a clock tick, the entities that have events to process run in the order
+ * of their ids; a run of consecutive independent entities is a window that is safe to process
+ * concurrently, because all its events have the same time and the entities do not share state.
+ * <p>
+ * The results are the same as those of the sequential kernel. While an entity of a window runs,
+ * the events it sends are kept aside instead of being queued, and each entity queues them in turn,
+ * in the order of the ids, once the entities before it are done. This numbers the events exactly
+ * as the sequential kernel does. The messages it prints to the log and the actions it runs with
+ * {@link CloudSim#runInTurn(Runnable)} are held back and carried out in turn as well. An entity
+ * that needs the state of the simulation as the sequential kernel would see it, e.g. to cancel an
+ * event, waits for its turn with {@link CloudSim#awaitTurn()}, and then runs as the only entity
+ * that changes that state.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim#setParallelism(int)
+ * @see SimEntity#setIndependent(boolean)
+ */
+final class ParallelExecutor {
+
+	/** An event to queue. */
+	private static final int QUEUE = 0;
+
+	/** An event to queue first among the events with the same time. */
+	private static final int QUEUE_FIRST = 1;
+
+	/** An event to return to the event pool. */
+	private static final int RECYCLE = 2;
+
+	/** An action to run. */
+	private static final int RUN = 3;
+
+	/** The simulation. */
+	private final SimulationContext context;
+
+	/** The threads that run the entities. */
+	private final ExecutorService executor;
+
+	/** The entities of the current window, in the order of their ids. */
+	private final List<SimEntity> window = new ArrayList<SimEntity>();
+
+	/** The state of the entity that runs on each thread of the executor. */
+	private final ThreadLocal<Turn> turns = new ThreadLocal<Turn>();
+
+	/** The number of entities of the current window that are done. */
+	private int done;
+
+	/**
+	 * Creates the threads that run the entities of a simulation.
+	 *
+	 * @param context the simulation
+	 * @param threads the number of threads
+	 */
+	ParallelExecutor(SimulationContext context, int threads) {
+		this.context = context;
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			private int count = 0;
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "CloudSim-" + count++);
+				thread.setDaemon(true);
+				return thread;
+			}
+
+		});
+	}
+
+	/**
+	 * Runs the entities of a clock tick from a given one, until an entity that is not independent
+	 * has events to process.
+	 *
+	 * @param start the index of the first entity
+	 * @param end the number of entities of the tick
+	 * @return the index of the first entity that was not run
+	 */
+	int runEntities(int start, int end) {
+		int i = start;
+		for (; i < end; i++) {
+			SimEntity ent = context.entities.get(i);
+			// entities without events do nothing when they run, whatever their logical process
+			if (ent.getState() != SimEntity.RUNNABLE || !ent.hasPendingEvent()) {
+				continue;
+			}
+			if (!ent.isIndependent()) {
+				break;
+			}
+			window.add(ent);
+		}
+
+		try {
+			if (window.size() == 1) {
+				window.get(0).run();
+			} else if (window.size() > 1) {
+				runWindow();
+			}
+		} finally {
+			window.clear();
+		}
+		return i;
+	}
+
+	/**
+	 * Runs the entities of the window concurrently and waits for all of them.
+	 */
+	private void runWindow() {
+		done = 0;
+		List<Future<?>> futures = new ArrayList<Future<?>>(window.size());
+		for (int i = 0; i < window.size(); i++) {
+			futures.add(executor.submit(new Task(i, window.get(i))));
+		}
+
+		Throwable error = null;
+		boolean interrupted = false;
+		for (Future<?> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					// the entities are still running, so the tick has to be completed anyway
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (error == null) {
+						error = e.getCause();
+					}
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error != null) {
+			throw new IllegalStateException(error);
+		}
+	}
+
+	/**
+	 * Keeps an event sent by the entity that runs on the calling thread aside, if it is not its
+	 * turn yet.
+	 *
+	 * @param evtype the internal event type
+	 * @param time the event time
+	 * @param src the id of the source entity
+	 * @param dest the id of the destination entity
+	 * @param tag the tag
+	 * @param data the data
+	 * @param first whether the event is queued first among the events with the same time
+	 * @return true if the event has been kept aside, false if it must be queued right away
+	 */
+	boolean deferEvent(int evtype, double time, int src, int dest, int tag, Object data, boolean first) {
+		Turn turn = turns.get();
+		if (turn == null || turn.started) {
+			return false;
+		}
+		turn.operations.add(new Operation(first ? QUEUE_FIRST : QUEUE, evtype, time, src, dest, tag,
+				data));
+		return true;
+	}
+
+	/**
+	 * Keeps an event processed by the entity that runs on the calling thread aside, if it is not its
+	 * turn yet, so that it is returned to the event pool in the same order as in a sequential run.
+	 *
+	 * @param e the event
+	 * @return true if the event has been kept aside, false if it must be recycled right away
+	 */
+	boolean deferRecycle(SimEvent e) {
+		Turn turn = turns.get();
+		if (turn == null || turn.started) {
+			return false;
+		}
+		turn.operations.add(new Operation(RECYCLE, 0, 0, 0, 0, 0, e));
+		return true;
+	}
+
+	/**
+	 * Keeps an action of the entity that runs on the calling thread aside, if it is not its turn yet.
+	 *
+	 * @param action the action
+	 * @return true if the action has been kept aside, false if it must be run right away
+	 */
+	boolean deferAction(Runnable action) {
+		Turn turn = turns.get();
+		if (turn == null || turn.started) {
+			return false;
+		}
+		turn.operations.add(new Operation(RUN, 0, 0, 0, 0, 0, action));
+		return true;
+	}
+
+	/**
+	 * Waits until the entities before the one that runs on the calling thread are done, and queues
+	 * the events and runs the actions it has kept aside, and prints the messages it has held back.
+	 * Does nothing if the calling thread does not run an entity of a window, or if it is already its
+	 * turn.
+	 */
+	void awaitTurn() {
+		Turn turn = turns.get();
+		if (turn == null || turn.started) {
+			return;
+		}
+
+		boolean interrupted = false;
+		synchronized (this) {
+			while (done < turn.index) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		Log.flushBuffer();
+		for (Operation operation : turn.operations) {
+			if (operation.kind == RECYCLE) {
+				context.eventPool.recycle((SimEvent) operation.data);
+			} else if (operation.kind == RUN) {
+				((Runnable) operation.data).run();
+			} else {
+				CloudSim.queue(context, operation.evtype, operation.time, operation.src, operation.dest,
+						operation.tag, operation.data, operation.kind == QUEUE_FIRST);
+			}
+		}
+		turn.operations.clear();
+		turn.started = true;
+	}
+
+	/**
+	 * Stops the threads.
+	 */
+	void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Runs an entity of a window on a thread of the executor.
+	 */
+	private class Task implements Runnable {
+
+		/** The index of the entity in the window. */
+		private final int index;
+
+		/** The entity. */
+		private final SimEntity entity;
+
+		/**
+		 * Creates a task.
+		 *
+		 * @param index the index of the entity in the window
+		 * @param entity the entity
+		 */
+		Task(int index, SimEntity entity) {
+			this.index = index;
+			this.entity = entity;
+		}
+
+		@Override
+		public void run() {
+			SimulationContext.setCurrent(context);
+			turns.set(new Turn(index));
+			Log.startBuffer();
+			try {
+				entity.run();
+			} finally {
+				try {
+					awaitTurn();
+				} finally {
+					turns.remove();
+					SimulationContext.setCurrent(null);
+					synchronized (ParallelExecutor.this) {
+						done++;
+						ParallelExecutor.this.notifyAll();
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * The turn of an entity of a window.
+	 */
+	private static class Turn {
+
+		/** The index of the entity in the window. */
+		private final int index;
+
+		/** The operations kept aside until the turn of the entity. */
+		private final List<Operation> operations = new ArrayList<Operation>();
+
+		/** Whether the turn of the entity has started. */
+		private boolean started;
+
+		/**
+		 * Creates the turn of an entity.
+		 *
+		 * @param index the index of the entity in the window
+		 */
+		Turn(int index) {
+			this.index = index;
+		}
+
+	}
+
+	/**
+	 * An operation on the event queues or the shared state kept aside until the turn of an entity.
+	 */
+	private static class Operation {
+
+		/** The kind of operation. */
+		private final int kind;
+
+		/** The internal event type. */
+		private final int evtype;
+
+		/** The event time. */
+		private final double time;
+
+		/** The id of the source entity. */
+		private final int src;
+
+		/** The id of the destination entity. */
+		private final int dest;
+
+		/** The tag. */
+		private final int tag;
+
+		/** The data, the event to recycle or the action to run. */
+		private final Object data;
+
+		/**
+		 * Creates an operation.
+		 *
+		 * @param kind the kind of operation
+		 * @param evtype the internal event type
+		 * @param time the event time
+		 * @param src the id of the source entity
+		 * @param dest the id of the destination entity
+		 * @param tag the tag
+		 * @param data the data, the event to recycle or the action to run
+		 */
+		Operation(int kind, int evtype, double time, int src, int dest, int tag, Object data) {
+			this.kind = kind;
+			this.evtype = evtype;
+			this.time = time;
+			this.src = src;
+			this.dest = dest;
+			this.tag = tag;
+			this.data = data;
+		}
+
+	}
+
+}
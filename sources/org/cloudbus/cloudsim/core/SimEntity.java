@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.Arrays;
+
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.NetworkTopology;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
@@ -42,6 +44,15 @@ public abstract class SimEntity implements Cloneable {
 	/** The entity's current state. */
 	private int state;
 
+	/** The tags of the events sent by the entity to itself that are coalesced. */
+	private int[] coalescedTags = new int[0];
+
+	/** The coalescing window of each tag in {@link #coalescedTags}. */
+	private double[] coalescingWindows = new double[0];
+
+	/** Whether the entity may run at the same time as other independent entities. */
+	private boolean independent;
+
 	/**
 	 * Creates a new entity.
 	 * 
@@ -75,6 +86,92 @@ public abstract class SimEntity implements Cloneable {
 		return id;
 	}
 
+	/**
+	 * Declares a tag as coalescible. While an event with this tag and no data that the entity sent
+	 * to itself is pending, another such event for a time at most <code>window</code> away from it
+	 * is not queued: only the earliest of the two is kept. This avoids repeated wake-up events for
+	 * the same instant, such as {@link CloudSimTags#VM_DATACENTER_EVENT} in datacenters. With a
+	 * zero window only events for the very same time are dropped; a larger window also drops
+	 * wake-ups that would have happened slightly later.
+	 * 
+	 * @param tag the tag of the events to coalesce
+	 * @param window the maximum time between two events that are coalesced
+	 */
+	public void setCoalescible(int tag, double window) {
+		if (window < 0) {
+			throw new IllegalArgumentException("Negative coalescing window supplied.");
+		}
+		for (int i = 0; i < coalescedTags.length; i++) {
+			if (coalescedTags[i] == tag) {
+				coalescingWindows[i] = window;
+				return;
+			}
+		}
+		int n = coalescedTags.length;
+		coalescedTags = Arrays.copyOf(coalescedTags, n + 1);
+		coalescingWindows = Arrays.copyOf(coalescingWindows, n + 1);
+		coalescedTags[n] = tag;
+		coalescingWindows[n] = window;
+	}
+
+	/**
+	 * Declares a tag as coalescible, only dropping events for the same time as a pending one.
+	 * 
+	 * @param tag the tag of the events to coalesce
+	 * @see #setCoalescible(int, double)
+	 */
+	public void setCoalescible(int tag) {
+		setCoalescible(tag, 0);
+	}
+
+	/**
+	 * Gets the coalescing window of a tag.
+	 * 
+	 * @param tag the tag
+	 * @return the window, or -1 if the tag is not coalescible
+	 */
+	double getCoalescingWindow(int tag) {
+		for (int i = 0; i < coalescedTags.length; i++) {
+			if (coalescedTags[i] == tag) {
+				return coalescingWindows[i];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Declares whether the entity is independent, i.e., a logical process of its own. When the
+	 * simulation runs on several threads (see {@link CloudSim#setParallelism(int)}), independent
+	 * entities that have events to process at the same time are run concurrently. An independent
+	 * entity must therefore only interact with other entities through events, or through state that
+	 * is guarded with {@link CloudSim#awaitTurn()}. The messages it prints to the
+	 * {@link org.cloudbus.cloudsim.Log} are printed in order. Entities are not independent by default.
+	 * 
+	 * @param independent true if the entity can run concurrently with other independent entities
+	 */
+	protected void setIndependent(boolean independent) {
+		this.independent = independent;
+	}
+
+	/**
+	 * Checks whether the entity is independent.
+	 * 
+	 * @return true, if the entity can run concurrently with other independent entities
+	 * @see #setIndependent(boolean)
+	 */
+	public boolean isIndependent() {
+		return independent;
+	}
+
+	/**
+	 * Checks whether running the entity would process an event.
+	 * 
+	 * @return true, if an event is buffered or waiting in the deferred queue
+	 */
+	boolean hasPendingEvent() {
+		return evbuf != null || CloudSim.running() && numEventsWaiting() > 0;
+	}
+
 	// The schedule functions
 
 	/**
@@ -404,6 +501,7 @@ public abstract class SimEntity implements Cloneable {
 
 		while (ev != null) {
 			processEvent(ev);
+			CloudSim.recycle(ev);
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -18,10 +18,10 @@ package org.cloudbus.cloudsim.core;
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	/** internal event type **/
-	private final int etype;
+	private int etype;
 
 	/** time at which event should occur **/
-	private final double time;
+	private double time;
 
 	/** time that the event was removed from the queue for service **/
 	private double endWaitingTime;
@@ -33,13 +33,19 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** the user defined type of the event **/
-	private final int tag;
+	private int tag;
 
 	/** any data the event is carrying **/
-	private final Object data;
+	private Object data;
 
 	private long serial = -1;
 
+	/** next event in the same bucket of a {@link CalendarQueue}, or in the free list of an {@link EventPool} **/
+	SimEvent next;
+
+	/** previous and next events scheduled by the same entity in the future queue **/
+	SimEvent sourcePrev, sourceNext;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -82,6 +88,22 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Reinitialises a recycled event, as if it had just been created with the given values.
+	 * 
+	 * @see EventPool
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = 0.0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		serial = -1;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
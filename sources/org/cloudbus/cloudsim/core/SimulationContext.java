@@ -0,0 +1,214 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * This class holds the state of one simulation: the clock, the event queues, the entities and the
+ * simulation settings, as well as the state that extensions of CloudSim attach to the simulation.
+ * The static methods of {@link CloudSim} operate on the context bound to the calling thread, so
+ * independent simulations can run at the same time on different threads of the same virtual
+ * machine.
+ * <p>
+ * A thread is bound to a new context the first time it uses CloudSim, and keeps it across
+ * simulations until another one is bound with {@link #setCurrent(SimulationContext)}. A new thread
+ * does not inherit the context of the thread that creates it: a thread that observes or pauses a
+ * simulation running on another thread has to bind the context of that simulation explicitly.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim
+ */
+public class SimulationContext {
+
+	/** The context bound to each thread. */
+	private static final ThreadLocal<SimulationContext> CURRENT = new ThreadLocal<SimulationContext>() {
+
+		@Override
+		protected SimulationContext initialValue() {
+			return new SimulationContext();
+		}
+
+	};
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	double minTimeBetweenEvents = 0.1;
+
+	/** Whether the future event queue is a {@link CalendarQueue} instead of a {@link FutureQueue}. */
+	boolean calendarQueueEnabled = false;
+
+	/** The future event queue of the next simulation, null to create one. */
+	FutureEventQueue futureQueue = null;
+
+	/** Whether consumed events are recycled through an {@link EventPool}. */
+	boolean eventPoolingEnabled = false;
+
+	/** The number of threads that run independent entities. */
+	int parallelism = 1;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** A read-only view of the entities. */
+	List<SimEntity> entityView;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The future event queue. */
+	FutureEventQueue future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The buffer reused by each clock tick to hold the events taken from the future queue. */
+	List<SimEvent> tickEvents;
+
+	/** The pool of recycled events, or null if event pooling is disabled. */
+	EventPool eventPool;
+
+	/** The threads that run independent entities, or null if the simulation runs on one thread. */
+	ParallelExecutor parallel;
+
+	/** The simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	// The predicates used in entity wait methods
+	/** The wait predicates, indexed by entity id. */
+	Predicate[] waitPredicates;
+
+	/** The paused. */
+	volatile boolean paused = false;
+
+	/** The pause at. */
+	volatile long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate = false;
+
+	/** The number of events dropped because they were coalesced with a pending event. */
+	long coalescedEvents = 0;
+
+	/** The predicate used to find pending events an event can be coalesced with. */
+	final CloudSim.CoalescingPredicate coalescing = new CloudSim.CoalescingPredicate();
+
+	/**
+	 * The state attached by extensions, by type. The threads that run independent entities share the
+	 * context, so the state may be attached from several threads at once.
+	 */
+	private final ConcurrentMap<Class<?>, Object> attributes = new ConcurrentHashMap<Class<?>, Object>();
+
+	/**
+	 * Gets the context bound to the calling thread, binding a new one if there is none.
+	 *
+	 * @return the context
+	 */
+	public static SimulationContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Binds a context to the calling thread. The static methods of {@link CloudSim}, and the
+	 * extensions that keep their state in the context, then operate on it.
+	 *
+	 * @param context the context, or <tt>null</tt> to bind a new context the next time the thread
+	 *            uses CloudSim
+	 */
+	public static void setCurrent(SimulationContext context) {
+		if (context == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(context);
+		}
+	}
+
+	/**
+	 * Gets the state of a given type attached to this context.
+	 *
+	 * @param type the type of the state, usually a class private to its owner
+	 * @return the state, or <tt>null</tt> if none is attached
+	 */
+	public <T> T getAttribute(Class<T> type) {
+		return type.cast(attributes.get(type));
+	}
+
+	/**
+	 * Attaches state to this context, replacing the state of the same type.
+	 *
+	 * @param type the type of the state
+	 * @param value the state, or <tt>null</tt> to remove it
+	 */
+	public <T> void setAttribute(Class<T> type, T value) {
+		if (value == null) {
+			attributes.remove(type);
+		} else {
+			attributes.put(type, value);
+		}
+	}
+
+	/**
+	 * Attaches state to this context unless state of the same type is already attached. Extensions
+	 * that create their state the first time it is used attach it with this method, so that two
+	 * threads cannot attach different states.
+	 *
+	 * @param type the type of the state
+	 * @param value the state
+	 * @return the state attached to this context, i.e. the given one or the one already attached
+	 */
+	public <T> T putAttributeIfAbsent(Class<T> type, T value) {
+		Object previous = attributes.putIfAbsent(type, value);
+		return previous == null ? value : type.cast(previous);
+	}
+
+	/**
+	 * Gets the current simulation time of this context.
+	 *
+	 * @return the simulation time
+	 */
+	public double clock() {
+		return clock;
+	}
+
+	/**
+	 * Checks whether the simulation of this context is running.
+	 *
+	 * @return true, if the simulation is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * This class indexes the events of a future event queue by the entity that scheduled them, so that
+ * the events of an entity can be cancelled without going through the events of every other entity.
+ * The events of each entity are kept in a doubly-linked list threaded through the events
+ * themselves, in the order they were added. Events with a negative source share a single list.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventQueue
+ */
+final class SourceIndex {
+
+	/** The first event of each source, indexed by source id plus one. */
+	private SimEvent[] heads = new SimEvent[16];
+
+	/**
+	 * Adds an event to the list of its source.
+	 *
+	 * @param ev the event
+	 */
+	void add(SimEvent ev) {
+		int slot = slotOf(ev.getSource());
+		if (slot >= heads.length) {
+			heads = Arrays.copyOf(heads, Math.max(slot + 1, heads.length * 2));
+		}
+		SimEvent head = heads[slot];
+		ev.sourcePrev = null;
+		ev.sourceNext = head;
+		if (head != null) {
+			head.sourcePrev = ev;
+		}
+		heads[slot] = ev;
+	}
+
+	/**
+	 * Removes an event from the list of its source.
+	 *
+	 * @param ev the event
+	 */
+	void remove(SimEvent ev) {
+		if (ev.sourcePrev == null) {
+			heads[slotOf(ev.getSource())] = ev.sourceNext;
+		} else {
+			ev.sourcePrev.sourceNext = ev.sourceNext;
+		}
+		if (ev.sourceNext != null) {
+			ev.sourceNext.sourcePrev = ev.sourcePrev;
+		}
+		ev.sourcePrev = null;
+		ev.sourceNext = null;
+	}
+
+	/**
+	 * Finds the earliest event of a source that matches a predicate.
+	 *
+	 * @param src the id of the source entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	SimEvent findFirst(int src, Predicate p) {
+		SimEvent found = null;
+		for (SimEvent ev = first(src); ev != null; ev = ev.sourceNext) {
+			if (ev.getSource() == src && p.match(ev) && (found == null || ev.compareTo(found) < 0)) {
+				found = ev;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Gets the most recently added event of a source. The other events of the source follow it
+	 * through {@link SimEvent#sourceNext}; when the source is negative, they may include events of
+	 * other negative sources.
+	 *
+	 * @param src the id of the source entity
+	 * @return the event, or <tt>null</tt> if the source has no events
+	 */
+	SimEvent first(int src) {
+		int slot = slotOf(src);
+		if (slot >= heads.length) {
+			return null;
+		}
+		return heads[slot];
+	}
+
+	/**
+	 * Removes all the events from the index.
+	 */
+	void clear() {
+		Arrays.fill(heads, null);
+	}
+
+	/**
+	 * Gets the slot of a source in the heads array.
+	 *
+	 * @param src the id of the source entity
+	 * @return the slot
+	 */
+	private static int slotOf(int src) {
+		return src < 0 ? 0 : src + 1;
+	}
+
+}
@@ -15,14 +15,33 @@
  */
 package org.workflowsim;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.HarddriveStorage;
 import org.cloudbus.cloudsim.ParameterException;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.EvictionPolicy;
+import org.workflowsim.utils.ReplicaCatalog;
 
 /**
  * ClusterStorage is an extention of HarddriveStorage and it is used as a local
  * storage system of a vm
+ * <p>
+ * With an eviction policy other than NONE, it also caches the replicas the vm
+ * holds in the ReplicaCatalog, under its name, within its capacity. When a
+ * replica does not fit, replicas are evicted in the order of the policy and
+ * removed from the ReplicaCatalog. The last replica of a file, such as an
+ * output file that has not been read by another vm yet, is written back to the
+ * submit host when it is evicted, so the file can still be staged in from
+ * there. The files a job is staging in are never evicted.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -34,6 +53,35 @@ public class ClusterStorage extends HarddriveStorage {
      * The map stores the bandwidth from this cluster-storage to others
      */
     Map bandwidthMap;
+    /**
+     * The eviction policy of the cache
+     */
+    private final EvictionPolicy policy;
+    /**
+     * The cached replicas by file name
+     */
+    private final Map<String, Replica> replicas;
+    /**
+     * The cached replicas in the order they are evicted
+     */
+    private final TreeSet<Replica> evictionOrder;
+    /**
+     * The files that have been evicted and not cached again since
+     */
+    private final Set<String> evictedFiles;
+    /**
+     * The size of the cached replicas
+     */
+    private double cachedSize;
+    /**
+     * The number of accesses, increased at each access
+     */
+    private long clock;
+    /**
+     * The statistics of the cache
+     */
+    private long hitNum, missNum, evictionNum;
+    private double reTransferredSize;
 
     /**
      * Initialize a ClusterStorage
@@ -43,7 +91,23 @@ public class ClusterStorage extends HarddriveStorage {
      * @throws ParameterException
      */
     public ClusterStorage(String name, double capacity) throws ParameterException {
+        this(name, capacity, EvictionPolicy.NONE);
+    }
+
+    /**
+     * Initialize a ClusterStorage that caches replicas
+     *
+     * @param name, name of this storage, i.e. the id of its vm
+     * @param capacity, capacity
+     * @param policy, the eviction policy
+     * @throws ParameterException
+     */
+    public ClusterStorage(String name, double capacity, EvictionPolicy policy) throws ParameterException {
         super(name, capacity);
+        this.policy = policy;
+        this.replicas = new HashMap<String, Replica>();
+        this.evictionOrder = new TreeSet<Replica>(getComparator(policy));
+        this.evictedFiles = new HashSet<String>();
     }
 
     /**
@@ -75,4 +139,246 @@ public class ClusterStorage extends HarddriveStorage {
             return (Double) bandwidthMap.get("local");
         }
     }
+
+    /**
+     * Tells whether this storage caches replicas
+     *
+     * @return whether the eviction policy is not NONE
+     */
+    public boolean isCaching() {
+        return policy != EvictionPolicy.NONE;
+    }
+
+    /**
+     * Gets the eviction policy
+     *
+     * @return the eviction policy
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return policy;
+    }
+
+    /**
+     * Accesses a file for a job: a hit if a replica is cached, otherwise a
+     * miss, and the file has to be staged in. A miss on a file that has been
+     * evicted counts its size as re-transferred.
+     *
+     * @param file the file
+     * @return whether a replica is cached
+     */
+    public boolean access(File file) {
+        Replica replica = replicas.get(file.getName());
+        if (replica != null) {
+            hitNum++;
+            touch(replica);
+            return true;
+        }
+        missNum++;
+        if (evictedFiles.contains(file.getName())) {
+            reTransferredSize += file.getSize();
+        }
+        return false;
+    }
+
+    /**
+     * Caches a replica of a file and registers it in the ReplicaCatalog,
+     * evicting other replicas if it does not fit. An input file that does not
+     * fit even after evicting is not cached. An output file is always cached
+     * since the vm has written it, even if it is larger than the capacity.
+     *
+     * @param file the file
+     * @param pinned the names of the files that must not be evicted
+     * @return whether the replica is cached
+     */
+    public boolean cache(File file, Collection<String> pinned) {
+        String name = file.getName();
+        Replica replica = replicas.get(name);
+        if (replica != null) {
+            touch(replica);
+            return true;
+        }
+        boolean output = file.getType() == Parameters.FileType.OUTPUT.value;
+        if (!makeRoom(file.getSize(), pinned) && !output) {
+            return false;
+        }
+        replica = new Replica(name, file.getSize());
+        replica.lastAccess = ++clock;
+        replica.frequency = 1;
+        replicas.put(name, replica);
+        evictionOrder.add(replica);
+        cachedSize += replica.size;
+        evictedFiles.remove(name);
+        ReplicaCatalog.addStorageList(name, getName());
+        return true;
+    }
+
+    /**
+     * Evicts replicas, in the order of the policy, until a file of a given
+     * size fits
+     *
+     * @param size the size of the file
+     * @param pinned the names of the files that must not be evicted
+     * @return whether the file fits
+     */
+    private boolean makeRoom(double size, Collection<String> pinned) {
+        if (cachedSize + size <= getCapacity()) {
+            return true;
+        }
+        if (size > getCapacity()) {
+            return false;
+        }
+        for (Iterator<Replica> it = evictionOrder.iterator(); it.hasNext();) {
+            Replica replica = it.next();
+            if (pinned.contains(replica.name)) {
+                continue;
+            }
+            List<String> storages = ReplicaCatalog.getStorageList(replica.name);
+            if (storages == null || storages.size() < 2) {
+                // write the last replica of the file back
+                ReplicaCatalog.addStorageList(replica.name, Parameters.SOURCE);
+            }
+            it.remove();
+            replicas.remove(replica.name);
+            cachedSize -= replica.size;
+            evictedFiles.add(replica.name);
+            evictionNum++;
+            ReplicaCatalog.removeStorageList(replica.name, getName());
+            if (cachedSize + size <= getCapacity()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the recency and the frequency of a cached replica
+     *
+     * @param replica the replica
+     */
+    private void touch(Replica replica) {
+        evictionOrder.remove(replica);
+        replica.lastAccess = ++clock;
+        replica.frequency++;
+        evictionOrder.add(replica);
+    }
+
+    /**
+     * Gets the order in which a policy evicts replicas. The least recently
+     * used replica goes first among equals, so the order is total.
+     *
+     * @param policy the eviction policy
+     * @return the comparator
+     */
+    private static Comparator<Replica> getComparator(final EvictionPolicy policy) {
+        return new Comparator<Replica>() {
+            @Override
+            public int compare(Replica a, Replica b) {
+                switch (policy) {
+                    case LFU:
+                        if (a.frequency != b.frequency) {
+                            return a.frequency < b.frequency ? -1 : 1;
+                        }
+                        break;
+                    case SIZE:
+                        if (a.size != b.size) {
+                            return a.size > b.size ? -1 : 1;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                return a.lastAccess < b.lastAccess ? -1 : (a.lastAccess == b.lastAccess ? 0 : 1);
+            }
+        };
+    }
+
+    /**
+     * Gets the size of the cached replicas
+     *
+     * @return the cached size
+     */
+    public double getCachedSize() {
+        return cachedSize;
+    }
+
+    /**
+     * Gets the number of cached replicas
+     *
+     * @return the number of cached replicas
+     */
+    public int getCachedFileNum() {
+        return replicas.size();
+    }
+
+    /**
+     * Gets the number of accesses that found a cached replica
+     *
+     * @return the number of hits
+     */
+    public long getHitNum() {
+        return hitNum;
+    }
+
+    /**
+     * Gets the number of accesses that had to stage the file in
+     *
+     * @return the number of misses
+     */
+    public long getMissNum() {
+        return missNum;
+    }
+
+    /**
+     * Gets the ratio of the accesses that found a cached replica
+     *
+     * @return the hit ratio, 0 if there is no access
+     */
+    public double getHitRatio() {
+        long accessNum = hitNum + missNum;
+        return accessNum == 0 ? 0.0 : (double) hitNum / accessNum;
+    }
+
+    /**
+     * Gets the ratio of the accesses that had to stage the file in
+     *
+     * @return the miss ratio, 0 if there is no access
+     */
+    public double getMissRatio() {
+        long accessNum = hitNum + missNum;
+        return accessNum == 0 ? 0.0 : (double) missNum / accessNum;
+    }
+
+    /**
+     * Gets the number of evicted replicas
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionNum() {
+        return evictionNum;
+    }
+
+    /**
+     * Gets the size of the files staged in again after they were evicted
+     *
+     * @return the re-transferred size
+     */
+    public double getReTransferredSize() {
+        return reTransferredSize;
+    }
+
+    /**
+     * A cached replica
+     */
+    private static class Replica {
+
+        private final String name;
+        private final double size;
+        private long lastAccess;
+        private long frequency;
+
+        Replica(String name, double size) {
+            this.name = name;
+            this.size = size;
+        }
+    }
 }
@@ -28,9 +28,9 @@ import org.workflowsim.clustering.HorizontalClustering;
 import org.workflowsim.clustering.VerticalClustering;
 import org.workflowsim.clustering.balancing.BalancedClustering;
 import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.FileSymbolTable;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.ClassType;
-import org.workflowsim.utils.Parameters.FileType;
 import org.workflowsim.utils.ReplicaCatalog;
 
 /**
@@ -187,6 +187,11 @@ public final class ClusteringEngine extends SimEntity {
                 this.engine = new BasicClustering();
                 break;
         }
+        /**
+         * The jobs of a workflow arriving later are numbered after the jobs
+         * the WorkflowEngine already has
+         */
+        engine.setFirstJobId(getWorkflowEngine().getNextJobId());
         engine.setTaskList(getTaskList());
         engine.run();
         setJobList(engine.getJobList());
@@ -194,37 +199,6 @@ public final class ClusteringEngine extends SimEntity {
 
     }
 
-    /**
-     * Checks whether a file is an input file alone (not a output file)
-     *
-     * @param list, the list of all files
-     * @param file, the file to be checked
-     * @return
-     */
-    private boolean isRealInputFile(List<org.cloudbus.cloudsim.File> list, org.cloudbus.cloudsim.File file) {
-        /**
-         * if the type is input file)
-         */
-        if (file.getType() == FileType.INPUT.value) {
-
-            for (org.cloudbus.cloudsim.File another : list) {
-                /**
-                 * if there is another file that has the same name and it is
-                 * output file
-                 */
-                if (another.getName().equals(file.getName())
-                        /**
-                         * It is output file
-                         */
-                        && another.getType() == FileType.OUTPUT.value) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return false;
-    }
-
     /**
      * Adds data stage-in jobs to the job list
      *
@@ -243,7 +217,7 @@ public final class ClusteringEngine extends SimEntity {
          * of this job to be getJobList().size() is so that the job id is the
          * next available id
          */
-        Job job = new Job(getJobList().size(), 110);
+        Job job = new Job(getWorkflowEngine().getNextJobId() + getJobList().size(), 110);
 
         /**
          * This is a very simple implementation of stage-in job, in which we Add
@@ -251,15 +225,12 @@ public final class ClusteringEngine extends SimEntity {
          * WorkflowSim will transfers them when this job is executed
          */
         List fileList = new ArrayList<org.cloudbus.cloudsim.File>();
-        for (Iterator it = list.iterator(); it.hasNext();) {
-            org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) it.next();
-            /**
-             * To avoid duplicate files
-             */
-            if (isRealInputFile(list, file)) {
-                ReplicaCatalog.addStorageList(file.getName(), Parameters.SOURCE);
-                fileList.add(file);
-            }
+        /**
+         * The input files alone (not output files) are staged in
+         */
+        for (org.cloudbus.cloudsim.File file : FileSymbolTable.getRealInputFiles(list, null)) {
+            ReplicaCatalog.addStorageList(file.getName(), Parameters.SOURCE);
+            fileList.add(file);
         }
         job.setFileList(fileList);
         job.setClassType(ClassType.STAGE_IN.value);
@@ -269,6 +240,9 @@ public final class ClusteringEngine extends SimEntity {
          */
         job.setDepth(0);
         job.setPriority(0);
+        if (!getJobList().isEmpty()) {
+            job.setWorkflowId(getJobList().get(0).getWorkflowId());
+        }
 
         /**
          * A very simple strategy if you have multiple schedulers and
@@ -326,6 +300,7 @@ public final class ClusteringEngine extends SimEntity {
                  * the workflow execution
                  */
                 processDatastaging();
+                getWorkflowEngine().reserveJobIds(getJobList().size());
                 sendNow(this.workflowEngineId, WorkflowSimTags.JOB_SUBMIT, getJobList());
                 break;
             case CloudSimTags.END_OF_SIMULATION:
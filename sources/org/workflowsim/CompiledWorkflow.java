@@ -0,0 +1,296 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.ParameterException;
+import org.workflowsim.utils.FileSymbolTable;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * CompiledWorkflow reads a workflow compiled by WorkflowCompiler. The file is
+ * memory mapped, so loading it only reads the header; the strings are decoded
+ * when they are first used. The tasks and their files are created each time the
+ * task list is asked for, so that the tasks of two parses never share any
+ * scheduling state.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @see WorkflowCompiler
+ */
+public class CompiledWorkflow {
+
+    /**
+     * The size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 7 * 4;
+    /**
+     * The mapped file
+     */
+    private final ByteBuffer buffer;
+    /**
+     * The number of tasks
+     */
+    private final int taskNum;
+    /**
+     * The number of file references
+     */
+    private final int fileNum;
+    /**
+     * The decoded strings, null until used
+     */
+    private final String[] strings;
+    /**
+     * The offsets of the sections
+     */
+    private final int stringOffsets, stringData, lengths, types, depths,
+            parentOffsets, parents, childOffsets, children,
+            fileOffsets, fileNames, fileSizes, fileTypes;
+
+    /**
+     * Maps a compiled workflow
+     *
+     * @param path the path to the compiled workflow
+     * @throws IOException if the file cannot be read or is not a compiled
+     * workflow
+     */
+    public CompiledWorkflow(String path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.buffer = mapped;
+        } finally {
+            file.close();
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != WorkflowCompiler.MAGIC) {
+            throw new IOException(path + " is not a compiled workflow");
+        }
+        if (buffer.getInt(4) != WorkflowCompiler.VERSION) {
+            throw new IOException(path + " has version " + buffer.getInt(4)
+                    + " instead of " + WorkflowCompiler.VERSION);
+        }
+        this.taskNum = buffer.getInt(8);
+        int stringNum = buffer.getInt(12);
+        int edgeNum = buffer.getInt(16);
+        this.fileNum = buffer.getInt(20);
+        int stringBytes = buffer.getInt(24);
+
+        this.strings = new String[stringNum];
+        this.stringOffsets = HEADER_SIZE;
+        this.stringData = stringOffsets + 4 * (stringNum + 1);
+        this.lengths = stringData + stringBytes;
+        this.types = lengths + 8 * taskNum;
+        this.depths = types + 4 * taskNum;
+        this.parentOffsets = depths + 4 * taskNum;
+        this.parents = parentOffsets + 4 * (taskNum + 1);
+        this.childOffsets = parents + 4 * edgeNum;
+        this.children = childOffsets + 4 * (taskNum + 1);
+        this.fileOffsets = children + 4 * edgeNum;
+        this.fileNames = fileOffsets + 4 * (taskNum + 1);
+        this.fileSizes = fileNames + 4 * fileNum;
+        this.fileTypes = fileSizes + 4 * fileNum;
+        if (buffer.capacity() != fileTypes + fileNum) {
+            throw new IOException(path + " is truncated or corrupted");
+        }
+    }
+
+    /**
+     * Checks whether a file is a compiled workflow, by its first bytes
+     *
+     * @param path the path to the file
+     * @return true if the file starts with WorkflowCompiler.MAGIC
+     */
+    public static boolean isCompiled(String path) {
+        if (path == null || !new java.io.File(path).isFile()) {
+            return false;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new FileInputStream(path));
+            try {
+                return in.readInt() == WorkflowCompiler.MAGIC;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Gets the number of file references
+     *
+     * @return the number of file references
+     */
+    public int getFileNum() {
+        return fileNum;
+    }
+
+    /**
+     * Gets the length of a task, without the runtime scale
+     *
+     * @param index the index of the task, i.e. its id minus 1
+     * @return the length
+     */
+    public long getLength(int index) {
+        return buffer.getLong(lengths + 8 * index);
+    }
+
+    /**
+     * Gets the type of a task
+     *
+     * @param index the index of the task
+     * @return the type
+     */
+    public String getType(int index) {
+        int id = buffer.getInt(types + 4 * index);
+        return id < 0 ? null : getString(id);
+    }
+
+    /**
+     * Gets the depth of a task
+     *
+     * @param index the index of the task
+     * @return the depth
+     */
+    public int getDepth(int index) {
+        return buffer.getInt(depths + 4 * index);
+    }
+
+    /**
+     * Gets a string of the string table, decoding it the first time
+     *
+     * @param id the index of the string
+     * @return the string
+     */
+    private String getString(int id) {
+        String string = strings[id];
+        if (string == null) {
+            int start = buffer.getInt(stringOffsets + 4 * id);
+            int end = buffer.getInt(stringOffsets + 4 * (id + 1));
+            byte[] bytes = new byte[end - start];
+            ByteBuffer view = buffer.duplicate();
+            view.position(stringData + start);
+            view.get(bytes);
+            string = new String(bytes, WorkflowCompiler.UTF8);
+            strings[id] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Creates the tasks of a user. Input files are shared
+     * through the ReplicaCatalog and the runtime scale is applied, as
+     * WorkflowParser does.
+     *
+     * @param userId the user id of the tasks
+     * @return the tasks
+     * @throws ParameterException if a file cannot be created
+     */
+    public List<Task> getTaskList(int userId) throws ParameterException {
+        return getTaskList(userId, "");
+    }
+
+    /**
+     * Creates the tasks of a user, with a prefix added to the file names
+     *
+     * @param userId the user id of the tasks
+     * @param fileNamePrefix the prefix of the file names
+     * @return the tasks
+     * @throws ParameterException if a file cannot be created
+     */
+    public List<Task> getTaskList(int userId, String fileNamePrefix) throws ParameterException {
+        List<Task> list = new ArrayList<Task>(taskNum);
+        for (int i = 0; i < taskNum; i++) {
+            long length = getLength(i);
+            //multiple the scale, by default it is 1.0
+            length *= Parameters.getRuntimeScale();
+            Task task = new Task(i + 1, length);
+            task.setType(getType(i));
+            task.setUserId(userId);
+            task.setDepth(getDepth(i));
+
+            int start = buffer.getInt(fileOffsets + 4 * i);
+            int end = buffer.getInt(fileOffsets + 4 * (i + 1));
+            List<File> mFileList = new ArrayList<File>(end - start);
+            for (int j = start; j < end; j++) {
+                mFileList.add(getFile(j, fileNamePrefix));
+            }
+            for (File file : mFileList) {
+                task.addRequiredFile(file.getName());
+            }
+            task.setFileList(mFileList);
+            list.add(task);
+        }
+
+        for (int i = 0; i < taskNum; i++) {
+            Task task = list.get(i);
+            int end = buffer.getInt(parentOffsets + 4 * (i + 1));
+            for (int j = buffer.getInt(parentOffsets + 4 * i); j < end; j++) {
+                task.addParent(list.get(buffer.getInt(parents + 4 * j)));
+            }
+            end = buffer.getInt(childOffsets + 4 * (i + 1));
+            for (int j = buffer.getInt(childOffsets + 4 * i); j < end; j++) {
+                task.addChild(list.get(buffer.getInt(children + 4 * j)));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Creates the file of a file reference
+     *
+     * @param ref the index of the file reference
+     * @param fileNamePrefix the prefix of the file name
+     * @return the file
+     * @throws ParameterException if the file cannot be created
+     */
+    private File getFile(int ref, String fileNamePrefix) throws ParameterException {
+        String name = fileNamePrefix + getString(buffer.getInt(fileNames + 4 * ref));
+        int size = buffer.getInt(fileSizes + 4 * ref);
+        int type = buffer.get(fileTypes + ref);
+        File file;
+        if (type == Parameters.FileType.OUTPUT.value) {
+            file = new File(name, size);
+        } else if (ReplicaCatalog.containsFile(name)) {
+            file = ReplicaCatalog.getFile(name);
+        } else {
+            file = new File(name, size);
+            ReplicaCatalog.setFile(name, file);
+        }
+        file.setType(type);
+        FileSymbolTable.getId(name);
+        return file;
+    }
+}
@@ -15,8 +15,11 @@
  */
 package org.workflowsim;
 
+import java.util.Collection;
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.scheduling.IdleVmIndex;
+import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.ReplicaCatalog;
 import org.workflowsim.utils.ReplicaCatalog.FileSystem;
 
@@ -39,6 +42,12 @@ public class CondorVM extends Vm {
      * or VM_STATUS_READY (not used in workflowsim) or VM_STATUS_BUSY
      */
     private int state;
+    /*
+     * The index of the idle vms this vm is attached to, updated when the
+     * state changes, and the ordinal of this vm in it
+     */
+    private IdleVmIndex idleVmIndex;
+    private int idleVmOrdinal;
 
     /**
      * the cost of using memory in this resource
@@ -99,10 +108,16 @@ public class CondorVM extends Vm {
         setState(WorkflowSimTags.VM_STATUS_IDLE);
         /*
          * If the file.system is LOCAL, we should add a clusterStorage to vm. 
+         * With an eviction policy it caches the replicas of the vm.
          */
         if (ReplicaCatalog.getFileSystem() == FileSystem.LOCAL) {
             try {
-                storage = new ClusterStorage(Integer.toString(id), 1e6);
+                if (Parameters.getEvictionPolicy() == Parameters.EvictionPolicy.NONE) {
+                    storage = new ClusterStorage(Integer.toString(id), 1e6);
+                } else {
+                    storage = new ClusterStorage(Integer.toString(id),
+                            Parameters.getVmStorageCapacity(), Parameters.getEvictionPolicy());
+                }
             } catch (Exception e) {
             }
         }
@@ -199,6 +214,9 @@ public class CondorVM extends Vm {
      */
     public final void setState(int tag) {
         this.state = tag;
+        if (this.idleVmIndex != null) {
+            this.idleVmIndex.stateChanged(this.idleVmOrdinal, tag);
+        }
     }
 
     /**
@@ -212,6 +230,27 @@ public class CondorVM extends Vm {
         return this.state;
     }
 
+    /**
+     * Attaches this vm to an index of the idle vms, which setState() keeps
+     * up to date
+     *
+     * @param index the index
+     * @param ordinal the ordinal of this vm in the index
+     */
+    public void setIdleVmIndex(IdleVmIndex index, int ordinal) {
+        this.idleVmIndex = index;
+        this.idleVmOrdinal = ordinal;
+    }
+
+    /**
+     * Gets the index of the idle vms this vm is attached to
+     *
+     * @return the index, null if none
+     */
+    public IdleVmIndex getIdleVmIndex() {
+        return this.idleVmIndex;
+    }
+
     /**
      * Adds a file to the local file system
      *
@@ -253,4 +292,50 @@ public class CondorVM extends Vm {
         return false;
 
     }
+
+    /**
+     * Tells whether the local storage caches the replicas of this vm
+     *
+     * @return whether the local storage has an eviction policy
+     * @pre $none
+     * @post $none
+     */
+    public boolean isCaching() {
+        return this.storage != null && this.storage.isCaching();
+    }
+
+    /**
+     * Accesses a file in the local cache, see ClusterStorage.access()
+     *
+     * @param file the file a job reads
+     * @return whether a replica is cached
+     * @pre isCaching()
+     * @post $none
+     */
+    public boolean accessLocalFile(org.cloudbus.cloudsim.File file) {
+        return this.storage.access(file);
+    }
+
+    /**
+     * Caches a replica of a file in the local cache and registers it in the
+     * ReplicaCatalog, see ClusterStorage.cache()
+     *
+     * @param file the file
+     * @param pinned the names of the files that must not be evicted
+     * @return whether the replica is cached
+     * @pre isCaching()
+     * @post $none
+     */
+    public boolean cacheLocalFile(org.cloudbus.cloudsim.File file, Collection<String> pinned) {
+        return this.storage.cache(file, pinned);
+    }
+
+    /**
+     * Gets the local storage, with the statistics of its cache
+     *
+     * @return the local storage, null if the file.system is not LOCAL
+     */
+    public ClusterStorage getStorage() {
+        return this.storage;
+    }
 }
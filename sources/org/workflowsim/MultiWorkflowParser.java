@@ -0,0 +1,296 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.workflowsim.utils.FileSymbolTable;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * MultiWorkflowParser parses several DAX files (or workflows compiled by
+ * WorkflowCompiler) concurrently on a fork-join pool. The tasks of each
+ * workflow are numbered in a range of their own, in the order of the paths:
+ * the first workflow has the ids 1 to n1, the second n1 + 1 to n1 + n2, and so
+ * on, so the task lists can be submitted together.
+ * <p>
+ * Each DAX is parsed in a simulation of its own, with the runtime scale, the
+ * parser mode and the runtime and datasize files of the calling thread. The input files are then registered
+ * in the ReplicaCatalog of the calling thread in the order of the paths, so
+ * workflows that use the same file share it as if they had been parsed one
+ * after another.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class MultiWorkflowParser {
+
+    /**
+     * The paths to the DAX files
+     */
+    private final List<String> daxPaths;
+    /**
+     * User id. used to create the tasks.
+     */
+    private final int userId;
+    /**
+     * The pool that parses the workflows
+     */
+    private final ForkJoinPool pool;
+    /**
+     * The tasks of each workflow
+     */
+    private List<List<Task>> taskLists;
+
+    /**
+     * Initialize a MultiWorkflowParser that parses on the common pool
+     *
+     * @param userId the user id
+     * @param daxPaths the paths to the DAX files
+     */
+    public MultiWorkflowParser(int userId, List<String> daxPaths) {
+        this(userId, daxPaths, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize a MultiWorkflowParser
+     *
+     * @param userId the user id
+     * @param daxPaths the paths to the DAX files
+     * @param pool the pool that parses the workflows
+     */
+    public MultiWorkflowParser(int userId, List<String> daxPaths, ForkJoinPool pool) {
+        this.userId = userId;
+        this.daxPaths = new ArrayList<String>(daxPaths);
+        this.pool = pool;
+    }
+
+    /**
+     * Parses the workflows and waits for all of them
+     */
+    @SuppressWarnings("unchecked")
+    public void parse() {
+        int workflowNum = daxPaths.size();
+        List<List<Task>> lists = new ArrayList<List<Task>>(workflowNum);
+        for (int i = 0; i < workflowNum; i++) {
+            lists.add(null);
+        }
+        pool.invoke(new ParseAction(lists, 0, workflowNum, Parameters.getRuntimeScale(),
+                Parameters.getParserMode(), Parameters.getRuntimePath(),
+                Parameters.getDatasizePath()));
+
+        int[] firstIds = new int[workflowNum];
+        int firstId = 1;
+        for (int i = 0; i < workflowNum; i++) {
+            firstIds[i] = firstId;
+            firstId += lists.get(i).size();
+        }
+        pool.invoke(new RenumberAction(lists, firstIds, 0, workflowNum));
+
+        /**
+         * Register the files one workflow after another, as parsing them
+         * sequentially would. The file ids assigned by the parsers are those
+         * of their own simulations, so they are assigned again here.
+         */
+        for (List<Task> list : lists) {
+            for (Task task : list) {
+                List<File> files = (List<File>) task.getFileList();
+                for (int i = 0; i < files.size(); i++) {
+                    File file = files.get(i);
+                    FileSymbolTable.getId(file);
+                    if (file.getType() == Parameters.FileType.OUTPUT.value) {
+                        continue;
+                    }
+                    if (ReplicaCatalog.containsFile(file.getName())) {
+                        files.set(i, ReplicaCatalog.getFile(file.getName()));
+                    } else {
+                        ReplicaCatalog.setFile(file.getName(), file);
+                    }
+                }
+                task.invalidateFileViews();
+            }
+        }
+        this.taskLists = lists;
+    }
+
+    /**
+     * Gets the tasks of each workflow, in the order of the paths
+     *
+     * @return the task lists, null before parse()
+     */
+    public List<List<Task>> getTaskLists() {
+        return taskLists;
+    }
+
+    /**
+     * Gets the tasks of all the workflows in a single list
+     *
+     * @return the tasks
+     */
+    public List<Task> getTaskList() {
+        List<Task> list = new ArrayList<Task>();
+        for (List<Task> workflow : taskLists) {
+            list.addAll(workflow);
+        }
+        return list;
+    }
+
+    /**
+     * Parses a DAX in a simulation of its own
+     *
+     * @param daxPath the path to the DAX
+     * @param scale the runtime scale
+     * @param mode the parser mode
+     * @param runtimePath the runtime file, may be null
+     * @param datasizePath the datasize file, may be null
+     * @return the tasks, numbered from 1
+     */
+    private List<Task> parse(String daxPath, double scale, Parameters.ParserMode mode,
+            String runtimePath, String datasizePath) {
+        SimulationContext previous = SimulationContext.current();
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            CloudSim.init(1, Calendar.getInstance(), false);
+            ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+            Parameters.setRuntimeScale(scale);
+            Parameters.setParserMode(mode);
+            WorkflowParser parser = new WorkflowParser(userId, datasizePath, runtimePath, daxPath);
+            parser.parse();
+            return parser.getTaskList();
+        } finally {
+            SimulationContext.setCurrent(previous);
+        }
+    }
+
+    /**
+     * Copies the tasks of a workflow with new ids
+     *
+     * @param list the tasks, numbered from 1
+     * @param firstId the id of the first task
+     * @return the copies
+     */
+    private static List<Task> renumber(List<Task> list, int firstId) {
+        List<Task> copies = new ArrayList<Task>(list.size());
+        for (Task task : list) {
+            Task copy = new Task(task.getCloudletId() - 1 + firstId, task.getCloudletLength());
+            copy.setType(task.getType());
+            copy.setUserId(task.getUserId());
+            copy.setDepth(task.getDepth());
+            if (task.getRequiredFiles() != null) {
+                for (String name : task.getRequiredFiles()) {
+                    copy.addRequiredFile(name);
+                }
+            }
+            copy.setFileList(task.getFileList());
+            copies.add(copy);
+        }
+        for (Task task : list) {
+            Task copy = copies.get(task.getCloudletId() - 1);
+            for (Task parent : task.getParentList()) {
+                copy.addParent(copies.get(parent.getCloudletId() - 1));
+            }
+            for (Task child : task.getChildList()) {
+                copy.addChild(copies.get(child.getCloudletId() - 1));
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Parses a range of the workflows, splitting it until it has a single
+     * workflow
+     */
+    private class ParseAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final List<List<Task>> lists;
+        private final int start;
+        private final int end;
+        private final double scale;
+        private final Parameters.ParserMode mode;
+        private final String runtimePath;
+        private final String datasizePath;
+
+        ParseAction(List<List<Task>> lists, int start, int end, double scale,
+                Parameters.ParserMode mode, String runtimePath, String datasizePath) {
+            this.lists = lists;
+            this.start = start;
+            this.end = end;
+            this.scale = scale;
+            this.mode = mode;
+            this.runtimePath = runtimePath;
+            this.datasizePath = datasizePath;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                List<Task> list = parse(daxPaths.get(start), scale, mode,
+                        runtimePath, datasizePath);
+                synchronized (lists) {
+                    lists.set(start, list);
+                }
+            } else if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ParseAction(lists, start, middle, scale, mode,
+                        runtimePath, datasizePath),
+                        new ParseAction(lists, middle, end, scale, mode,
+                        runtimePath, datasizePath));
+            }
+        }
+    }
+
+    /**
+     * Numbers the tasks of a range of the workflows from their first id
+     */
+    private static class RenumberAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final List<List<Task>> lists;
+        private final int[] firstIds;
+        private final int start;
+        private final int end;
+
+        RenumberAction(List<List<Task>> lists, int[] firstIds, int start, int end) {
+            this.lists = lists;
+            this.firstIds = firstIds;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                if (firstIds[start] != 1) {
+                    List<Task> list = renumber(lists.get(start), firstIds[start]);
+                    synchronized (lists) {
+                        lists.set(start, list);
+                    }
+                }
+            } else if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RenumberAction(lists, firstIds, start, middle),
+                        new RenumberAction(lists, firstIds, middle, end));
+            }
+        }
+    }
+}
@@ -16,11 +16,15 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.workflowsim.utils.FileSymbolTable;
+import org.workflowsim.utils.Parameters;
 
 /**
  * Task is an extention to Cloudlet in CloudSim. It supports the implementation
@@ -67,11 +71,43 @@ public class Task extends Cloudlet {
      */
     private String type;
 
+    /*
+     * The id of the workflow this task belongs to. It is 0 unless workflows
+     * arrive over time (see WorkflowArrivalGenerator). 
+     */
+    private int workflowId;
+
     /**
      * The finish time of a task (Because cloudlet does not allow WorkflowSim to 
      * update finish_time)
      */
     private double task_finish_time;
+
+    /**
+     * The file list the file views below have been computed from, and its
+     * size then. The views are computed again when the list is replaced or
+     * grows; a file replaced within the list needs invalidateFileViews().
+     */
+    private List<org.cloudbus.cloudsim.File> fileViewList;
+    private int fileViewSize;
+    /**
+     * The input files, the output files, and the input files that are not
+     * also output files of this task (the files to stage in), in the order of
+     * the file list
+     */
+    private List<org.cloudbus.cloudsim.File> inputFiles;
+    private List<org.cloudbus.cloudsim.File> outputFiles;
+    private List<org.cloudbus.cloudsim.File> realInputFiles;
+    /**
+     * The sorted ids of the input files, without duplicates, and the size of
+     * the first input file of each id
+     */
+    private int[] inputFileIds;
+    private int[] inputFileSizes;
+    /**
+     * The sorted ids of the output files
+     */
+    private int[] outputFileIds;
     
     /**
      * Allocates a new Task object. The task length should be greater than or
@@ -125,6 +161,27 @@ public class Task extends Cloudlet {
         return type;
     }
 
+    /**
+     * Sets the id of the workflow of the task
+     *
+     * @param workflowId the workflow id
+     * @return $none
+     */
+    public void setWorkflowId(int workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    /**
+     * Gets the id of the workflow of the task
+     *
+     * @return the workflow id
+     * @pre $none
+     * @post $none
+     */
+    public int getWorkflowId() {
+        return this.workflowId;
+    }
+
     /**
      * Sets the priority of the task
      *
@@ -279,6 +336,162 @@ public class Task extends Cloudlet {
      */
     public void setFileList(List<org.cloudbus.cloudsim.File> list) {
         this.fileList = list;
+        invalidateFileViews();
+    }
+
+    /**
+     * Discards the file views, so that they are computed again when next
+     * used. Code that replaces a file within the file list, rather than
+     * adding one, has to call it.
+     */
+    public void invalidateFileViews() {
+        this.fileViewList = null;
+    }
+
+    /**
+     * Computes the file views of this task: the input files, the output files
+     * and the real input files, and the sorted ids of the input and output
+     * files. BasicClustering calls it once a job has all its files; the views
+     * are otherwise computed when first used, and again if the file list has
+     * been replaced, has grown or has been invalidated since.
+     */
+    public void updateFileViews() {
+        if (fileViewList == fileList && fileViewSize == fileList.size()) {
+            return;
+        }
+        List<org.cloudbus.cloudsim.File> inputs = new ArrayList<org.cloudbus.cloudsim.File>();
+        List<org.cloudbus.cloudsim.File> outputs = new ArrayList<org.cloudbus.cloudsim.File>();
+        for (org.cloudbus.cloudsim.File file : fileList) {
+            if (file.getType() == Parameters.FileType.INPUT.value) {
+                inputs.add(file);
+            } else if (file.getType() == Parameters.FileType.OUTPUT.value) {
+                outputs.add(file);
+            }
+        }
+        /**
+         * Sort the input files by id then by position, and keep the first file
+         * of each id.
+         */
+        long[] keys = new long[inputs.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) FileSymbolTable.getId(inputs.get(i)) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] ids = new int[keys.length];
+        int[] sizes = new int[keys.length];
+        int size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int id = (int) (keys[i] >>> 32);
+            if (size == 0 || ids[size - 1] != id) {
+                ids[size] = id;
+                sizes[size] = inputs.get((int) keys[i]).getSize();
+                size++;
+            }
+        }
+        inputFileIds = Arrays.copyOf(ids, size);
+        inputFileSizes = Arrays.copyOf(sizes, size);
+        outputFileIds = FileSymbolTable.getIds(outputs, Parameters.FileType.OUTPUT.value);
+
+        List<org.cloudbus.cloudsim.File> realInputs = new ArrayList<org.cloudbus.cloudsim.File>();
+        for (org.cloudbus.cloudsim.File file : inputs) {
+            if (FileSymbolTable.isRealInputFile(outputFileIds, file)) {
+                realInputs.add(file);
+            }
+        }
+        inputFiles = Collections.unmodifiableList(inputs);
+        outputFiles = Collections.unmodifiableList(outputs);
+        realInputFiles = Collections.unmodifiableList(realInputs);
+        fileViewList = fileList;
+        fileViewSize = fileList.size();
+    }
+
+    /**
+     * Gets the input files
+     *
+     * @return the input files, read only
+     */
+    public List<org.cloudbus.cloudsim.File> getInputFiles() {
+        updateFileViews();
+        return inputFiles;
+    }
+
+    /**
+     * Gets the output files
+     *
+     * @return the output files, read only
+     */
+    public List<org.cloudbus.cloudsim.File> getOutputFiles() {
+        updateFileViews();
+        return outputFiles;
+    }
+
+    /**
+     * Gets the input files that are not also output files of this task, i.e.
+     * the files that have to be staged in. If a input file has an output file
+     * it does not need stage-in For workflows, we have a rule that a file is
+     * written once and read many times, thus if a file is an output file it
+     * means it is generated within this job and then used by another task
+     * within the same job
+     *
+     * @return the real input files, read only
+     */
+    public List<org.cloudbus.cloudsim.File> getRealInputFiles() {
+        updateFileViews();
+        return realInputFiles;
+    }
+
+    /**
+     * Gets the sorted ids of the input files, without duplicates
+     *
+     * @return the ids
+     */
+    public int[] getInputFileIds() {
+        updateFileViews();
+        return inputFileIds;
+    }
+
+    /**
+     * Gets the sorted ids of the output files
+     *
+     * @return the ids
+     */
+    public int[] getOutputFileIds() {
+        updateFileViews();
+        return outputFileIds;
+    }
+
+    /**
+     * Checks whether a file of this task is an input file that is not also
+     * one of its output files, i.e. one that has to be staged in
+     *
+     * @param file the file
+     * @return whether the file has to be staged in
+     */
+    public boolean isRealInputFile(org.cloudbus.cloudsim.File file) {
+        updateFileViews();
+        return FileSymbolTable.isRealInputFile(outputFileIds, file);
+    }
+
+    /**
+     * Gets the total size of the output files of a parent that this task reads
+     *
+     * @param parent the parent task
+     * @return the size
+     */
+    public double getInputSizeFrom(Task parent) {
+        updateFileViews();
+        int[] parentIds = parent.getOutputFileIds();
+        double size = 0.0;
+        int i = 0;
+        for (int id : parentIds) {
+            while (i < inputFileIds.length && inputFileIds[i] < id) {
+                i++;
+            }
+            if (i < inputFileIds.length && inputFileIds[i] == id) {
+                size += inputFileSizes[i];
+            }
+        }
+        return size;
     }
 
     /**
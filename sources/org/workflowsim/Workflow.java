@@ -0,0 +1,367 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * A Workflow is one workflow submitted by a WorkflowArrivalGenerator. It keeps
+ * the DAX it is parsed from, its arrival time, and what the WorkflowEngine has
+ * observed of it, from which the queueing delay, the makespan and the slowdown
+ * of the workflow are derived.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class Workflow {
+
+    /**
+     * The workflow id, set on its tasks and jobs. Ids start from 1
+     */
+    private final int id;
+    /**
+     * The path to the DAX of the workflow
+     */
+    private final String daxPath;
+    /**
+     * The time the workflow arrives
+     */
+    private final double arrivalTime;
+    /**
+     * The weight of the workflow in a weighted fair share
+     */
+    private double weight;
+    /**
+     * The deadline of the workflow, relative to its arrival, negative to use
+     * the deadline of the configuration
+     */
+    private double deadline;
+    /**
+     * The number of tasks, once parsed
+     */
+    private int taskNum;
+    /**
+     * The runtime of the critical path of the workflow on the fastest vm,
+     * without data transfers and overheads
+     */
+    private double criticalPathTime;
+    /**
+     * The number of jobs that have not completed yet
+     */
+    private int remainingJobNum;
+    /**
+     * The number of jobs of the workflow, including the retried ones
+     */
+    private int jobNum;
+    /**
+     * The time the first job of the workflow starts, -1 before
+     */
+    private double startTime;
+    /**
+     * The time the last job of the workflow completes, -1 before
+     */
+    private double finishTime;
+
+    /**
+     * Creates a new Workflow
+     *
+     * @param id the workflow id
+     * @param daxPath the path to the DAX
+     * @param arrivalTime the arrival time
+     */
+    public Workflow(int id, String daxPath, double arrivalTime) {
+        this.id = id;
+        this.daxPath = daxPath;
+        this.arrivalTime = arrivalTime;
+        this.weight = 1.0;
+        this.deadline = -1.0;
+        this.startTime = -1.0;
+        this.finishTime = -1.0;
+    }
+
+    /**
+     * Gets the workflow id
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the path to the DAX
+     *
+     * @return the DAX path
+     */
+    public String getDaxPath() {
+        return daxPath;
+    }
+
+    /**
+     * Gets the arrival time
+     *
+     * @return the arrival time
+     */
+    public double getArrivalTime() {
+        return arrivalTime;
+    }
+
+    /**
+     * Gets the weight of the workflow in a weighted fair share
+     *
+     * @return the weight, 1 by default
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Sets the weight of the workflow in a weighted fair share
+     *
+     * @param weight the weight
+     */
+    public void setWeight(double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("The weight of workflow #" + id + " must be positive");
+        }
+        this.weight = weight;
+    }
+
+    /**
+     * Sets the deadline of the workflow, relative to its arrival
+     *
+     * @param deadline the deadline
+     */
+    public void setDeadline(double deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Gets the absolute deadline of the workflow: its arrival time plus its
+     * deadline, or else plus the deadline of the configuration
+     * (Parameters.getDeadline())
+     *
+     * @return the absolute deadline
+     */
+    public double getAbsoluteDeadline() {
+        if (deadline >= 0) {
+            return arrivalTime + deadline;
+        }
+        return arrivalTime + Parameters.getDeadline();
+    }
+
+    /**
+     * Checks whether the workflow has finished after its absolute deadline
+     *
+     * @return whether the deadline is missed
+     */
+    public boolean isDeadlineMissed() {
+        return isFinished() && finishTime > getAbsoluteDeadline();
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the tasks of the workflow once parsed: tags them with the workflow
+     * id and computes the critical path
+     *
+     * @param list the tasks
+     * @param mips the mips of the fastest vm
+     */
+    public void setTaskList(List<Task> list, double mips) {
+        this.taskNum = list.size();
+        for (Task task : list) {
+            task.setWorkflowId(id);
+        }
+        this.criticalPathTime = mips > 0 ? getCriticalPathLength(list) / mips : 0.0;
+    }
+
+    /**
+     * Gets the length of the longest path of the tasks, visiting them in
+     * topological order
+     *
+     * @param list the tasks
+     * @return the length, in MI
+     */
+    private static double getCriticalPathLength(List<Task> list) {
+        Map<Task, Double> lengths = new HashMap<Task, Double>();
+        Map<Task, Integer> remaining = new HashMap<Task, Integer>();
+        List<Task> queue = new ArrayList<Task>();
+        for (Task task : list) {
+            remaining.put(task, task.getParentList().size());
+            if (task.getParentList().isEmpty()) {
+                queue.add(task);
+                lengths.put(task, (double) task.getCloudletLength());
+            }
+        }
+        double max = 0.0;
+        for (int i = 0; i < queue.size(); i++) {
+            Task task = queue.get(i);
+            double length = lengths.get(task);
+            if (length > max) {
+                max = length;
+            }
+            for (Task child : task.getChildList()) {
+                double childLength = length + child.getCloudletLength();
+                Double current = lengths.get(child);
+                if (current == null || childLength > current) {
+                    lengths.put(child, childLength);
+                }
+                int left = remaining.get(child) - 1;
+                remaining.put(child, left);
+                if (left == 0) {
+                    queue.add(child);
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets the runtime of the critical path on the fastest vm
+     *
+     * @return the critical path time
+     */
+    public double getCriticalPathTime() {
+        return criticalPathTime;
+    }
+
+    /**
+     * Counts the jobs of the workflow received by the WorkflowEngine
+     *
+     * @param num the number of jobs
+     */
+    protected void addJobs(int num) {
+        this.jobNum += num;
+        this.remainingJobNum += num;
+    }
+
+    /**
+     * Gets the number of jobs of the workflow, including the retried ones
+     *
+     * @return the number of jobs
+     */
+    public int getJobNum() {
+        return jobNum;
+    }
+
+    /**
+     * Records a job of the workflow that has returned
+     *
+     * @param job the job
+     * @param retryNum the number of jobs created to retry it if it failed
+     * @param time the current time
+     */
+    protected void jobReturned(Job job, int retryNum, double time) {
+        double start = job.getExecStartTime();
+        if (startTime < 0 || start < startTime) {
+            startTime = start;
+        }
+        remainingJobNum--;
+        addJobs(retryNum);
+        if (remainingJobNum == 0) {
+            finishTime = time;
+        }
+    }
+
+    /**
+     * Records that the workflow has no jobs: it finishes as soon as it has
+     * arrived
+     *
+     * @param time the current time
+     */
+    protected void finishEmpty(double time) {
+        startTime = time;
+        finishTime = time;
+    }
+
+    /**
+     * Checks whether all the jobs of the workflow have completed
+     *
+     * @return whether the workflow is finished
+     */
+    public boolean isFinished() {
+        return finishTime >= 0;
+    }
+
+    /**
+     * Gets the time the first job of the workflow started
+     *
+     * @return the start time, -1 before
+     */
+    public double getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the time the workflow completed
+     *
+     * @return the finish time, -1 before
+     */
+    public double getFinishTime() {
+        return finishTime;
+    }
+
+    /**
+     * Gets the time the workflow waited from its arrival to its first job
+     *
+     * @return the queueing delay
+     */
+    public double getQueueingDelay() {
+        return startTime - arrivalTime;
+    }
+
+    /**
+     * Gets the time from the start of the workflow to its completion
+     *
+     * @return the makespan
+     */
+    public double getMakespan() {
+        return finishTime - startTime;
+    }
+
+    /**
+     * Gets the time from the arrival of the workflow to its completion
+     *
+     * @return the response time
+     */
+    public double getResponseTime() {
+        return finishTime - arrivalTime;
+    }
+
+    /**
+     * Gets the slowdown of the workflow, its response time over the runtime
+     * of its critical path on the fastest vm
+     *
+     * @return the slowdown, 0 if the critical path is empty
+     */
+    public double getSlowdown() {
+        if (criticalPathTime <= 0) {
+            return 0.0;
+        }
+        return getResponseTime() / criticalPathTime;
+    }
+}
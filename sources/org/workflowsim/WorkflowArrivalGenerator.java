@@ -0,0 +1,196 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.distributions.ExponentialDistr;
+
+/**
+ * WorkflowArrivalGenerator turns a WorkflowPlanner into an open system: instead
+ * of the single DAX of the configuration, submitted at time 0, the planner
+ * receives a stream of workflows over the simulated time. Each workflow is
+ * parsed, planned, clustered and released to the WorkflowEngine when it
+ * arrives, while the earlier ones are still running. The file names of each
+ * workflow are prefixed with its id, so workflows parsed from the same DAX do
+ * not find each other's files.
+ * <p>
+ * The arrivals are added before the simulation starts, either at given times,
+ * from a trace file, or as a Poisson process. The workflows, with their
+ * queueing delay, makespan and slowdown, are available from
+ * {@link #getWorkflowList()} once the simulation has finished.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowArrivalGenerator extends SimEntity {
+
+    /**
+     * The planner the workflows are submitted to
+     */
+    private final WorkflowPlanner planner;
+    /**
+     * The workflows, in the order they have been added
+     */
+    private final List<Workflow> workflowList;
+
+    /**
+     * Creates a new WorkflowArrivalGenerator that submits its workflows to a
+     * planner. The planner then ignores the DAX of the configuration.
+     *
+     * @param name name to be associated with this entity
+     * @param planner the planner
+     * @throws Exception the exception
+     * @pre name != null
+     * @post $none
+     */
+    public WorkflowArrivalGenerator(String name, WorkflowPlanner planner) throws Exception {
+        super(name);
+        this.planner = planner;
+        this.workflowList = new ArrayList<Workflow>();
+        planner.setArrivalGenerator(this);
+    }
+
+    /**
+     * Adds a workflow arriving at a given time
+     *
+     * @param time the arrival time
+     * @param daxPath the path to the DAX of the workflow
+     * @return the workflow
+     */
+    public Workflow addWorkflow(double time, String daxPath) {
+        if (time < 0) {
+            throw new IllegalArgumentException("The arrival time of " + daxPath + " is negative");
+        }
+        Workflow workflow = new Workflow(workflowList.size() + 1, daxPath, time);
+        workflowList.add(workflow);
+        return workflow;
+    }
+
+    /**
+     * Adds workflows arriving as a Poisson process, starting from time 0. The
+     * DAX paths are used one after another, round robin.
+     *
+     * @param daxPaths the paths to the DAX files
+     * @param num the number of workflows
+     * @param meanInterArrival the mean time between two arrivals
+     * @param seed the seed of the inter-arrival times
+     */
+    public void addPoissonArrivals(List<String> daxPaths, int num, double meanInterArrival, long seed) {
+        ExponentialDistr distribution = new ExponentialDistr(seed, meanInterArrival);
+        double time = 0.0;
+        for (int i = 0; i < num; i++) {
+            addWorkflow(time, daxPaths.get(i % daxPaths.size()));
+            time += distribution.sample();
+        }
+    }
+
+    /**
+     * Adds the workflows of a trace file. Each line has an arrival time and
+     * the path to a DAX, separated by spaces. Empty lines and lines starting
+     * with # are ignored.
+     *
+     * @param tracePath the path to the trace file
+     */
+    public void addTrace(String tracePath) {
+        try {
+            BufferedReader br = new BufferedReader(new FileReader(tracePath));
+            String thisline;
+            while ((thisline = br.readLine()) != null) {
+                thisline = thisline.trim();
+                if (thisline.isEmpty() || thisline.startsWith("#")) {
+                    continue;
+                }
+                String[] items = thisline.split("\\s+", 2);
+                if (items.length == 2) {
+                    addWorkflow(Double.parseDouble(items[0]), items[1]);
+                } else {
+                    Log.printLine("Ignoring line of " + tracePath + ": " + thisline);
+                }
+            }
+            br.close();
+        } catch (IOException e) {
+            Log.printLine("IO Exception;Please make sure the trace path is correctly set");
+        }
+    }
+
+    /**
+     * Gets the workflows
+     *
+     * @return the workflows, in the order they have been added
+     */
+    public List<Workflow> getWorkflowList() {
+        return workflowList;
+    }
+
+    /**
+     * Processes events available for this WorkflowArrivalGenerator.
+     *
+     * @param ev a SimEvent object
+     * @pre ev != null
+     * @post $none
+     */
+    @Override
+    public void processEvent(SimEvent ev) {
+        switch (ev.getTag()) {
+            case WorkflowSimTags.WORKFLOW_ARRIVAL:
+                Workflow workflow = (Workflow) ev.getData();
+                Log.printLine(CloudSim.clock() + ": " + getName() + ": Workflow #"
+                        + workflow.getId() + " (" + workflow.getDaxPath() + ") arrives");
+                sendNow(planner.getId(), WorkflowSimTags.WORKFLOW_ARRIVAL, workflow);
+                break;
+            case CloudSimTags.END_OF_SIMULATION:
+                shutdownEntity();
+                break;
+            default:
+                Log.printLine(getName() + ".processOtherEvent(): "
+                        + "Error - event unknown by this WorkflowArrivalGenerator.");
+                break;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see cloudsim.core.SimEntity#startEntity()
+     * Registers the workflows with the engine, so that it does not finish
+     * before the last one, and schedules their arrivals
+     */
+    @Override
+    public void startEntity() {
+        Log.printLine(getName() + " is starting...");
+        WorkflowEngine engine = planner.getWorkflowEngine();
+        for (Workflow workflow : workflowList) {
+            engine.addWorkflow(workflow);
+            schedule(getId(), workflow.getArrivalTime(), WorkflowSimTags.WORKFLOW_ARRIVAL, workflow);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see cloudsim.core.SimEntity#shutdownEntity()
+     */
+    @Override
+    public void shutdownEntity() {
+        Log.printLine(getName() + " is shutting down...");
+    }
+}
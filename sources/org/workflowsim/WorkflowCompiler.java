@@ -0,0 +1,267 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * WorkflowCompiler turns a DAX, and the optional runtime and data size files,
+ * into a binary file that CompiledWorkflow loads without parsing any XML or
+ * text. WorkflowParser loads such a file directly when dax.path points to it.
+ * <p>
+ * All the integers are big endian, and the file is made of:
+ * <ul>
+ * <li>the header: MAGIC, VERSION, the number of tasks, of strings, of edges
+ * and of file references, and the size of the string table in bytes</li>
+ * <li>the string table: the offset of each string and the end offset, then
+ * the UTF-8 bytes of the strings</li>
+ * <li>the tasks: the length (long) of each task, then its type (-1 if it has
+ * none) and its depth</li>
+ * <li>the edges in CSR form: the offsets of the parents of each task and the
+ * end offset, then the parents, and the same for the children</li>
+ * <li>the file references: the offsets of the files of each task and the end
+ * offset, then the name, the size and the type (byte) of each file</li>
+ * </ul>
+ * Tasks are referred to by their index, i.e. their id minus 1, and strings by
+ * their index in the string table.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowCompiler {
+
+    /**
+     * The first int of a compiled workflow, "WFSC"
+     */
+    public static final int MAGIC = 0x57465343;
+    /**
+     * The version of the format
+     */
+    public static final int VERSION = 1;
+    /**
+     * The charset of the string table
+     */
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Compiles a workflow. The DAX is parsed in a simulation of its own, so
+     * the replica catalog and the parameters of the current simulation are
+     * left untouched, and with a runtime scale of 1; the runtime scale is
+     * applied when the workflow is loaded.
+     *
+     * @param daxPath the path to the DAX
+     * @param runtimePath the path to the runtime file, may be null
+     * @param datasizePath the path to the data size file, may be null
+     * @param outputPath the path to the compiled workflow
+     * @throws IOException if the compiled workflow cannot be written
+     */
+    public static void compile(String daxPath, String runtimePath, String datasizePath,
+            String outputPath) throws IOException {
+        List<Task> taskList;
+        SimulationContext previous = SimulationContext.current();
+        SimulationContext.setCurrent(new SimulationContext());
+        try {
+            CloudSim.init(1, Calendar.getInstance(), false);
+            ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+            Parameters.setParserMode(Parameters.ParserMode.STREAMING);
+            WorkflowParser parser = new WorkflowParser(0, datasizePath, runtimePath, daxPath);
+            parser.parse();
+            taskList = parser.getTaskList();
+        } finally {
+            SimulationContext.setCurrent(previous);
+        }
+        if (taskList.isEmpty()) {
+            throw new IOException("No task found in " + daxPath);
+        }
+        write(taskList, outputPath);
+    }
+
+    /**
+     * Writes a list of tasks as a compiled workflow
+     *
+     * @param taskList the tasks, whose ids are 1 to the number of tasks
+     * @param outputPath the path to the compiled workflow
+     * @throws IOException if the compiled workflow cannot be written
+     */
+    private static void write(List<Task> taskList, String outputPath) throws IOException {
+        int taskNum = taskList.size();
+        Map<Task, Integer> indexes = new IdentityHashMap<Task, Integer>();
+        for (int i = 0; i < taskNum; i++) {
+            indexes.put(taskList.get(i), i);
+        }
+
+        /**
+         * Intern the strings and count the edges and the files.
+         */
+        Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        List<byte[]> strings = new ArrayList<byte[]>();
+        int stringBytes = 0;
+        int edgeNum = 0;
+        int fileNum = 0;
+        int[] types = new int[taskNum];
+        List<int[]> fileNames = new ArrayList<int[]>(taskNum);
+        for (int i = 0; i < taskNum; i++) {
+            Task task = taskList.get(i);
+            if (task.getCloudletId() != i + 1) {
+                throw new IOException("Task " + task.getCloudletId() + " is not at index " + i);
+            }
+            List<String> names = new ArrayList<String>();
+            names.add(task.getType());
+            for (Object o : task.getFileList()) {
+                names.add(((File) o).getName());
+            }
+            int[] ids = new int[names.size()];
+            ids[0] = -1;
+            for (int j = 0; j < ids.length; j++) {
+                String name = names.get(j);
+                if (name == null) {
+                    // only the type may be null, File rejects a null name
+                    continue;
+                }
+                Integer id = stringIds.get(name);
+                if (id == null) {
+                    id = strings.size();
+                    stringIds.put(name, id);
+                    byte[] bytes = name.getBytes(UTF8);
+                    strings.add(bytes);
+                    stringBytes += bytes.length;
+                }
+                ids[j] = id;
+            }
+            types[i] = ids[0];
+            fileNames.add(ids);
+            edgeNum += task.getParentList().size();
+            fileNum += ids.length - 1;
+        }
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(outputPath)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(taskNum);
+            out.writeInt(strings.size());
+            out.writeInt(edgeNum);
+            out.writeInt(fileNum);
+            out.writeInt(stringBytes);
+
+            int offset = 0;
+            for (byte[] bytes : strings) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            for (byte[] bytes : strings) {
+                out.write(bytes);
+            }
+
+            for (Task task : taskList) {
+                out.writeLong(task.getCloudletLength());
+            }
+            for (int i = 0; i < taskNum; i++) {
+                out.writeInt(types[i]);
+            }
+            for (Task task : taskList) {
+                out.writeInt(task.getDepth());
+            }
+
+            offset = 0;
+            for (Task task : taskList) {
+                out.writeInt(offset);
+                offset += task.getParentList().size();
+            }
+            out.writeInt(offset);
+            for (Task task : taskList) {
+                for (Task parent : task.getParentList()) {
+                    out.writeInt(indexes.get(parent));
+                }
+            }
+
+            offset = 0;
+            for (Task task : taskList) {
+                out.writeInt(offset);
+                offset += task.getChildList().size();
+            }
+            out.writeInt(offset);
+            for (Task task : taskList) {
+                for (Task child : task.getChildList()) {
+                    out.writeInt(indexes.get(child));
+                }
+            }
+
+            offset = 0;
+            for (int[] ids : fileNames) {
+                out.writeInt(offset);
+                offset += ids.length - 1;
+            }
+            out.writeInt(offset);
+            for (int[] ids : fileNames) {
+                for (int j = 1; j < ids.length; j++) {
+                    out.writeInt(ids[j]);
+                }
+            }
+            for (Task task : taskList) {
+                for (Object o : task.getFileList()) {
+                    out.writeInt(((File) o).getSize());
+                }
+            }
+            for (Task task : taskList) {
+                for (Object o : task.getFileList()) {
+                    out.writeByte(((File) o).getType());
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Compiles a workflow from the command line
+     *
+     * @param args the DAX, the compiled workflow and optionally the runtime
+     * file and the data size file
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 && args.length != 4) {
+            System.err.println("Usage: WorkflowCompiler dax output [runtime datasize]");
+            System.exit(1);
+        }
+        try {
+            long start = System.nanoTime();
+            compile(args[0], args.length == 4 ? args[2] : null,
+                    args.length == 4 ? args[3] : null, args[1]);
+            System.out.println("Compiled " + args[0] + " into " + args[1] + " in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+        } catch (IOException e) {
+            System.err.println("Failed to compile " + args[0] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
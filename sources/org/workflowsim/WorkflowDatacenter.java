@@ -15,8 +15,11 @@
  */
 package org.workflowsim;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Consts;
@@ -31,10 +34,10 @@ import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.workflowsim.utils.FileSymbolTable;
 import org.workflowsim.utils.ReplicaCatalog;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.ClassType;
-import org.workflowsim.utils.Parameters.FileType;
 
 /**
  * WorkflowDatacenter extends Datacenter so as we can use CondorVM and other
@@ -52,7 +55,16 @@ public class WorkflowDatacenter extends Datacenter {
             List<Storage> storageList,
             double schedulingInterval) throws Exception {
         super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
-
+        /**
+         * Submissions and host updates often ask for a wake-up at an instant
+         * that is already scheduled, only keep one of them.
+         */
+        setCoalescible(CloudSimTags.VM_DATACENTER_EVENT);
+        /**
+         * Datacenters only share the ReplicaCatalog and the Log, which wait
+         * for their turn, so they can run in parallel.
+         */
+        setIndependent(true);
     }
 
     @Override
@@ -244,34 +256,6 @@ public class WorkflowDatacenter extends Datacenter {
         }
     }
 
-    /**
-     * If a input file has an output file it does not need stage-in For
-     * workflows, we have a rule that a file is written once and read many
-     * times, thus if a file is an output file it means it is generated within
-     * this job and then used by another job within the same job (or other jobs
-     * maybe) This is useful when we perform horizontal clustering
-     *
-     * @param list, the list of all files
-     * @param file, the file to be examined
-     * @pre $none
-     * @post $none
-     */
-    private boolean isRealInputFile(List<File> list, File file) {
-        if (file.getType() == FileType.INPUT.value)//input file
-        {
-            for (File another : list) {
-                if (another.getName().equals(file.getName())
-                        /**
-                         * if another file is output file
-                         */
-                        && another.getType() == FileType.OUTPUT.value) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return false;
-    }
     /*
      * Stage in for a single job (both stage-in job and compute job)
      * @param requiredFiles, all files to be stage-in
@@ -282,85 +266,95 @@ public class WorkflowDatacenter extends Datacenter {
 
     protected double processDataStageIn(List<File> requiredFiles, Cloudlet cl) throws Exception {
         double time = 0.0;
-        Iterator<File> iter = requiredFiles.iterator();
+        //The input files that are not output files, precomputed for a job
+        List<File> realInputFiles = FileSymbolTable.getRealInputFiles(requiredFiles, cl);
+        //The files of this job that a vm cache must not evict, built when needed
+        Set<String> pinned = null;
+        Iterator<File> iter = realInputFiles.iterator();
         while (iter.hasNext()) {
             File file = iter.next();
-            //The input file is not an output File 
-            if (isRealInputFile(requiredFiles, file)) {
-                double maxBwth = 0.0;
-                List siteList = ReplicaCatalog.getStorageList(file.getName());
-                if (siteList.isEmpty()) {
-                    throw new Exception(file.getName() + " does not exist");
-                }
-                switch (ReplicaCatalog.getFileSystem()) {
-                    case SHARED:
-                        //stage-in job
-                        /**
-                         * Picks up the site that is closest
-                         */
-                        if (cl.getClassType() == ClassType.STAGE_IN.value) {
-                            double maxRate = Double.MIN_VALUE;
-                            for (Storage storage : getStorageList()) {
-                                double rate = storage.getMaxTransferRate();
-                                if (rate > maxRate) {
-                                    rate = maxRate;
-                                }
+            double maxBwth = 0.0;
+            if (!ReplicaCatalog.hasStorage(file.getName())) {
+                throw new Exception(file.getName() + " does not exist");
+            }
+            switch (ReplicaCatalog.getFileSystem()) {
+                case SHARED:
+                    //stage-in job
+                    /**
+                     * Picks up the site that is closest
+                     */
+                    if (cl.getClassType() == ClassType.STAGE_IN.value) {
+                        double maxRate = Double.MIN_VALUE;
+                        for (Storage storage : getStorageList()) {
+                            double rate = storage.getMaxTransferRate();
+                            if (rate > maxRate) {
+                                rate = maxRate;
                             }
-                            //Storage storage = getStorageList().get(0);
-                            time += file.getSize() / maxRate;
                         }
-                        break;
-                    case LOCAL:
+                        //Storage storage = getStorageList().get(0);
+                        time += file.getSize() / maxRate;
+                    }
+                    break;
+                case LOCAL:
 
-                        int vmId = cl.getVmId();
-                        int userId = cl.getUserId();
-                        Host host = getVmAllocationPolicy().getHost(vmId, userId);
-                        Vm vm = host.getVm(vmId, userId);
+                    List siteList = ReplicaCatalog.getStorageList(file.getName());
+                    int vmId = cl.getVmId();
+                    int userId = cl.getUserId();
+                    Host host = getVmAllocationPolicy().getHost(vmId, userId);
+                    CondorVM vm = (CondorVM) host.getVm(vmId, userId);
 
-                        boolean requiredFileStagein = true;
+                    /**
+                     * If this file is already in the local vm it is no need
+                     * to transfer
+                     */
+                    boolean requiredFileStagein;
+                    if (vm.isCaching()) {
+                        requiredFileStagein = !vm.accessLocalFile(file);
+                    } else {
+                        requiredFileStagein = !ReplicaCatalog.hasStorage(file.getName(), Integer.toString(vmId));
+                    }
 
-                        for (Iterator it = siteList.iterator(); it.hasNext();) {
-                            //site is where one replica of this data is located at
-                            String site = (String) it.next();
-                            if (site.equals(this.getName())) {
-                                continue;
-                            }
-                            /**
-                             * This file is already in the local vm and thus it
-                             * is no need to transfer
-                             */
-                            if (site.equals(Integer.toString(vmId))) {
-                                requiredFileStagein = false;
-                                break;
-                            }
-                            double bwth;
-                            if (site.equals(Parameters.SOURCE)) {
-                                //transfers from the source to the VM is limited to the VM bw only
-                                bwth = vm.getBw();
-                                //bwth = dcStorage.getBaseBandwidth();
-                            } else {
-                                //transfers between two VMs is limited to both VMs
-                                bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
-                                //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
-                            }
-                            if (bwth > maxBwth) {
-                                maxBwth = bwth;
-                            }
+                    for (Iterator it = siteList.iterator(); requiredFileStagein && it.hasNext();) {
+                        //site is where one replica of this data is located at
+                        String site = (String) it.next();
+                        if (site.equals(this.getName())) {
+                            continue;
+                        }
+                        double bwth;
+                        if (site.equals(Parameters.SOURCE)) {
+                            //transfers from the source to the VM is limited to the VM bw only
+                            bwth = vm.getBw();
+                            //bwth = dcStorage.getBaseBandwidth();
+                        } else {
+                            //transfers between two VMs is limited to both VMs
+                            bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
+                            //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
                         }
-                        if (requiredFileStagein && maxBwth > 0.0) {
-                            time += file.getSize() / Consts.MILLION * 8 / maxBwth;
+                        if (bwth > maxBwth) {
+                            maxBwth = bwth;
                         }
+                    }
+                    if (requiredFileStagein && maxBwth > 0.0) {
+                        time += file.getSize() / Consts.MILLION * 8 / maxBwth;
+                    }
 
-                        /**
-                         * For the case when storage is too small it is not
-                         * handled here
-                         */
-                        //We should add but since CondorVm has a small capability it often fails
-                        //We currently don't use this storage to do anything meaningful. It is left for future. 
-                        //condorVm.addLocalFile(file);
+                    /**
+                     * A vm with an eviction policy caches the file within
+                     * the capacity of its storage, otherwise the replica is
+                     * kept forever
+                     */
+                    if (vm.isCaching()) {
+                        if (pinned == null) {
+                            pinned = new HashSet<String>();
+                            for (File input : realInputFiles) {
+                                pinned.add(input.getName());
+                            }
+                        }
+                        vm.cacheLocalFile(file, pinned);
+                    } else {
                         ReplicaCatalog.addStorageList(file.getName(), Integer.toString(vmId));
-                        break;
-                }
+                    }
+                    break;
             }
         }
         return time;
@@ -429,28 +423,29 @@ public class WorkflowDatacenter extends Datacenter {
 
     private void register(Cloudlet cl) {
         Task tl = (Task) cl;
-        List fList = tl.getFileList();
+        //the output files, precomputed for a job
+        List fList = tl.getOutputFiles();
         for (Iterator it = fList.iterator(); it.hasNext();) {
             org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) it.next();
-            if (file.getType() == FileType.OUTPUT.value)//output file
-            {
-
-                switch (ReplicaCatalog.getFileSystem()) {
-                    case SHARED:
-                        ReplicaCatalog.addStorageList(file.getName(), this.getName());
-                        break;
-                    case LOCAL:
-                        int vmId = cl.getVmId();
-                        int userId = cl.getUserId();
-                        Host host = getVmAllocationPolicy().getHost(vmId, userId);
-                        /**
-                         * Left here for future work
-                         */
-                        CondorVM vm = (CondorVM) host.getVm(vmId, userId);
-
+            switch (ReplicaCatalog.getFileSystem()) {
+                case SHARED:
+                    ReplicaCatalog.addStorageList(file.getName(), this.getName());
+                    break;
+                case LOCAL:
+                    int vmId = cl.getVmId();
+                    int userId = cl.getUserId();
+                    Host host = getVmAllocationPolicy().getHost(vmId, userId);
+                    CondorVM vm = (CondorVM) host.getVm(vmId, userId);
+                    /**
+                     * A vm cache always keeps the output files the vm has
+                     * written, evicting other replicas to make room
+                     */
+                    if (vm.isCaching()) {
+                        vm.cacheLocalFile(file, Collections.<String>emptySet());
+                    } else {
                         ReplicaCatalog.addStorageList(file.getName(), Integer.toString(vmId));
-                        break;
-                }
+                    }
+                    break;
             }
         }
     }
@@ -16,13 +16,19 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -62,6 +68,72 @@ public class WorkflowEngine extends SimEntity {
      */
     private List<Integer> schedulerId;
     private List<WorkflowScheduler> scheduler;
+    /**
+     * The ids of the received jobs
+     */
+    private Set<Integer> receivedIds;
+    /**
+     * The pending jobs whose parents are not all received, by parent id
+     */
+    private Map<Integer, List<PendingJob>> waitingJobs;
+    /**
+     * The pending jobs whose parents are all received, in the order of the
+     * job list
+     */
+    private PriorityQueue<PendingJob> readyJobs;
+    /**
+     * The job list waitingJobs and readyJobs were built from, null if they
+     * have to be rebuilt
+     */
+    private List<? extends Cloudlet> indexedList;
+    /**
+     * The number of jobs of the job list in waitingJobs and readyJobs
+     */
+    private int indexedSize;
+    /**
+     * The position of the next job added to the job list
+     */
+    private int sequence;
+    /**
+     * The id of the next job, one more than the largest job id so far
+     */
+    private int nextJobId;
+    /**
+     * Whether the vms have been created, so that jobs can be submitted
+     */
+    private boolean vmsCreated;
+    /**
+     * The workflows submitted by a WorkflowArrivalGenerator, by id
+     */
+    private Map<Integer, Workflow> workflows;
+    /**
+     * The number of workflows whose jobs have not been received yet
+     */
+    private int pendingWorkflowNum;
+
+    /**
+     * A job of the job list that has not been submitted yet
+     */
+    private static class PendingJob {
+
+        /**
+         * The job
+         */
+        private final Job job;
+        /**
+         * The position of the job in the job list
+         */
+        private final int sequence;
+        /**
+         * The number of parents that have not been received yet
+         */
+        private int remainingParents;
+
+        private PendingJob(Job job, int sequence) {
+            this.job = job;
+            this.sequence = sequence;
+        }
+    }
 
     /**
      * Created a new WorkflowEngine object.
@@ -85,6 +157,16 @@ public class WorkflowEngine extends SimEntity {
         setJobsReceivedList(new ArrayList<Job>());
 
         jobsSubmitted = 0;
+        nextJobId = 0;
+        workflows = new LinkedHashMap<Integer, Workflow>();
+        receivedIds = new HashSet<Integer>();
+        waitingJobs = new HashMap<Integer, List<PendingJob>>();
+        readyJobs = new PriorityQueue<PendingJob>(11, new Comparator<PendingJob>() {
+            @Override
+            public int compare(PendingJob a, PendingJob b) {
+                return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+            }
+        });
 
         setSchedulers(new ArrayList<WorkflowScheduler>());
         setSchedulerIds(new ArrayList<Integer>());
@@ -94,6 +176,7 @@ public class WorkflowEngine extends SimEntity {
             getSchedulers().add(wfs);
             getSchedulerIds().add(wfs.getId());
             wfs.setWorkflowEngineId(this.getId());
+            wfs.setWorkflowEngine(this);
         }
 
 
@@ -141,9 +224,62 @@ public class WorkflowEngine extends SimEntity {
      */
     public void submitCloudletList(List<? extends Cloudlet> list) {
         getJobsList().addAll(list);
+        for (Cloudlet cloudlet : list) {
+            nextJobId = Math.max(nextJobId, cloudlet.getCloudletId() + 1);
+        }
 
     }
 
+    /**
+     * Gets the id of the next job, the jobs created from now on must use ids
+     * from it
+     *
+     * @return the next job id
+     */
+    public int getNextJobId() {
+        return nextJobId;
+    }
+
+    /**
+     * Reserves job ids from the next job id, for jobs that will be submitted
+     * later
+     *
+     * @param num the number of ids
+     */
+    public void reserveJobIds(int num) {
+        nextJobId += num;
+    }
+
+    /**
+     * Adds a workflow that will arrive later. The engine does not finish
+     * before it has received and completed its jobs
+     *
+     * @param workflow the workflow
+     */
+    public void addWorkflow(Workflow workflow) {
+        workflows.put(workflow.getId(), workflow);
+        pendingWorkflowNum++;
+    }
+
+    /**
+     * Gets a workflow submitted by a WorkflowArrivalGenerator
+     *
+     * @param workflowId the workflow id
+     * @return the workflow, null if unknown
+     */
+    public Workflow getWorkflow(int workflowId) {
+        return workflows.get(workflowId);
+    }
+
+    /**
+     * Gets the workflows submitted by a WorkflowArrivalGenerator
+     *
+     * @return the workflows, in the order they have been added
+     */
+    public List<Workflow> getWorkflowList() {
+        return new ArrayList<Workflow>(workflows.values());
+    }
+
     /**
      * Processes events available for this Broker.
      *
@@ -160,6 +296,12 @@ public class WorkflowEngine extends SimEntity {
                 break;
             //this call is from workflow scheduler when all vms are created
             case CloudSimTags.CLOUDLET_SUBMIT:
+                vmsCreated = true;
+                if (!workflows.isEmpty() && isWorkloadFinished()) {
+                    // all the workflows that arrived before the vms were empty
+                    sendEndOfSimulation();
+                    break;
+                }
                 submitJobs();
                 break;
 
@@ -174,6 +316,9 @@ public class WorkflowEngine extends SimEntity {
             case WorkflowSimTags.JOB_SUBMIT:
                 processJobSubmit(ev);
                 break;
+            case WorkflowSimTags.WORKFLOW_EMPTY:
+                processEmptyWorkflow(ev);
+                break;
             // other unknown tags are processed by this method
             default:
                 processOtherEvent(ev);
@@ -222,8 +367,59 @@ public class WorkflowEngine extends SimEntity {
      * @param ev a SimEvent object
      */
     protected void processJobSubmit(SimEvent ev) {
-        List<? extends Cloudlet> list = (List) ev.getData();
-        setJobsList(list);
+        List<Job> list = (List) ev.getData();
+        getJobsList().addAll(list);
+        for (Job job : list) {
+            nextJobId = Math.max(nextJobId, job.getCloudletId() + 1);
+            Workflow workflow = workflows.get(job.getWorkflowId());
+            if (workflow != null) {
+                if (workflow.getJobNum() == 0) {
+                    pendingWorkflowNum--;
+                }
+                workflow.addJobs(1);
+            }
+        }
+        /**
+         * The jobs of a workflow arriving after the vms have been created are
+         * submitted now, the others when the vms are created
+         */
+        if (vmsCreated) {
+            sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null);
+        }
+    }
+
+    /**
+     * Process a workflow that has arrived without any job. It no longer keeps
+     * the engine from finishing.
+     *
+     * @param ev a SimEvent object whose data is the Workflow
+     */
+    protected void processEmptyWorkflow(SimEvent ev) {
+        Workflow workflow = (Workflow) ev.getData();
+        workflow.finishEmpty(CloudSim.clock());
+        pendingWorkflowNum--;
+        if (vmsCreated && isWorkloadFinished()) {
+            sendEndOfSimulation();
+        }
+    }
+
+    /**
+     * Checks whether all the jobs have completed and no workflow is still to
+     * come
+     *
+     * @return whether the engine can finish
+     */
+    private boolean isWorkloadFinished() {
+        return getJobsList().isEmpty() && jobsSubmitted == 0 && pendingWorkflowNum == 0;
+    }
+
+    /**
+     * Tells all the schedulers that the simulation is over
+     */
+    private void sendEndOfSimulation() {
+        for (int i = 0; i < getSchedulerIds().size(); i++) {
+            sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
+        }
     }
 
     /**
@@ -236,21 +432,33 @@ public class WorkflowEngine extends SimEntity {
     protected void processJobReturn(SimEvent ev) {
 
         Job job = (Job) ev.getData();
+        int retryNum = 0;
 
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
-
+            List<Job> retryList = ReclusteringEngine.process(job, nextJobId);
+            retryNum = retryList.size();
+            reserveJobIds(retryNum);
+            getJobsList().addAll(retryList);
+            /**
+             * The new jobs are added as parents of the children of the failed
+             * job, count the parents again.
+             */
+            indexedList = null;
         }
 
         getJobsReceivedList().add(job);
+        if (receivedIds.add(job.getCloudletId())) {
+            releaseJobs(job.getCloudletId());
+        }
         jobsSubmitted--;
-        if (getJobsList().isEmpty() && jobsSubmitted == 0) {
+        Workflow workflow = workflows.get(job.getWorkflowId());
+        if (workflow != null) {
+            workflow.jobReturned(job, retryNum, CloudSim.clock());
+        }
+        if (isWorkloadFinished()) {
             //send msg to all the schedulers
-            for (int i = 0; i < getSchedulerIds().size(); i++) {
-                sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
-            }
+            sendEndOfSimulation();
         } else {
             sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null);
         }
@@ -278,20 +486,67 @@ public class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Checks whether a job list contains a id
+     * Decrements the remaining parents of the jobs waiting for a job, and
+     * moves the jobs that have no remaining parent to readyJobs
      *
-     * @param jobList the job list
-     * @param id the job id
-     * @return
+     * @param id the id of the received job
      */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
+    private void releaseJobs(int id) {
+        List<PendingJob> children = waitingJobs.remove(id);
+        if (children == null) {
+            return;
+        }
+        for (PendingJob child : children) {
+            child.remainingParents--;
+            if (child.remainingParents == 0) {
+                readyJobs.add(child);
+            }
+        }
+    }
+
+    /**
+     * Adds a job of the job list to waitingJobs or readyJobs
+     *
+     * @param job the job
+     */
+    private void indexJob(Job job) {
+        PendingJob pending = new PendingJob(job, sequence++);
+        List<Job> parentList = job.getParentList();
+        for (Job parent : parentList) {
+            int parentId = parent.getCloudletId();
+            if (!receivedIds.contains(parentId)) {
+                List<PendingJob> children = waitingJobs.get(parentId);
+                if (children == null) {
+                    children = new ArrayList<PendingJob>();
+                    waitingJobs.put(parentId, children);
+                }
+                children.add(pending);
+                pending.remainingParents++;
             }
         }
-        return false;
+        //Dont use job.isFinished() it is not right
+        if (pending.remainingParents == 0 && !receivedIds.contains(job.getCloudletId())) {
+            readyJobs.add(pending);
+        }
+    }
+
+    /**
+     * Indexes the jobs added to the job list since the last submission, or
+     * the whole list if it has been replaced or a job has failed
+     */
+    private void indexJobList() {
+        List<Job> list = getJobsList();
+        if (list != indexedList || list.size() < indexedSize) {
+            waitingJobs.clear();
+            readyJobs.clear();
+            indexedList = list;
+            indexedSize = 0;
+            sequence = 0;
+        }
+        for (Iterator<Job> it = list.listIterator(indexedSize); it.hasNext();) {
+            indexJob(it.next());
+        }
+        indexedSize = list.size();
     }
 
     /**
@@ -308,37 +563,27 @@ public class WorkflowEngine extends SimEntity {
             List<Job> submittedList = new ArrayList<Job>();
             allocationList.put(getSchedulerId(i), submittedList);
         }
-        int num = list.size();
-        for (int i = 0; i < num; i++) {
-            //at the beginning
-            Job job = list.get(i);
-            //Dont use job.isFinished() it is not right
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
-                List<Job> parentList = job.getParentList();
-                boolean flag = true;
-                for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
-                        flag = false;
-                        break;
-                    }
-
-                }
-                /**
-                 * This job's parents have all completed successfully. Should
-                 * submit.
-                 */
-                if (flag) {
-
-                    List submittedList = (List) allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
-                    list.remove(job);
-                    i--;
-                    num--;
-                }
+        indexJobList();
+        /**
+         * These jobs' parents have all completed successfully. Should submit,
+         * in the order of the job list.
+         */
+        Set<Job> submittedJobs = new HashSet<Job>();
+        while (!readyJobs.isEmpty()) {
+            Job job = readyJobs.poll().job;
+            //a job with the id of a received job is never submitted
+            if (receivedIds.contains(job.getCloudletId())) {
+                continue;
             }
-
+            List submittedList = (List) allocationList.get(job.getUserId());
+            submittedList.add(job);
+            jobsSubmitted++;
+            getJobsSubmittedList().add(job);
+            submittedJobs.add(job);
+        }
+        if (!submittedJobs.isEmpty()) {
+            list.removeAll(submittedJobs);
+            indexedSize = list.size();
         }
         /**
          * If we have multiple schedulers. Divide them equally.
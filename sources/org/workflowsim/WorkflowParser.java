@@ -15,21 +15,29 @@
  */
 package org.workflowsim;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.cloudbus.cloudsim.Log;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.workflowsim.failure.FailureParameters;
+import org.workflowsim.utils.FileSymbolTable;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.ReplicaCatalog;
 
@@ -62,6 +70,10 @@ public class WorkflowParser {
      * User id. used to create a new task.
      */
     private int userId;
+    /**
+     * The prefix added to the file names of the DAX
+     */
+    private String fileNamePrefix = "";
 
     /**
      * Gets the task list
@@ -124,11 +136,50 @@ public class WorkflowParser {
     }
 
     /**
-     * Start to parse a workflow which includes text files and xml files.
+     * Sets a prefix added to the names of the files of the workflow, so that
+     * two instances of the same DAX do not share their files in the
+     * ReplicaCatalog. The sizes in the datasize file are looked up without it.
+     *
+     * @param prefix the prefix, empty by default
+     */
+    public void setFileNamePrefix(String prefix) {
+        this.fileNamePrefix = prefix;
+    }
+
+    /**
+     * Start to parse a workflow which includes text files and xml files. If
+     * the DAX path points to a workflow compiled by WorkflowCompiler, it is
+     * loaded instead and the text files are ignored, since they have been
+     * compiled with it.
      */
     public void parse() {
+        if (CompiledWorkflow.isCompiled(daxPath)) {
+            loadCompiled();
+            return;
+        }
         parseTextFile();
-        parseXmlFile();
+        if (Parameters.getParserMode() == Parameters.ParserMode.STREAMING) {
+            parseXmlStream();
+        } else {
+            parseXmlFile();
+        }
+    }
+
+    /**
+     * Load a workflow compiled by WorkflowCompiler
+     */
+    private void loadCompiled() {
+        try {
+            CompiledWorkflow workflow = new CompiledWorkflow(daxPath);
+            getTaskList().addAll(workflow.getTaskList(userId, fileNamePrefix));
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
+
+        }
     }
 
     /**
@@ -190,6 +241,148 @@ public class WorkflowParser {
         */ 
     }
 
+    /**
+     * Gets the length of a job, from the runtime file or else from the DAX
+     *
+     * @param nodeName the job id
+     * @param nodeTime the runtime attribute of the job, may be null
+     * @return the length
+     */
+    private long getLength(String nodeName, String nodeTime) {
+        long length = 0;
+        /**
+         * capture runtime. If not exist, by default the runtime is 0
+         */
+        double runtime = 0.0;
+        if (this.mName2Runtime.containsKey(nodeName)) {
+            runtime = 1000 * (Double) this.mName2Runtime.get(nodeName);
+            length = (long) runtime;
+        } else if (nodeTime != null) {
+            runtime = 1000 * Double.parseDouble(nodeTime);
+            length = (long) runtime;
+        } else {
+            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
+        }
+        //multiple the scale, by default it is 1.0
+        length *= Parameters.getRuntimeScale();
+        return length;
+    }
+
+    /**
+     * Gets the file a job uses
+     *
+     * @param fileName the file name
+     * @param inout the link attribute, input or output
+     * @param fileSize the size attribute, may be null
+     * @return the file
+     * @throws Exception if the file cannot be created
+     */
+    private org.cloudbus.cloudsim.File getFile(String fileName, String inout, String fileSize)
+            throws Exception {
+        if (fileName == null) {
+            Log.print("Error in parsing xml");
+        }
+
+        double size = 0.0;
+        if (this.mName2Size.containsKey(fileName)) {
+            size = (Double) this.mName2Size.get(fileName) /*/ 1024*/;//now it is KB
+        } else {
+            if (fileSize != null) {
+                size = Double.parseDouble(fileSize) /*/ 1024*/;
+            } else {
+                Log.printLine("File Size not found for " + fileName);
+            }
+        }
+        /**
+         * a bug of cloudsim, size 0 causes a problem. 1 is ok.
+         */
+        if (size == 0) {
+            size++;
+        }
+        /**
+         * Sets the file type 1 is input 2 is output
+         */
+        int type = 0;
+        if (inout.equals("input")) {
+            type = Parameters.FileType.INPUT.value;
+        } else if (inout.equals("output")) {
+            type = Parameters.FileType.OUTPUT.value;
+        } else {
+            Log.printLine("Parsing Error");
+        }
+        org.cloudbus.cloudsim.File tFile;
+        fileName = fileNamePrefix + fileName;
+        /*
+         * Already exists an input file (forget output file)
+         */
+        if (size < 0) {
+            /*
+             * Assuming it is a parsing error
+             */
+            size = 0 - size;
+            Log.printLine("Size is negative, I assume it is a parser error");
+        }
+        if (type == Parameters.FileType.OUTPUT.value) {
+            /**
+             * It is good that CloudSim does tell whether a size is zero
+             */
+            tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
+        } else if (ReplicaCatalog.containsFile(fileName)) {
+            tFile = ReplicaCatalog.getFile(fileName);
+        } else {
+
+            tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
+            ReplicaCatalog.setFile(fileName, tFile);
+        }
+
+        tFile.setType(type);
+        /**
+         * Assigns the file id in the order files are parsed
+         */
+        FileSymbolTable.getId(fileName);
+        return tFile;
+    }
+
+    /**
+     * Creates the task of a job
+     *
+     * @param id the task id
+     * @param nodeName the job id
+     * @param nodeType the job name
+     * @param length the length
+     * @param mFileList the files the job uses
+     */
+    private void addTask(int id, String nodeName, String nodeType, long length, List mFileList) {
+        Task task = new Task(id, length);
+
+        task.setType(nodeType);
+
+        task.setUserId(userId);
+        mName2Task.put(nodeName, task);
+
+        for (Iterator itm = mFileList.iterator(); itm.hasNext();) {
+            org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) itm.next();
+            task.addRequiredFile(file.getName());
+        }
+
+        task.setFileList(mFileList);
+        this.getTaskList().add(task);
+    }
+
+    /**
+     * Adds a dependency, if both jobs have already been parsed
+     *
+     * @param childTask the child task, may be null
+     * @param parentName the id of the parent job
+     */
+    private void addDependency(Task childTask, String parentName) {
+        if (childTask != null && mName2Task.containsKey(parentName)) {
+            Task parentTask = (Task) mName2Task.get(parentName);
+            parentTask.addChild(childTask);
+            childTask.addParent(parentTask);
+        }
+    }
+
     /**
      * Parse a DAX file with jdom
      */
@@ -207,28 +400,10 @@ public class WorkflowParser {
                 Element node = (Element) it.next();
                 if (node.getName().toLowerCase().equals("job")) {
 
-                    long length = 0;
                     String nodeName = node.getAttributeValue("id");
                     String nodeType = node.getAttributeValue("name");
+                    long length = getLength(nodeName, node.getAttributeValue("runtime"));
 
-                    /**
-                     * capture runtime. If not exist, by default the runtime is
-                     * 0
-                     */
-                    double runtime = 0.0;
-                    if (this.mName2Runtime.containsKey(nodeName)) {
-                        runtime = 1000 * (Double) this.mName2Runtime.get(nodeName);
-                        length = (long) runtime;
-                    } else if (node.getAttributeValue("runtime") != null) {
-                        String nodeTime = node.getAttributeValue("runtime");
-                        runtime = 1000 * Double.parseDouble(nodeTime);
-                        length = (long) runtime;
-                    } else {
-                        Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
-                    }
-                    //multiple the scale, by default it is 1.0
-                    length *= Parameters.getRuntimeScale();
-                    
                     List fileList = node.getChildren();
 
                     List mFileList = new ArrayList<org.cloudbus.cloudsim.File>();
@@ -243,89 +418,14 @@ public class WorkflowParser {
                             if (fileName == null) {
                                 fileName = file.getAttributeValue("file");//DAX version 3.0
                             }
-                            if (fileName == null) {
-                                Log.print("Error in parsing xml");
-                            }
-
-                            String inout = file.getAttributeValue("link");
-                            double size = 0.0;
-                            if (this.mName2Size.containsKey(fileName)) {
-                                size = (Double) this.mName2Size.get(fileName) /*/ 1024*/;//now it is KB
-                            } else {
-                                String fileSize = file.getAttributeValue("size");
-                                if (fileSize != null) {
-                                    size = Double.parseDouble(fileSize) /*/ 1024*/;
-                                } else {
-                                    Log.printLine("File Size not found for " + fileName);
-                                }
-                            }
-                            /**
-                             * a bug of cloudsim, size 0 causes a problem. 1 is
-                             * ok.
-                             */
-                            if (size == 0) {
-                                size++;
-                            }
-                            /**
-                             * Sets the file type 1 is input 2 is output
-                             */
-                            int type = 0;
-                            if (inout.equals("input")) {
-                                type = Parameters.FileType.INPUT.value;
-                            } else if (inout.equals("output")) {
-                                type = Parameters.FileType.OUTPUT.value;
-                            } else {
-                                Log.printLine("Parsing Error");
-                            }
-                            org.cloudbus.cloudsim.File tFile;
-                            /*
-                             * Already exists an input file (forget output file)
-                             */
-                            if (size < 0) {
-                                /*
-                                 * Assuming it is a parsing error
-                                 */
-                                size = 0 - size;
-                                Log.printLine("Size is negative, I assume it is a parser error");
-                            }
-                            if (type == Parameters.FileType.OUTPUT.value) {
-                                /**
-                                 * It is good that CloudSim does tell whether a
-                                 * size is zero
-                                 */
-                                tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
-                            } else if (ReplicaCatalog.containsFile(fileName)) {
-                                tFile = ReplicaCatalog.getFile(fileName);
-                            } else {
-
-                                tFile = new org.cloudbus.cloudsim.File(fileName, (int) size);
-                                ReplicaCatalog.setFile(fileName, tFile);
-                            }
-
-                            tFile.setType(type);
-                            mFileList.add(tFile);
-
+                            mFileList.add(getFile(fileName, file.getAttributeValue("link"),
+                                    file.getAttributeValue("size")));
                         }
 
                     }
 
-
-                    Task task = new Task(idIndex, length);
-
-                    task.setType(nodeType);
-
-                    task.setUserId(userId);
+                    addTask(idIndex, nodeName, nodeType, length, mFileList);
                     idIndex++;
-                    mName2Task.put(nodeName, task);
-
-
-                    for (Iterator itm = mFileList.iterator(); itm.hasNext();) {
-                        org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) itm.next();
-                        task.addRequiredFile(file.getName());
-                    }
-
-                    task.setFileList(mFileList);
-                    this.getTaskList().add(task);
 
                     /**
                      * Add dependencies info.
@@ -339,13 +439,7 @@ public class WorkflowParser {
 
                         for (Iterator itc = pList.iterator(); itc.hasNext();) {
                             Element parent = (Element) itc.next();
-                            String parentName = parent.getAttributeValue("ref");
-                            if (mName2Task.containsKey(parentName)) {
-                                Task parentTask = (Task) mName2Task.get(parentName);
-                                parentTask.addChild(childTask);
-                                childTask.addParent(parentTask);
-                            }
-
+                            addDependency(childTask, parent.getAttributeValue("ref"));
                         }
                     }
                 }
@@ -390,4 +484,136 @@ public class WorkflowParser {
 
         }
     }
+
+    /**
+     * Parse a DAX file with StAX. Tasks and dependencies are created as soon
+     * as they are read, so only the current job and the map from job id to
+     * task are kept besides the tasks themselves. The depths are then set in
+     * topological order instead of walking every path from the roots.
+     */
+    private void parseXmlStream() {
+
+        XMLStreamReader reader = null;
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(daxPath));
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            reader = factory.createXMLStreamReader(in);
+
+            int idIndex = 1;
+            /**
+             * The element depth, 1 for the root element.
+             */
+            int level = 0;
+            String nodeName = null;
+            String nodeType = null;
+            long length = 0;
+            List mFileList = null;
+            Task childTask = null;
+            boolean inJob = false;
+            boolean inChild = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    level++;
+                    String name = reader.getLocalName().toLowerCase();
+                    if (level == 2 && name.equals("job")) {
+                        inJob = true;
+                        nodeName = reader.getAttributeValue(null, "id");
+                        nodeType = reader.getAttributeValue(null, "name");
+                        length = getLength(nodeName, reader.getAttributeValue(null, "runtime"));
+                        mFileList = new ArrayList<org.cloudbus.cloudsim.File>();
+                    } else if (level == 3 && inJob && name.equals("uses")) {
+                        String fileName = reader.getAttributeValue(null, "name");//DAX version 3.3
+                        if (fileName == null) {
+                            fileName = reader.getAttributeValue(null, "file");//DAX version 3.0
+                        }
+                        mFileList.add(getFile(fileName, reader.getAttributeValue(null, "link"),
+                                reader.getAttributeValue(null, "size")));
+                    } else if (level == 2 && name.equals("child")) {
+                        inChild = true;
+                        childTask = mName2Task.get(reader.getAttributeValue(null, "ref"));
+                    } else if (level == 3 && inChild) {
+                        addDependency(childTask, reader.getAttributeValue(null, "ref"));
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (level == 2 && inJob) {
+                        addTask(idIndex, nodeName, nodeType, length, mFileList);
+                        idIndex++;
+                        mFileList = null;
+                        inJob = false;
+                    } else if (level == 2 && inChild) {
+                        childTask = null;
+                        inChild = false;
+                    }
+                    level--;
+                }
+            }
+
+            setDepths();
+            /**
+             * Clean them so as to save memory. Parsing workflow may take much memory
+             */
+            this.mName2Runtime.clear();
+            this.mName2Size.clear();
+            this.mName2Task.clear();
+
+        } catch (XMLStreamException xse) {
+            Log.printLine("XML Stream Exception;Please make sure your dax file is valid");
+
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
+
+        } finally {
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+                if (in != null) {
+                    in.close();
+                }
+            } catch (Exception e) {
+                Log.printLine("IO exception in closing the dax file");
+            }
+        }
+    }
+
+    /**
+     * Sets the depth of every task, the roots having a depth of 1, visiting
+     * the tasks in topological order
+     */
+    private void setDepths() {
+        List<Task> list = getTaskList();
+        /**
+         * The number of parents of each task that have not been visited yet,
+         * by task id.
+         */
+        int[] remaining = new int[list.size() + 1];
+        List<Task> queue = new ArrayList<Task>();
+        for (Task task : list) {
+            task.setDepth(0);
+            remaining[task.getCloudletId()] = task.getParentList().size();
+            if (task.getParentList().isEmpty()) {
+                task.setDepth(1);
+                queue.add(task);
+            }
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            Task task = queue.get(i);
+            for (Task cTask : task.getChildList()) {
+                if (task.getDepth() + 1 > cTask.getDepth()) {
+                    cTask.setDepth(task.getDepth() + 1);
+                }
+                remaining[cTask.getCloudletId()]--;
+                if (remaining[cTask.getCloudletId()] == 0) {
+                    queue.add(cTask);
+                }
+            }
+        }
+    }
 }
@@ -18,6 +18,7 @@ package org.workflowsim;
 import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -25,6 +26,7 @@ import org.workflowsim.planning.BasePlanningAlgorithm;
 import org.workflowsim.planning.DHEFTPlanningAlgorithm;
 import org.workflowsim.planning.HEFTPlanningAlgorithm;
 import org.workflowsim.planning.RandomPlanningAlgorithm;
+import org.workflowsim.planning.ScalableHEFTPlanningAlgorithm;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.PlanningAlgorithm;
 
@@ -53,6 +55,11 @@ public class WorkflowPlanner extends SimEntity {
      */
     private int clusteringEngineId;
     private ClusteringEngine clusteringEngine;
+    /**
+     * The generator of the workflows, null if the planner runs the DAX of the
+     * configuration
+     */
+    private WorkflowArrivalGenerator arrivalGenerator;
 
     /**
      * Created a new WorkflowPlanner object.
@@ -106,6 +113,26 @@ public class WorkflowPlanner extends SimEntity {
         return this.parser;
     }
 
+    /**
+     * Gets the generator of the workflows
+     *
+     * @return the arrival generator, null if the planner runs the DAX of the
+     * configuration
+     */
+    public WorkflowArrivalGenerator getArrivalGenerator() {
+        return this.arrivalGenerator;
+    }
+
+    /**
+     * Sets the generator of the workflows. The planner then waits for their
+     * arrivals instead of parsing the DAX of the configuration
+     *
+     * @param generator the arrival generator
+     */
+    void setArrivalGenerator(WorkflowArrivalGenerator generator) {
+        this.arrivalGenerator = generator;
+    }
+
     /**
      * Gets the workflow engine id
      *
@@ -135,6 +162,10 @@ public class WorkflowPlanner extends SimEntity {
     public void processEvent(SimEvent ev) {
         switch (ev.getTag()) {
             case WorkflowSimTags.START_SIMULATION:
+                if (getArrivalGenerator() != null) {
+                    //the workflows arrive later, see processWorkflowArrival()
+                    break;
+                }
                 getWorkflowParser().parse();
                 setTaskList(getWorkflowParser().getTaskList());
 
@@ -143,6 +174,9 @@ public class WorkflowPlanner extends SimEntity {
                 processImpactFactors(getTaskList());
                 sendNow(getClusteringEngineId(), WorkflowSimTags.JOB_SUBMIT, getTaskList());
                 break;
+            case WorkflowSimTags.WORKFLOW_ARRIVAL:
+                processWorkflowArrival(ev);
+                break;
             case CloudSimTags.END_OF_SIMULATION:
                 shutdownEntity();
                 break;
@@ -153,6 +187,44 @@ public class WorkflowPlanner extends SimEntity {
         }
     }
 
+    /**
+     * Parses and plans a workflow that has just arrived, and submits its tasks
+     * to the clustering engine
+     *
+     * @param ev a SimEvent object whose data is the Workflow
+     */
+    private void processWorkflowArrival(SimEvent ev) {
+        Workflow workflow = (Workflow) ev.getData();
+        WorkflowParser workflowParser = new WorkflowParser(getWorkflowEngine().getSchedulerId(0),
+                Parameters.getDatasizePath(), Parameters.getRuntimePath(), workflow.getDaxPath());
+        /**
+         * The files of each workflow are its own, even if the same DAX has
+         * arrived before
+         */
+        workflowParser.setFileNamePrefix("workflow" + workflow.getId() + "/");
+        workflowParser.parse();
+        setTaskList(workflowParser.getTaskList());
+
+        double mips = 0.0;
+        for (Vm vm : getWorkflowEngine().getAllVmList()) {
+            mips = Math.max(mips, vm.getMips());
+        }
+        workflow.setTaskList(getTaskList(), mips);
+        /**
+         * A workflow without tasks has no jobs either, so the engine would
+         * wait for them forever
+         */
+        if (getTaskList().isEmpty()) {
+            sendNow(getWorkflowEngineId(), WorkflowSimTags.WORKFLOW_EMPTY, workflow);
+            return;
+        }
+
+        processPlanning();
+
+        processImpactFactors(getTaskList());
+        sendNow(getClusteringEngineId(), WorkflowSimTags.JOB_SUBMIT, getTaskList());
+    }
+
     private void processPlanning() {
         if (Parameters.getPlanningAlgorithm().equals(PlanningAlgorithm.INVALID)) {
             return;
@@ -195,6 +267,9 @@ public class WorkflowPlanner extends SimEntity {
             case DHEFT:
                 planner = new DHEFTPlanningAlgorithm();
                 break;
+            case SCALABLEHEFT:
+                planner = new ScalableHEFTPlanningAlgorithm();
+                break;
             default:
                 planner = null;
                 break;
@@ -15,6 +15,7 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -26,8 +27,13 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.lists.VmList;
+import org.workflowsim.arbitration.BaseArbitrationPolicy;
+import org.workflowsim.arbitration.EDFArbitrationPolicy;
+import org.workflowsim.arbitration.FairShareArbitrationPolicy;
+import org.workflowsim.arbitration.WeightedFairShareArbitrationPolicy;
 import org.workflowsim.failure.FailureGenerator;
 import org.workflowsim.scheduling.DataAwareSchedulingAlgorithm;
+import org.workflowsim.scheduling.DynamicCriticalPathSchedulingAlgorithm;
 import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
 import org.workflowsim.scheduling.FCFSSchedulingAlgorithm;
 import org.workflowsim.scheduling.MCTSchedulingAlgorithm;
@@ -36,6 +42,7 @@ import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
 import org.workflowsim.scheduling.RoundRobinSchedulingAlgorithm;
 import org.workflowsim.scheduling.StaticSchedulingAlgorithm;
 import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.ArbitrationPolicy;
 import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
 
 /**
@@ -54,6 +61,15 @@ public class WorkflowScheduler extends DatacenterBroker {
      * The workflow engine id associated with this workflow algorithm.
      */
     private int workflowEngineId;
+    /**
+     * The workflow engine, which knows the workflows
+     */
+    private WorkflowEngine workflowEngine;
+    /**
+     * The scheduling algorithm, created once the vms are, which keeps the
+     * jobs waiting to be scheduled
+     */
+    private BaseSchedulingAlgorithm scheduler;
 
     /**
      * Created a new WorkflowScheduler object.
@@ -88,6 +104,15 @@ public class WorkflowScheduler extends DatacenterBroker {
         this.workflowEngineId = workflowEngineId;
     }
 
+    /**
+     * Sets the workflow engine
+     *
+     * @param workflowEngine the workflow engine
+     */
+    public void setWorkflowEngine(WorkflowEngine workflowEngine) {
+        this.workflowEngine = workflowEngine;
+    }
+
     /**
      * Process an event
      *
@@ -167,6 +192,9 @@ public class WorkflowScheduler extends DatacenterBroker {
             case ROUNDROBIN:
                 algorithm = new RoundRobinSchedulingAlgorithm();
                 break;
+            case DCP:
+                algorithm = new DynamicCriticalPathSchedulingAlgorithm();
+                break;
             default:
                 algorithm = new StaticSchedulingAlgorithm();
                 break;
@@ -176,6 +204,51 @@ public class WorkflowScheduler extends DatacenterBroker {
         return algorithm;
     }
 
+    /**
+     * Switch between multiple arbitration policies. Based on
+     * Parameters.getArbitrationPolicy()
+     *
+     * @param name the ArbitrationPolicy name
+     * @return the policy that extends BaseArbitrationPolicy, null for none
+     */
+    private BaseArbitrationPolicy getArbitrationPolicy(ArbitrationPolicy name) {
+        BaseArbitrationPolicy policy = null;
+        switch (name) {
+            case FAIRSHARE:
+                policy = new FairShareArbitrationPolicy();
+                break;
+            case WEIGHTED:
+                policy = new WeightedFairShareArbitrationPolicy();
+                break;
+            case EDF:
+                policy = new EDFArbitrationPolicy();
+                break;
+            default:
+                policy = null;
+                break;
+        }
+        if (policy != null) {
+            policy.setWorkflowEngine(this.workflowEngine);
+        }
+        return policy;
+    }
+
+    /**
+     * Gets the scheduling algorithm. It is created the first time, with the
+     * created vms and the arbitration policy, and lives as long as this
+     * scheduler.
+     *
+     * @return the scheduling algorithm
+     */
+    private BaseSchedulingAlgorithm getSchedulingAlgorithm() {
+        if (this.scheduler == null) {
+            this.scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
+            this.scheduler.setVmList(getVmsCreatedList());
+            this.scheduler.setArbitrationPolicy(getArbitrationPolicy(Parameters.getArbitrationPolicy()));
+        }
+        return this.scheduler;
+    }
+
     /**
      * Process the ack received due to a request for VM creation.
      *
@@ -243,18 +316,14 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     protected void processCloudletUpdate(SimEvent ev) {
 
-        BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
-        scheduler.setCloudletList(getCloudletList());
-        scheduler.setVmList(getVmsCreatedList());
-
+        List scheduledList = new ArrayList();
         try {
-            scheduler.run();
+            scheduledList = getSchedulingAlgorithm().dispatch();
         } catch (Exception e) {
             Log.printLine("Error in configuring scheduler_method");
             e.printStackTrace();
         }
 
-        List scheduledList = scheduler.getScheduledList();
         for (Iterator it = scheduledList.iterator(); it.hasNext();) {
             Cloudlet cloudlet = (Cloudlet) it.next();
             int vmId = cloudlet.getVmId();
@@ -265,7 +334,6 @@ public class WorkflowScheduler extends DatacenterBroker {
             schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
 
         }
-        getCloudletList().removeAll(scheduledList);
         getCloudletSubmittedList().addAll(scheduledList);
         cloudletsSubmitted += scheduledList.size();
 
@@ -295,6 +363,8 @@ public class WorkflowScheduler extends DatacenterBroker {
         CondorVM vm = (CondorVM) getVmsCreatedList().get(cloudlet.getVmId());
         //so that this resource is released
         vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+        getSchedulingAlgorithm().onJobFinished(cloudlet);
+        getSchedulingAlgorithm().onVmIdle(vm);
 
         double delay = 0.0;
         if(Parameters.getOverheadParams().getPostDelay()!=null){
@@ -376,7 +446,7 @@ public class WorkflowScheduler extends DatacenterBroker {
      */
     protected void processCloudletSubmit(SimEvent ev) {
         List<Job> list = (List) ev.getData();
-        getCloudletList().addAll(list);
+        getSchedulingAlgorithm().onJobsArrived(list);
 
         sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
         if (!processCloudletSubmitHasShown) {
@@ -44,6 +44,16 @@ public class WorkflowSimTags {
     public static final int JOB_SUBMIT = BASE + 1;
     public static final int CLOUDLET_UPDATE = BASE + 5;
     public static final int CLOUDLET_CHECK = BASE + 6;
+    /**
+     * A workflow arrives (sent by a WorkflowArrivalGenerator to itself and
+     * then to the WorkflowPlanner)
+     */
+    public static final int WORKFLOW_ARRIVAL = BASE + 7;
+    /**
+     * A workflow that has arrived has no tasks, e.g. because its DAX could not
+     * be parsed (sent by the WorkflowPlanner to the WorkflowEngine)
+     */
+    public static final int WORKFLOW_EMPTY = BASE + 8;
 
     /**
      * Private Constructor
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.arbitration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.Job;
+import org.workflowsim.Workflow;
+import org.workflowsim.WorkflowEngine;
+
+/**
+ * An arbitration policy decides which workflow the waiting jobs of several
+ * concurrent workflows are taken from, before the scheduling algorithm maps
+ * them to vms. It orders the waiting jobs: the WorkflowScheduler gives the
+ * scheduling algorithm only as many of the first jobs as there are idle vms,
+ * so that a large workflow cannot take all of them.
+ * <p>
+ * The jobs of a workflow stay in the order they are waiting in.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public abstract class BaseArbitrationPolicy {
+
+    /**
+     * The engine that knows the workflows, may be null
+     */
+    private WorkflowEngine workflowEngine;
+
+    /**
+     * Sets the engine that knows the workflows and their weights and
+     * deadlines
+     *
+     * @param engine the workflow engine
+     */
+    public void setWorkflowEngine(WorkflowEngine engine) {
+        this.workflowEngine = engine;
+    }
+
+    /**
+     * Gets a workflow
+     *
+     * @param workflowId the workflow id
+     * @return the workflow, null if the engine does not know it
+     */
+    protected Workflow getWorkflow(int workflowId) {
+        if (workflowEngine == null) {
+            return null;
+        }
+        return workflowEngine.getWorkflow(workflowId);
+    }
+
+    /**
+     * Groups jobs by workflow
+     *
+     * @param list the jobs
+     * @return the jobs of each workflow in the order of the list, the
+     * workflows in the order of their first job
+     */
+    protected static Map<Integer, List<Job>> groupByWorkflow(List<Job> list) {
+        Map<Integer, List<Job>> map = new LinkedHashMap<Integer, List<Job>>();
+        for (Job job : list) {
+            List<Job> jobs = map.get(job.getWorkflowId());
+            if (jobs == null) {
+                jobs = new ArrayList<Job>();
+                map.put(job.getWorkflowId(), jobs);
+            }
+            jobs.add(job);
+        }
+        return map;
+    }
+
+    /**
+     * Orders the waiting jobs
+     *
+     * @param waitingList the waiting jobs
+     * @param runningNum the number of running jobs of each workflow, by
+     * workflow id
+     * @param slotNum the number of idle vms
+     * @return the waiting jobs, the ones to schedule first at the head
+     */
+    public abstract List<Job> order(List<Job> waitingList, Map<Integer, Integer> runningNum, int slotNum);
+}
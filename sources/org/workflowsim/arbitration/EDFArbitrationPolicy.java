@@ -0,0 +1,78 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.arbitration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.Job;
+import org.workflowsim.Workflow;
+
+/**
+ * The earliest deadline first policy. The jobs of the workflow with the
+ * earliest absolute deadline (its arrival time plus Parameters.getDeadline(),
+ * or its own deadline) are taken first. Workflows with the same deadline, and
+ * the jobs of unknown workflows, are taken by workflow id.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class EDFArbitrationPolicy extends BaseArbitrationPolicy {
+
+    /**
+     * Gets the absolute deadline of a workflow
+     *
+     * @param workflowId the workflow id
+     * @return the deadline, infinite if the workflow is unknown
+     */
+    private double getDeadline(int workflowId) {
+        Workflow workflow = getWorkflow(workflowId);
+        if (workflow == null) {
+            return Double.MAX_VALUE;
+        }
+        return workflow.getAbsoluteDeadline();
+    }
+
+    /**
+     * The main function
+     */
+    @Override
+    public List<Job> order(List<Job> waitingList, Map<Integer, Integer> runningNum, int slotNum) {
+        Map<Integer, List<Job>> map = groupByWorkflow(waitingList);
+        List<Integer> workflowIds = new ArrayList<Integer>(map.keySet());
+        final Map<Integer, Double> deadlines = new HashMap<Integer, Double>();
+        for (Integer workflowId : workflowIds) {
+            deadlines.put(workflowId, getDeadline(workflowId));
+        }
+        Collections.sort(workflowIds, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Double.compare(deadlines.get(a), deadlines.get(b));
+                if (c != 0) {
+                    return c;
+                }
+                return a.compareTo(b);
+            }
+        });
+        List<Job> list = new ArrayList<Job>(waitingList.size());
+        for (Integer workflowId : workflowIds) {
+            list.addAll(map.get(workflowId));
+        }
+        return list;
+    }
+}
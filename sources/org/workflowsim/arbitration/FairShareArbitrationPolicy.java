@@ -0,0 +1,98 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.arbitration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.workflowsim.Job;
+
+/**
+ * The fair share policy. Each job in turn is taken from the workflow that has
+ * the fewest jobs running or already taken, so the idle vms are shared evenly
+ * among the workflows that have waiting jobs. Ties go to the workflow with
+ * the smallest id.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class FairShareArbitrationPolicy extends BaseArbitrationPolicy {
+
+    /**
+     * The waiting jobs of a workflow and its share
+     */
+    private static class Share implements Comparable<Share> {
+
+        private final int workflowId;
+        private final List<Job> jobs;
+        private final double weight;
+        private int next;
+        private int taken;
+
+        private Share(int workflowId, List<Job> jobs, double weight, int running) {
+            this.workflowId = workflowId;
+            this.jobs = jobs;
+            this.weight = weight;
+            this.taken = running;
+        }
+
+        private double getShare() {
+            return taken / weight;
+        }
+
+        @Override
+        public int compareTo(Share o) {
+            int c = Double.compare(getShare(), o.getShare());
+            if (c != 0) {
+                return c;
+            }
+            return workflowId < o.workflowId ? -1 : (workflowId == o.workflowId ? 0 : 1);
+        }
+    }
+
+    /**
+     * Gets the weight of a workflow
+     *
+     * @param workflowId the workflow id
+     * @return the weight, the same for all workflows here
+     */
+    protected double getWeight(int workflowId) {
+        return 1.0;
+    }
+
+    /**
+     * The main function
+     */
+    @Override
+    public List<Job> order(List<Job> waitingList, Map<Integer, Integer> runningNum, int slotNum) {
+        PriorityQueue<Share> shares = new PriorityQueue<Share>();
+        for (Map.Entry<Integer, List<Job>> entry : groupByWorkflow(waitingList).entrySet()) {
+            Integer running = runningNum.get(entry.getKey());
+            shares.add(new Share(entry.getKey(), entry.getValue(), getWeight(entry.getKey()),
+                    running == null ? 0 : running));
+        }
+        List<Job> list = new ArrayList<Job>(waitingList.size());
+        while (!shares.isEmpty()) {
+            Share share = shares.poll();
+            list.add(share.jobs.get(share.next++));
+            share.taken++;
+            if (share.next < share.jobs.size()) {
+                shares.add(share);
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.arbitration;
+
+import org.workflowsim.Workflow;
+
+/**
+ * The weighted fair share policy. It is the fair share policy where the jobs
+ * running or taken of a workflow are divided by its weight
+ * (Workflow.setWeight()), so a workflow of weight 2 gets twice as many vms as
+ * a workflow of weight 1.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WeightedFairShareArbitrationPolicy extends FairShareArbitrationPolicy {
+
+    /**
+     * Gets the weight of a workflow
+     *
+     * @param workflowId the workflow id
+     * @return the weight, 1 if the workflow is unknown
+     */
+    @Override
+    protected double getWeight(int workflowId) {
+        Workflow workflow = getWorkflow(workflowId);
+        if (workflow == null) {
+            return 1.0;
+        }
+        return workflow.getWeight();
+    }
+}
@@ -17,9 +17,11 @@ package org.workflowsim.clustering;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.workflowsim.utils.Parameters;
@@ -51,6 +53,10 @@ public class BasicClustering implements ClusteringInterface {
      * All the files.
      */
     private List<org.cloudbus.cloudsim.File> allFileList;
+    /**
+     * The files in allFileList, to find them in constant time.
+     */
+    private Set<org.cloudbus.cloudsim.File> allFileSet;
     /**
      * The root task.
      */
@@ -78,10 +84,22 @@ public class BasicClustering implements ClusteringInterface {
         this.taskList = new ArrayList<Task>();
         this.mTask2Job = new HashMap<Task, Job>();
         this.allFileList = new ArrayList<org.cloudbus.cloudsim.File>();
+        this.allFileSet = new HashSet<org.cloudbus.cloudsim.File>();
         this.idIndex = 0;
         this.root = null;
     }
 
+    /**
+     * Sets the id of the first job. The jobs are numbered from it, so that
+     * the jobs of a workflow arriving later do not reuse the ids of earlier
+     * ones
+     *
+     * @param id the first job id
+     */
+    public final void setFirstJobId(int id) {
+        this.idIndex = id;
+    }
+
     /**
      * Sets the task list
      *
@@ -168,9 +186,16 @@ public class BasicClustering implements ClusteringInterface {
             int userId = 0;
             int priority = 0;
             int depth = 0;
+            int workflowId = 0;
             /// a bug of cloudsim makes it final of input file size and output file size
             Job job = new Job(idIndex, length/*, inputFileSize, outputFileSize*/);
             job.setClassType(ClassType.COMPUTE.value);
+            /**
+             * The files and required files already in the job, to find them
+             * in constant time
+             */
+            Set<org.cloudbus.cloudsim.File> jobFiles = new HashSet<org.cloudbus.cloudsim.File>();
+            Set<String> jobRequiredFiles = new HashSet<String>(job.getRequiredFiles());
             for (Iterator it = taskList.iterator(); it.hasNext();) {
                 Task task = (Task) it.next();
                 length += task.getCloudletLength();
@@ -178,6 +203,7 @@ public class BasicClustering implements ClusteringInterface {
                 userId = task.getUserId();
                 priority = task.getPriority();
                 depth = task.getDepth();
+                workflowId = task.getWorkflowId();
                 List fileList = task.getFileList();
                 job.getTaskList().add(task);
 
@@ -187,17 +213,18 @@ public class BasicClustering implements ClusteringInterface {
 
                     boolean hasFile = false;
 
-                    hasFile = job.getFileList().contains(file);
+                    hasFile = !jobFiles.add(file);
 
                     if (!hasFile) {
 
                         job.getFileList().add(file);
                         if (file.getType() == FileType.INPUT.value) {
                             //for stag-in jobs to be used
-                            if (!this.allFileList.contains(file)) {
+                            if (this.allFileSet.add(file)) {
                                 this.allFileList.add(file);
                             }
                         } else if (file.getType() == FileType.OUTPUT.value) {
+                            this.allFileSet.add(file);
                             this.allFileList.add(file);
                         }
                     }
@@ -205,18 +232,24 @@ public class BasicClustering implements ClusteringInterface {
                 for (Iterator itc = task.getRequiredFiles().iterator(); itc.hasNext();) {
                     String fileName = (String) itc.next();
 
-                    if (!job.getRequiredFiles().contains(fileName)) {
+                    if (jobRequiredFiles.add(fileName)) {
                         job.getRequiredFiles().add(fileName);
                     }
                 }
 
             }
+            /**
+             * The job has all its files, compute its input, output and real
+             * input files once for staging, scheduling and registration
+             */
+            job.updateFileViews();
 
 
             job.setCloudletLength(length);
             job.setUserId(userId);
             job.setDepth(depth);
             job.setPriority(priority);
+            job.setWorkflowId(workflowId);
 
             idIndex++;
             getJobList().add(job);
@@ -21,6 +21,7 @@ import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.apache.commons.math3.distribution.WeibullDistribution;
@@ -42,8 +43,15 @@ public class FailureGenerator {
      * is too high for this workflow
      */
     private static final int maxFailureSizeExtension = 50;
-    private static int failureSizeExtension = 0;
-    private static boolean hasChangeTime = false;
+
+    /**
+     * The number of times the samples have been extended in a simulation,
+     * kept in its SimulationContext
+     */
+    private static class Extensions {
+
+        private int failureSizeExtension = 0;
+    }
     /**
      *
      */
@@ -119,11 +127,16 @@ public class FailureGenerator {
         
         double[] samples = generator.getCumulativeSamples();
         
+        SimulationContext context = SimulationContext.current();
+        Extensions extensions = context.getAttribute(Extensions.class);
+        if (extensions == null) {
+            extensions = context.putAttributeIfAbsent(Extensions.class, new Extensions());
+        }
         while (samples[samples.length - 1] < start) {
             generator.extendSamples();
             samples = generator.getCumulativeSamples();
-            failureSizeExtension++;
-            if (failureSizeExtension >= maxFailureSizeExtension) {
+            extensions.failureSizeExtension++;
+            if (extensions.failureSizeExtension >= maxFailureSizeExtension) {
                 throw new Exception("Error rate is too high such that the simulator terminates");
 
             }
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.Parameters;
 
 /**
@@ -32,34 +33,75 @@ import org.workflowsim.utils.Parameters;
 public class FailureMonitor {
 
     /**
-     * VM ID to a Failure Record. *
+     * The failure records of a simulation, kept in its SimulationContext
      */
-    protected static Map<Integer, ArrayList<FailureRecord>> vm2record;
-    /**
-     * Type to a Failure Record. *
-     */
-    protected static Map<Integer, ArrayList<FailureRecord>> type2record;
+    protected static class Records {
+
+        /**
+         * VM ID to a Failure Record. *
+         */
+        protected Map<Integer, ArrayList<FailureRecord>> vm2record;
+        /**
+         * Type to a Failure Record. *
+         */
+        protected Map<Integer, ArrayList<FailureRecord>> type2record;
+        /**
+         * JobID to a Failure Record. *
+         */
+        protected Map<Integer, FailureRecord> jobid2record;
+        /**
+         * All the record list.
+         */
+        protected List<FailureRecord> recordList;
+        /**
+         * Id to a Job.
+         */
+        protected Map index2job;
+    }
+
     /**
-     * JobID to a Failure Record. *
+     * Gets the failure records of the simulation bound to the current thread
+     *
+     * @return the failure records
      */
-    protected static Map<Integer, FailureRecord> jobid2record;
+    protected static Records records() {
+        SimulationContext context = SimulationContext.current();
+        Records records = context.getAttribute(Records.class);
+        if (records == null) {
+            records = context.putAttributeIfAbsent(Records.class, new Records());
+        }
+        return records;
+    }
+
     /**
-     * All the record list.
+     * Gets the map from id to job of the simulation bound to the current
+     * thread
+     *
+     * @return the map, null if none has been set
      */
-    protected static List<FailureRecord> recordList;
+    public static Map getIndex2Job() {
+        return records().index2job;
+    }
+
     /**
-     * Id to a Job.
+     * Sets the map from id to job of the simulation bound to the current
+     * thread
+     *
+     * @param map the map
      */
-    public static Map index2job;
+    public static void setIndex2Job(Map map) {
+        records().index2job = map;
+    }
 
     /**
      * Initialize a FailureMonitor object.
      */
     public static void init() {
-        vm2record = new HashMap<Integer, ArrayList<FailureRecord>>();
-        type2record = new HashMap<Integer, ArrayList<FailureRecord>>();
-        jobid2record = new HashMap<Integer, FailureRecord>();
-        recordList = new ArrayList<FailureRecord>();
+        Records records = records();
+        records.vm2record = new HashMap<Integer, ArrayList<FailureRecord>>();
+        records.type2record = new HashMap<Integer, ArrayList<FailureRecord>>();
+        records.jobid2record = new HashMap<Integer, FailureRecord>();
+        records.recordList = new ArrayList<FailureRecord>();
 
     }
 
@@ -127,28 +169,29 @@ public class FailureMonitor {
             return;
         }
 
+        Records records = records();
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_VM:
 
-                if (!vm2record.containsKey(record.vmId)) {
-                    vm2record.put(record.vmId, new ArrayList<FailureRecord>());
+                if (!records.vm2record.containsKey(record.vmId)) {
+                    records.vm2record.put(record.vmId, new ArrayList<FailureRecord>());
                 }
-                vm2record.get(record.vmId).add(record);
+                records.vm2record.get(record.vmId).add(record);
 
                 break;
             case MONITOR_JOB:
 
-                if (!type2record.containsKey(record.depth)) {
-                    type2record.put(record.depth, new ArrayList<FailureRecord>());
+                if (!records.type2record.containsKey(record.depth)) {
+                    records.type2record.put(record.depth, new ArrayList<FailureRecord>());
                 }
-                type2record.get(record.depth).add(record);
+                records.type2record.get(record.depth).add(record);
 
                 break;
             case MONITOR_NONE:
                 break;
         }
 
-        recordList.add(record);
+        records.recordList.add(record);
     }
 
     /**
@@ -163,12 +206,13 @@ public class FailureMonitor {
         /**
          * workflow level : all jobs together *
          */
+        Records records = records();
         int sumFailures = 0;
         int sumJobs = 0;
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_ALL:
 
-                for (FailureRecord record : recordList) {
+                for (FailureRecord record : records.recordList) {
                     sumFailures += record.failedTasksNum;
                     sumJobs += record.allTaskNum;
                 }
@@ -177,8 +221,8 @@ public class FailureMonitor {
 
             case MONITOR_JOB:
 
-                if (type2record.containsKey(type)) {
-                    for (FailureRecord record : type2record.get(type)) {
+                if (records.type2record.containsKey(type)) {
+                    for (FailureRecord record : records.type2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -188,8 +232,8 @@ public class FailureMonitor {
                 break;
             case MONITOR_VM:
 
-                if (vm2record.containsKey(type)) {
-                    for (FailureRecord record : vm2record.get(type)) {
+                if (records.vm2record.containsKey(type)) {
+                    for (FailureRecord record : records.vm2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -18,6 +18,7 @@
 package org.workflowsim.failure;
 
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.DistributionGenerator;
 import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
 
@@ -27,15 +28,6 @@ import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
  */
 public class FailureParameters {
 
-    /**
-     * Task Failure Rate 
-     * first index is vmId ;second index is task depth
-     * If FAILURE_JOB is specified first index is 0 only
-     * If FAILURE_VM is specified second index is 0 only
-     *
-     * @pre 0.0<= value <= 1.0
-     */
-    private static DistributionGenerator[][] generators;
     /**
      * Fault Tolerant Clustering algorithm
      */
@@ -62,27 +54,57 @@ public class FailureParameters {
     }
 
     /**
-     * Fault Tolerant Clustering method
-     */
-    private static FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
-    /**
-     * Fault Tolerant Clustering monitor mode
-     */
-    private static FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
-    /**
-     * Fault Tolerant Clustering failure generation mode
-     */
-    private static FTCFailure failureMode = FTCFailure.FAILURE_NONE;
-    
-    /**
-     * The distribution of the failure 
+     * The failure parameters of a simulation, kept in its SimulationContext
      */
-    private static DistributionFamily distribution = DistributionFamily.WEIBULL;
+    private static class Settings {
+
+        /**
+         * Task Failure Rate 
+         * first index is vmId ;second index is task depth
+         * If FAILURE_JOB is specified first index is 0 only
+         * If FAILURE_VM is specified second index is 0 only
+         *
+         * @pre 0.0<= value <= 1.0
+         */
+        private DistributionGenerator[][] generators;
+        /**
+         * Fault Tolerant Clustering method
+         */
+        private FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
+        /**
+         * Fault Tolerant Clustering monitor mode
+         */
+        private FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
+        /**
+         * Fault Tolerant Clustering failure generation mode
+         */
+        private FTCFailure failureMode = FTCFailure.FAILURE_NONE;
+
+        /**
+         * The distribution of the failure 
+         */
+        private DistributionFamily distribution = DistributionFamily.WEIBULL;
+    }
     /**
      * Invalid return value
      */
     private static int INVALID = -1;
 
+    /**
+     * Gets the failure parameters of the simulation bound to the current
+     * thread
+     *
+     * @return the failure parameters
+     */
+    private static Settings settings() {
+        SimulationContext context = SimulationContext.current();
+        Settings settings = context.getAttribute(Settings.class);
+        if (settings == null) {
+            settings = context.putAttributeIfAbsent(Settings.class, new Settings());
+        }
+        return settings;
+    }
+
     /**
      * 
      *  Init a FailureParameters
@@ -95,10 +117,11 @@ public class FailureParameters {
      */
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators) {
-        FTClusteringAlgorithm = fMethod;
-        monitorMode = monitor;
-        failureMode = failure;
-        generators = failureGenerators;
+        Settings settings = settings();
+        settings.FTClusteringAlgorithm = fMethod;
+        settings.monitorMode = monitor;
+        settings.failureMode = failure;
+        settings.generators = failureGenerators;
     }
 
     /**
@@ -109,7 +132,7 @@ public class FailureParameters {
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators, 
             DistributionFamily dist) {
-        distribution = dist;
+        settings().distribution = dist;
         init(fMethod, monitor, failure, failureGenerators);
     }
     /**
@@ -120,10 +143,10 @@ public class FailureParameters {
      * @post $none
      */
     public static DistributionGenerator[][] getFailureGenerators() {
-        if(generators==null){
+        if(settings().generators==null){
             Log.printLine("ERROR: alpha is not initialized");
         }
-        return generators;
+        return settings().generators;
     }
     
     /**
@@ -131,6 +154,7 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxFirstIndex(){
+        DistributionGenerator[][] generators = settings().generators;
         if(generators==null || generators.length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
@@ -145,6 +169,7 @@ public class FailureParameters {
     public static int getFailureGeneratorsMaxSecondIndex(){
         //Test whether it is valid
         getFailureGeneratorsMaxFirstIndex();
+        DistributionGenerator[][] generators = settings().generators;
         if(generators[0]==null || generators[0].length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
@@ -160,7 +185,7 @@ public class FailureParameters {
      * @return task failure rate
      */
     public static DistributionGenerator getGenerator(int vmIndex, int taskDepth) {
-        return generators[vmIndex][taskDepth];
+        return settings().generators[vmIndex][taskDepth];
     }
     
     /**
@@ -171,7 +196,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCFailure getFailureGeneratorMode() {
-        return failureMode;
+        return settings().failureMode;
     }
 
     /**
@@ -182,7 +207,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCMonitor getMonitorMode() {
-        return monitorMode;
+        return settings().monitorMode;
     }
 
     /**
@@ -193,7 +218,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCluteringAlgorithm getFTCluteringAlgorithm() {
-        return FTClusteringAlgorithm;
+        return settings().FTClusteringAlgorithm;
     }
     
     /**
@@ -201,6 +226,6 @@ public class FailureParameters {
      * @return distribution
      */
     public static DistributionFamily getFailureDistribution(){
-        return distribution;
+        return settings().distribution;
     }
 }
@@ -21,6 +21,7 @@ import java.util.List;
 import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.Task;
+import org.workflowsim.utils.FileSymbolTable;
 import org.workflowsim.utils.Parameters;
 
 /**
@@ -87,16 +88,12 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
                 int parentIndex = 0;
                 for(Task parent: task.getParentList()){
                     long fileSize = 0;
+                    int[] outputFileIds = parent.getOutputFileIds();
                     for(Iterator fileIter = task.getFileList().iterator(); fileIter.hasNext();){
                         File file = (File)fileIter.next();
                         if(file.getType()==Parameters.FileType.INPUT.value){
-                            for(Iterator fileIter2 = parent.getFileList().iterator();fileIter2.hasNext();){
-                                File file2 = (File)fileIter2.next();
-                                if(file2.getType() == Parameters.FileType.OUTPUT.value && file2.getName().equals(file.getName()))
-                                {
-                                    fileSize += file.getSize();
-                                }
-                            }
+                            fileSize += (long) file.getSize()
+                                    * FileSymbolTable.count(outputFileIds, FileSymbolTable.getId(file));
                         }
                     }
                     fileSizes[parentIndex] = fileSize;
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+/**
+ * GapTree indexes the idle periods (gaps) of the schedule of one vm, so that
+ * the earliest slot of a task is found in O(log n) instead of scanning the
+ * scheduled tasks. The gaps between scheduled tasks are kept in a treap
+ * ordered by start time, where each node knows the longest gap of its
+ * subtree; the idle period after the last task is kept apart.
+ * <p>
+ * The slots are the same as the ones HEFTPlanningAlgorithm finds: the
+ * earliest start, not before the ready time, where the task fits.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+class GapTree {
+
+    /**
+     * A gap, from start to end
+     */
+    private static final class Gap {
+
+        private final double start;
+        private final double end;
+        private final long seq;
+        private final int priority;
+        private Gap left;
+        private Gap right;
+        private double maxLength;
+
+        private Gap(double start, double end, long seq, int priority) {
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.priority = priority;
+            this.maxLength = end - start;
+        }
+
+        private double length() {
+            return end - start;
+        }
+
+        private boolean before(Gap o) {
+            if (start != o.start) {
+                return start < o.start;
+            }
+            if (end != o.end) {
+                return end < o.end;
+            }
+            return seq < o.seq;
+        }
+    }
+    /**
+     * The gaps between scheduled tasks
+     */
+    private Gap root;
+    /**
+     * The end of the last scheduled task, the vm is idle after it
+     */
+    private double tailStart;
+    /**
+     * The gap the last slot found is in, null for the idle period after the
+     * last task
+     */
+    private Gap slotGap;
+    /**
+     * The number of gaps created, which orders gaps that are equal
+     */
+    private long gapNum;
+    /**
+     * The state of the generator of the priorities, fixed so that the tree
+     * has the same shape from one run to another
+     */
+    private int seed;
+
+    /**
+     * Creates the index of an empty schedule
+     */
+    GapTree() {
+        this.tailStart = Double.NEGATIVE_INFINITY;
+        this.seed = 0x2545F491;
+    }
+
+    /**
+     * Finds the earliest start of a task
+     *
+     * @param readyTime the first moment the task can start
+     * @param cost the computation cost of the task
+     * @return the start time
+     */
+    double findStart(double readyTime, double cost) {
+        if (readyTime >= tailStart) {
+            slotGap = null;
+            return readyTime;
+        }
+        Gap floor = floor(readyTime);
+        if (floor != null && readyTime + cost <= floor.end) {
+            slotGap = floor;
+            return readyTime;
+        }
+        Gap gap = findAfter(root, readyTime, cost);
+        if (gap != null) {
+            slotGap = gap;
+            return gap.start;
+        }
+        slotGap = null;
+        return tailStart;
+    }
+
+    /**
+     * Reserves the slot found by the last call to findStart()
+     *
+     * @param start the start time it returned
+     * @param finish the finish time of the task
+     */
+    void occupy(double start, double finish) {
+        if (slotGap == null) {
+            insert(tailStart, start);
+            tailStart = finish;
+        } else {
+            Gap gap = slotGap;
+            root = delete(root, gap);
+            insert(gap.start, start);
+            insert(finish, gap.end);
+        }
+        slotGap = null;
+    }
+
+    /**
+     * Gets the gap with the greatest start not after a time, and the greatest
+     * end among the ones with this start
+     */
+    private Gap floor(double time) {
+        Gap floor = null;
+        Gap node = root;
+        while (node != null) {
+            if (node.start <= time) {
+                floor = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Gets the first gap that starts after a time and is long enough
+     */
+    private static Gap findAfter(Gap node, double time, double cost) {
+        if (node == null || node.maxLength < cost) {
+            return null;
+        }
+        if (node.start > time) {
+            Gap gap = findAfter(node.left, time, cost);
+            if (gap != null) {
+                return gap;
+            }
+            if (node.length() >= cost) {
+                return node;
+            }
+            return findFirst(node.right, cost);
+        }
+        return findAfter(node.right, time, cost);
+    }
+
+    /**
+     * Gets the first gap of a subtree that is long enough
+     */
+    private static Gap findFirst(Gap node, double cost) {
+        while (node != null && node.maxLength >= cost) {
+            if (node.left != null && node.left.maxLength >= cost) {
+                node = node.left;
+            } else if (node.length() >= cost) {
+                return node;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    private void insert(double start, double end) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        root = insert(root, new Gap(start, end, gapNum++, seed));
+    }
+
+    private static Gap insert(Gap node, Gap gap) {
+        if (node == null) {
+            return gap;
+        }
+        if (gap.before(node)) {
+            node.left = insert(node.left, gap);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, gap);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Gap delete(Gap node, Gap gap) {
+        if (node == null) {
+            return null;
+        }
+        if (node == gap) {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = delete(node.right, gap);
+            } else {
+                node = rotateLeft(node);
+                node.left = delete(node.left, gap);
+            }
+        } else if (gap.before(node)) {
+            node.left = delete(node.left, gap);
+        } else {
+            node.right = delete(node.right, gap);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Gap rotateRight(Gap node) {
+        Gap left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Gap rotateLeft(Gap node) {
+        Gap right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Gap node) {
+        double max = node.length();
+        if (node.left != null && node.left.maxLength > max) {
+            max = node.left.maxLength;
+        }
+        if (node.right != null && node.right.maxLength > max) {
+            max = node.right.maxLength;
+        }
+        node.maxLength = max;
+    }
+}
@@ -20,8 +20,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.cloudbus.cloudsim.Consts;
-import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Task;
@@ -29,6 +30,12 @@ import org.workflowsim.utils.Parameters;
 
 /**
  * The HEFT planning algorithm.
+ * <p>
+ * The candidate vms of a task are evaluated concurrently on a fork-join pool
+ * if Parameters.getPlanningParallelism() is more than 1. Among the vms with
+ * the earliest finish time, the one with the smallest id is chosen, and tasks
+ * of the same rank are allocated in the order of their ids, so the plan does
+ * not depend on the number of threads.
  *
  * @author Pedro Paulo Vezzá Campos
  * @date Oct 12, 2013
@@ -41,6 +48,15 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     private Map<CondorVM, List<Event>> schedules;
     private Map<Task, Double> earliestFinishTimes;
     private double averageBandwidth;
+    /**
+     * The vms, in the order of the vm list
+     */
+    private CondorVM[] vms;
+    /**
+     * The pool the vms are evaluated on, null to evaluate them in the
+     * planner thread
+     */
+    private ForkJoinPool pool;
 
     private class Event {
 
@@ -63,9 +79,53 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
             this.rank = rank;
         }
 
+        /**
+         * Orders by non-ascending rank, and tasks of the same rank by id, so
+         * the plan does not depend on the hash codes of the tasks
+         */
         @Override
         public int compareTo(TaskRank o) {
-            return o.rank.compareTo(rank);
+            int order = o.rank.compareTo(rank);
+            if (order == 0) {
+                order = Integer.compare(task.getCloudletId(), o.task.getCloudletId());
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Evaluates the vms of a range of the vm list for a task, splitting the
+     * range among the threads of the pool
+     */
+    private class VmEvaluation extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final Task task;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final double[] readyTimes;
+        private final double[] finishTimes;
+
+        VmEvaluation(Task task, int from, int to, int grain,
+                double[] readyTimes, double[] finishTimes) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.readyTimes = readyTimes;
+            this.finishTimes = finishTimes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                evaluateVms(task, from, to, readyTimes, finishTimes);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new VmEvaluation(task, from, middle, grain, readyTimes, finishTimes),
+                    new VmEvaluation(task, middle, to, grain, readyTimes, finishTimes));
         }
     }
 
@@ -87,9 +147,12 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
         averageBandwidth = calculateAverageBandwidth();
 
+        vms = new CondorVM[getVmList().size()];
+        int i = 0;
         for (Object vmObject : getVmList()) {
             CondorVM vm = (CondorVM) vmObject;
             schedules.put(vm, new ArrayList<Event>());
+            vms[i++] = vm;
         }
 
         // Prioritization phase
@@ -98,7 +161,18 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
         calculateRanks();
 
         // Selection phase
-        allocateTasks();
+        int parallelism = Parameters.getPlanningParallelism();
+        if (parallelism > 1 && vms.length > 1) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        try {
+            allocateTasks();
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
     }
 
     /**
@@ -175,24 +249,8 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * @return Transfer cost in seconds
      */
     private double calculateTransferCost(Task parent, Task child) {
-        List<File> parentFiles = (List<File>) parent.getFileList();
-        List<File> childFiles = (List<File>) child.getFileList();
-
-        double acc = 0.0;
-
-        for (File parentFile : parentFiles) {
-            if (parentFile.getType() != Parameters.FileType.OUTPUT.value) {
-                continue;
-            }
-
-            for (File childFile : childFiles) {
-                if (childFile.getType() == Parameters.FileType.INPUT.value
-                        && childFile.getName().equals(parentFile.getName())) {
-                    acc += childFile.getSize();
-                    break;
-                }
-            }
-        }
+        // merge join of the sorted output file ids of parent and input file ids of child
+        double acc = child.getInputSizeFrom(parent);
 
         //file Size is in Bytes, acc in MB
         acc = acc / Consts.MILLION;
@@ -224,11 +282,16 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
         double averageComputationCost = 0.0;
 
-        for (Double cost : computationCosts.get(task).values()) {
-            averageComputationCost += cost;
+        /**
+         * Sums the costs in the order of the vm list, since the rounding of
+         * the sum depends on the order
+         */
+        Map<CondorVM, Double> costs = computationCosts.get(task);
+        for (CondorVM vm : vms) {
+            averageComputationCost += costs.get(vm);
         }
 
-        averageComputationCost /= computationCosts.get(task).size();
+        averageComputationCost /= costs.size();
 
         double max = 0.0;
         for (Task child : task.getChildList()) {
@@ -267,13 +330,49 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * @pre All parent tasks are already scheduled
      */
     private void allocateTask(Task task) {
+        double[] readyTimes = new double[vms.length];
+        double[] finishTimes = new double[vms.length];
+        if (pool == null) {
+            evaluateVms(task, 0, vms.length, readyTimes, finishTimes);
+        } else {
+            int grain = Math.max(1, vms.length / (4 * pool.getParallelism()));
+            pool.invoke(new VmEvaluation(task, 0, vms.length, grain, readyTimes, finishTimes));
+        }
+
         CondorVM chosenVM = null;
         double earliestFinishTime = Double.MAX_VALUE;
         double bestReadyTime = 0.0;
-        double finishTime;
 
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
+        for (int i = 0; i < vms.length; i++) {
+            if (finishTimes[i] < earliestFinishTime
+                    || (chosenVM != null && finishTimes[i] == earliestFinishTime
+                    && vms[i].getId() < chosenVM.getId())) {
+                bestReadyTime = readyTimes[i];
+                earliestFinishTime = finishTimes[i];
+                chosenVM = vms[i];
+            }
+        }
+
+        findFinishTime(task, chosenVM, bestReadyTime, true);
+        earliestFinishTimes.put(task, earliestFinishTime);
+
+        task.setVmId(chosenVM.getId());
+    }
+
+    /**
+     * Computes the ready time and the earliest finish time of a task in the
+     * vms of a range of the vm list, without reserving any slot
+     *
+     * @param task The task to be scheduled
+     * @param from The first vm of the range
+     * @param to The vm after the last one of the range
+     * @param readyTimes The ready times, by position in the vm list
+     * @param finishTimes The finish times, by position in the vm list
+     */
+    private void evaluateVms(Task task, int from, int to, double[] readyTimes,
+            double[] finishTimes) {
+        for (int i = from; i < to; i++) {
+            CondorVM vm = vms[i];
             double minReadyTime = 0.0;
 
             for (Task parent : task.getParentList()) {
@@ -285,19 +384,9 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
                 minReadyTime = Math.max(minReadyTime, readyTime);
             }
 
-            finishTime = findFinishTime(task, vm, minReadyTime, false);
-
-            if (finishTime < earliestFinishTime) {
-                bestReadyTime = minReadyTime;
-                earliestFinishTime = finishTime;
-                chosenVM = vm;
-            }
+            readyTimes[i] = minReadyTime;
+            finishTimes[i] = findFinishTime(task, vm, minReadyTime, false);
         }
-
-        findFinishTime(task, chosenVM, bestReadyTime, true);
-        earliestFinishTimes.put(task, earliestFinishTime);
-
-        task.setVmId(chosenVM.getId());
     }
 
     /**
@@ -0,0 +1,307 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+
+/**
+ * The HEFT planning algorithm for large workflows. It makes the same choices
+ * as HEFTPlanningAlgorithm, but:
+ * <ul>
+ * <li>the tasks are numbered by their position in the task list, and the
+ * edges are stored as arrays (compressed sparse rows) of the children and of
+ * the parents of each task with their transfer costs, instead of a matrix
+ * of all the pairs of tasks;</li>
+ * <li>the ranks are computed in one pass over the tasks in reverse
+ * topological order, without recursion;</li>
+ * <li>the earliest slot of a task on a vm is found with a GapTree, which
+ * indexes the idle periods of the vm, instead of scanning its schedule.</li>
+ * </ul>
+ * Tasks of equal rank are allocated in topological order, so that a task is
+ * always allocated after its parents.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ScalableHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
+
+    /**
+     * The tasks and vms, by ordinal
+     */
+    private Task[] tasks;
+    private CondorVM[] vms;
+    /**
+     * The children of task i are childIndex[childStart[i]] to
+     * childIndex[childStart[i + 1] - 1], with the cost of transferring the
+     * files in childCost
+     */
+    private int[] childStart;
+    private int[] childIndex;
+    private double[] childCost;
+    /**
+     * The parents of each task, the same way
+     */
+    private int[] parentStart;
+    private int[] parentIndex;
+    private double[] parentCost;
+    /**
+     * The tasks in topological order
+     */
+    private int[] order;
+    private double[] rank;
+    private double[] earliestFinishTimes;
+    /**
+     * The vm each task is allocated to, by ordinal
+     */
+    private int[] allocatedVm;
+    private GapTree[] schedules;
+    private double averageBandwidth;
+
+    /**
+     * The main function
+     */
+    @Override
+    public void run() {
+        Log.printLine("Scalable HEFT planner running with " + getTaskList().size()
+                + " tasks.");
+
+        int vmNum = getVmList().size();
+        vms = new CondorVM[vmNum];
+        schedules = new GapTree[vmNum];
+        averageBandwidth = 0.0;
+        for (int i = 0; i < vmNum; i++) {
+            vms[i] = (CondorVM) getVmList().get(i);
+            schedules[i] = new GapTree();
+            averageBandwidth += vms[i].getBw();
+        }
+        averageBandwidth /= vmNum;
+
+        // Prioritization phase
+        buildEdges();
+        sortTopologically();
+        calculateRanks();
+
+        // Selection phase
+        allocateTasks();
+    }
+
+    /**
+     * Numbers the tasks and builds the child and parent arrays with the
+     * transfer costs of the edges, in O(V + E)
+     */
+    private void buildEdges() {
+        int taskNum = getTaskList().size();
+        tasks = new Task[taskNum];
+        Map<Task, Integer> ordinals = new HashMap<Task, Integer>(taskNum * 2);
+        for (int i = 0; i < taskNum; i++) {
+            tasks[i] = (Task) getTaskList().get(i);
+            ordinals.put(tasks[i], i);
+        }
+
+        childStart = new int[taskNum + 1];
+        parentStart = new int[taskNum + 1];
+        int edgeNum = 0;
+        for (int i = 0; i < taskNum; i++) {
+            for (Task child : tasks[i].getChildList()) {
+                Integer j = ordinals.get(child);
+                if (j != null) {
+                    childStart[i + 1]++;
+                    parentStart[j + 1]++;
+                    edgeNum++;
+                }
+            }
+        }
+        for (int i = 0; i < taskNum; i++) {
+            childStart[i + 1] += childStart[i];
+            parentStart[i + 1] += parentStart[i];
+        }
+
+        childIndex = new int[edgeNum];
+        childCost = new double[edgeNum];
+        parentIndex = new int[edgeNum];
+        parentCost = new double[edgeNum];
+        int[] parentNext = Arrays.copyOf(parentStart, taskNum);
+        for (int i = 0; i < taskNum; i++) {
+            int next = childStart[i];
+            for (Task child : tasks[i].getChildList()) {
+                Integer j = ordinals.get(child);
+                if (j == null) {
+                    continue;
+                }
+                double cost = calculateTransferCost(tasks[i], child);
+                childIndex[next] = j;
+                childCost[next++] = cost;
+                parentIndex[parentNext[j]] = i;
+                parentCost[parentNext[j]++] = cost;
+            }
+        }
+    }
+
+    /**
+     * Accounts the time in seconds necessary to transfer all files described
+     * between parent and child
+     *
+     * @param parent
+     * @param child
+     * @return Transfer cost in seconds
+     */
+    private double calculateTransferCost(Task parent, Task child) {
+        double acc = child.getInputSizeFrom(parent);
+
+        //file Size is in Bytes, acc in MB
+        acc = acc / Consts.MILLION;
+        // acc in MB, averageBandwidth in Mb/s
+        return acc * 8 / averageBandwidth;
+    }
+
+    /**
+     * Sorts the tasks topologically (Kahn's algorithm), keeping the order of
+     * the task list among the tasks that are ready at the same time
+     */
+    private void sortTopologically() {
+        int taskNum = tasks.length;
+        int[] remaining = new int[taskNum];
+        order = new int[taskNum];
+        int tail = 0;
+        for (int i = 0; i < taskNum; i++) {
+            remaining[i] = parentStart[i + 1] - parentStart[i];
+            if (remaining[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int i = order[head];
+            for (int e = childStart[i]; e < childStart[i + 1]; e++) {
+                int j = childIndex[e];
+                if (--remaining[j] == 0) {
+                    order[tail++] = j;
+                }
+            }
+        }
+        if (tail < taskNum) {
+            throw new IllegalStateException("The workflow has a cycle");
+        }
+    }
+
+    /**
+     * Computes the rank of every task as defined in the HEFT paper, visiting
+     * the tasks in reverse topological order so that the children are ranked
+     * first
+     */
+    private void calculateRanks() {
+        rank = new double[tasks.length];
+        for (int k = order.length - 1; k >= 0; k--) {
+            int i = order[k];
+            double averageComputationCost = 0.0;
+            for (CondorVM vm : vms) {
+                averageComputationCost += getComputationCost(tasks[i], vm);
+            }
+            averageComputationCost /= vms.length;
+
+            double max = 0.0;
+            for (int e = childStart[i]; e < childStart[i + 1]; e++) {
+                max = Math.max(max, childCost[e] + rank[childIndex[e]]);
+            }
+            rank[i] = averageComputationCost + max;
+        }
+    }
+
+    /**
+     * Gets the time in seconds to compute a task in a vm
+     */
+    private static double getComputationCost(Task task, CondorVM vm) {
+        if (vm.getNumberOfPes() < task.getNumberOfPes()) {
+            return Double.MAX_VALUE;
+        }
+        return task.getCloudletTotalLength() / vm.getMips();
+    }
+
+    /**
+     * Allocates all tasks in non-ascending order of rank, and in topological
+     * order among equal ranks
+     */
+    private void allocateTasks() {
+        int taskNum = tasks.length;
+        final int[] position = new int[taskNum];
+        Integer[] sorted = new Integer[taskNum];
+        for (int k = 0; k < taskNum; k++) {
+            position[order[k]] = k;
+            sorted[k] = order[k];
+        }
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Double.compare(rank[b], rank[a]);
+                return c != 0 ? c : position[a] - position[b];
+            }
+        });
+
+        earliestFinishTimes = new double[taskNum];
+        allocatedVm = new int[taskNum];
+        for (Integer i : sorted) {
+            allocateTask(i);
+        }
+    }
+
+    /**
+     * Schedules the task given in one of the VMs minimizing the earliest finish
+     * time
+     *
+     * @param i The ordinal of the task to be scheduled
+     * @pre All parent tasks are already scheduled
+     */
+    private void allocateTask(int i) {
+        Task task = tasks[i];
+        int chosen = 0;
+        double earliestFinishTime = Double.MAX_VALUE;
+        double bestReadyTime = 0.0;
+
+        for (int v = 0; v < vms.length; v++) {
+            double minReadyTime = 0.0;
+            for (int e = parentStart[i]; e < parentStart[i + 1]; e++) {
+                int parent = parentIndex[e];
+                double readyTime = earliestFinishTimes[parent];
+                if (allocatedVm[parent] != v) {
+                    readyTime += parentCost[e];
+                }
+                minReadyTime = Math.max(minReadyTime, readyTime);
+            }
+
+            double computationCost = getComputationCost(task, vms[v]);
+            double start = schedules[v].findStart(minReadyTime, computationCost);
+            double finishTime = start + computationCost;
+            if (finishTime < earliestFinishTime) {
+                bestReadyTime = minReadyTime;
+                earliestFinishTime = finishTime;
+                chosen = v;
+            }
+        }
+
+        GapTree schedule = schedules[chosen];
+        double start = schedule.findStart(bestReadyTime, getComputationCost(task, vms[chosen]));
+        schedule.occupy(start, earliestFinishTime);
+        earliestFinishTimes[i] = earliestFinishTime;
+        allocatedVm[i] = chosen;
+
+        task.setVmId(vms[chosen].getId());
+    }
+}
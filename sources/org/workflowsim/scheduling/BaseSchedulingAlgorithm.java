@@ -16,13 +16,25 @@
 package org.workflowsim.scheduling;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.arbitration.BaseArbitrationPolicy;
 
 /**
  * The base scheduler has implemented the basic features. Every other scheduling method
  * should extend from BaseSchedulingAlgorithm but should not directly use it. 
+ * <p>
+ * A scheduler lives as long as its WorkflowScheduler: it is told when jobs
+ * arrive, when vms become idle and when jobs finish, and keeps the waiting
+ * jobs itself. By default dispatch() runs the algorithm over all the waiting
+ * jobs; an algorithm can override the callbacks to keep its own queues.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -42,12 +54,44 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * the scheduled job list.
      */
     private List< Cloudlet> scheduledList;
+    /**
+     * the jobs waiting to be scheduled, in the order they have arrived.
+     */
+    private List<Cloudlet> waitingList;
+    /**
+     * the arbitration between concurrent workflows, null if none.
+     */
+    private BaseArbitrationPolicy arbitrationPolicy;
+    /**
+     * the number of scheduled jobs that have not finished, by workflow id.
+     */
+    private Map<Integer, Integer> runningNum;
 
     /**
      * Initialize a BaseSchedulingAlgorithm
      */
     public BaseSchedulingAlgorithm() {
         this.scheduledList = new ArrayList();
+        this.waitingList = new ArrayList<Cloudlet>();
+        this.runningNum = new HashMap<Integer, Integer>();
+    }
+
+    /**
+     * Sets the arbitration between the jobs of concurrent workflows.
+     *
+     * @param policy the policy, null if none
+     */
+    public void setArbitrationPolicy(BaseArbitrationPolicy policy) {
+        this.arbitrationPolicy = policy;
+    }
+
+    /**
+     * Gets the arbitration between the jobs of concurrent workflows.
+     *
+     * @return the policy, null if none
+     */
+    public BaseArbitrationPolicy getArbitrationPolicy() {
+        return this.arbitrationPolicy;
     }
 
     /**
@@ -90,11 +134,133 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
         return this.vmList;
     }
 
+    /**
+     * Gets the index of the idle vms of the vm list, ordered by mips. It is
+     * kept up to date when the state of a vm changes.
+     *
+     * @return the index
+     */
+    protected IdleVmIndex getIdleVmIndex() {
+        return IdleVmIndex.of(getVmList());
+    }
+
     /**
      * The main function
      */
     public abstract void run() throws Exception;
 
+    /**
+     * Tells whether the jobs are already bound to their vms, so that the
+     * arbitration must not hold back any of them.
+     *
+     * @return false by default
+     */
+    protected boolean hasBoundJobs() {
+        return false;
+    }
+
+    /**
+     * Adds jobs to the waiting ones.
+     *
+     * @param list the jobs
+     */
+    @Override
+    public void onJobsArrived(List list) {
+        this.waitingList.addAll(list);
+    }
+
+    /**
+     * Tells that a vm has become idle. The index of the idle vms has already
+     * been updated by CondorVM.setState().
+     *
+     * @param vm the vm
+     */
+    @Override
+    public void onVmIdle(CondorVM vm) {
+    }
+
+    /**
+     * Tells that a job has returned from its vm.
+     *
+     * @param cloudlet the job
+     */
+    @Override
+    public void onJobFinished(Cloudlet cloudlet) {
+        if (this.arbitrationPolicy != null) {
+            addRunning(cloudlet, -1);
+        }
+    }
+
+    /**
+     * Runs the algorithm over the waiting jobs, or over the ones picked by
+     * the arbitration policy, one per idle vm. The scheduled jobs are removed
+     * from the waiting ones in a single pass.
+     *
+     * @return the scheduled jobs
+     * @throws Exception the exception of the algorithm
+     */
+    @Override
+    public List dispatch() throws Exception {
+        this.scheduledList.clear();
+        IdleVmIndex idleVms = getIdleVmIndex();
+        if (this.waitingList.isEmpty() || idleVms.isEmpty()) {
+            return new ArrayList<Cloudlet>();
+        }
+        List list = this.waitingList;
+        if (this.arbitrationPolicy != null) {
+            int slotNum = idleVms.size();
+            list = this.arbitrationPolicy.order((List<Job>) list, this.runningNum, slotNum);
+            if (!hasBoundJobs() && slotNum < list.size()) {
+                list = new ArrayList(list.subList(0, slotNum));
+            }
+        }
+        setCloudletList(list);
+        run();
+        List<Cloudlet> scheduled = new ArrayList<Cloudlet>(this.scheduledList);
+        removeWaiting(scheduled);
+        if (this.arbitrationPolicy != null) {
+            for (Cloudlet cloudlet : scheduled) {
+                addRunning(cloudlet, 1);
+            }
+        }
+        return scheduled;
+    }
+
+    /**
+     * Removes jobs from the waiting ones, keeping the order of the others.
+     *
+     * @param list the jobs
+     */
+    private void removeWaiting(List<Cloudlet> list) {
+        if (list.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = new HashSet<Integer>();
+        for (Cloudlet cloudlet : list) {
+            ids.add(cloudlet.getCloudletId());
+        }
+        int kept = 0;
+        for (int i = 0; i < this.waitingList.size(); i++) {
+            Cloudlet cloudlet = this.waitingList.get(i);
+            if (!ids.contains(cloudlet.getCloudletId())) {
+                this.waitingList.set(kept++, cloudlet);
+            }
+        }
+        this.waitingList.subList(kept, this.waitingList.size()).clear();
+    }
+
+    /**
+     * Updates the number of running jobs of the workflow of a job.
+     *
+     * @param cloudlet the job
+     * @param delta the change
+     */
+    private void addRunning(Cloudlet cloudlet, int delta) {
+        int workflowId = ((Job) cloudlet).getWorkflowId();
+        Integer num = this.runningNum.get(workflowId);
+        this.runningNum.put(workflowId, (num == null ? 0 : num) + delta);
+    }
+
     /**
      * Gets the scheduled job list
      *
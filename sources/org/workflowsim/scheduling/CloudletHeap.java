@@ -0,0 +1,80 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * CloudletHeap orders the pending cloudlets by length, the shortest or the
+ * longest first. Cloudlets of the same length come in the order of the list,
+ * as when the list is scanned for the first shortest or longest one.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class CloudletHeap extends IndexedHeap {
+
+    /**
+     * The cloudlets
+     */
+    private final List<? extends Cloudlet> list;
+    /**
+     * The lengths of the cloudlets, by position in the list
+     */
+    private final long[] lengths;
+    /**
+     * Whether the longest cloudlet comes first
+     */
+    private final boolean longestFirst;
+
+    /**
+     * Creates a heap of all the cloudlets of a list, in O(n)
+     *
+     * @param list the cloudlets
+     * @param longestFirst whether the longest cloudlet comes first, or else
+     * the shortest one
+     */
+    public CloudletHeap(List<? extends Cloudlet> list, boolean longestFirst) {
+        super(list.size());
+        this.list = list;
+        this.longestFirst = longestFirst;
+        this.lengths = new long[list.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = list.get(i).getCloudletLength();
+        }
+        addAllItems();
+    }
+
+    @Override
+    protected boolean before(int a, int b) {
+        if (lengths[a] != lengths[b]) {
+            return longestFirst ? lengths[a] > lengths[b] : lengths[a] < lengths[b];
+        }
+        return a < b;
+    }
+
+    /**
+     * Removes the first cloudlet
+     *
+     * @return the shortest or longest cloudlet, null if there is none
+     */
+    public Cloudlet poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        return list.get(pollItem());
+    }
+}
@@ -23,7 +23,7 @@ import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Job;
 import org.workflowsim.WorkflowSimTags;
-import org.workflowsim.utils.Parameters.FileType;
+import org.workflowsim.utils.FileSymbolTable;
 import org.workflowsim.utils.ReplicaCatalog;
 
 /**
@@ -86,34 +86,6 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
     }
     
-       /**
-     * If a input file has an output file it does not need stage-in For
-     * workflows, we have a rule that a file is written once and read many
-     * times, thus if a file is an output file it means it is generated within
-     * this job and then used by another task within the same job (or other jobs
-     * maybe) This is useful when we perform horizontal clustering
-     *
-     * @param list, the list of all files
-     * @param file, the file to be examined
-     * @pre $none
-     * @post $none
-     */
-    private boolean isRealInputFile(List<File> list, File file) {
-        if (file.getType() == FileType.INPUT.value)//input file
-        {
-            for (File another : list) {
-                if (another.getName().equals(file.getName())
-                        /**
-                         * if another file is output file
-                         */
-                        && another.getType() == FileType.OUTPUT.value) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return false;
-    }
     /*
      * Stage in for a single job (both stage-in job and compute job)
      * @param requiredFiles, all files to be stage-in
@@ -125,34 +97,18 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     protected double dataTransferTime(List<File> requiredFiles, Cloudlet cl, int vmId)  {
         double time = 0.0;
 
-        Iterator<File> iter = requiredFiles.iterator();
+        //The input files that are not output files, precomputed for a job
+        Iterator<File> iter = FileSymbolTable.getRealInputFiles(requiredFiles, cl).iterator();
         while (iter.hasNext()) {
 
             File file = iter.next();
 
-            //The input file is not an output File 
-            if (isRealInputFile(requiredFiles, file)) {
-                List siteList = ReplicaCatalog.getStorageList(file.getName());
-                if (siteList.isEmpty()) {
-                    
-                }
-
-                boolean hasFile = false;
-                for (Iterator it = siteList.iterator(); it.hasNext();) {
-                    //site is where one replica of this data is located at
-                    String site = (String) it.next();
-
-                    if(site.equals(Integer.toString(vmId))){
-                        hasFile = true;
-                        break;
-                    }
-
-                }
-                if(!hasFile){
-                    time += file.getSize() ;
-                }
-
+            //whether the vm is one of the sites where a replica of this data is located at
+            boolean hasFile = ReplicaCatalog.hasStorage(file.getName(), Integer.toString(vmId));
+            if(!hasFile){
+                time += file.getSize() ;
             }
+
         }
 
         return time;
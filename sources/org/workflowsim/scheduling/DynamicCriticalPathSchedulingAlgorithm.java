@@ -0,0 +1,355 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowSimTags;
+import org.workflowsim.utils.FileSymbolTable;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * The dynamic critical path algorithm. It is HEFT at runtime: the upward rank
+ * of a job, as defined in the HEFT paper, is computed once when the job is
+ * submitted, and the ready jobs are taken in non-ascending order of rank.
+ * Each one goes to the vm with the earliest estimated finish time, given when
+ * the vm is expected to be free and which of the input files of the job have
+ * a replica on the vm (ReplicaCatalog). If that vm is busy, the job waits for
+ * it, and is considered again at the next dispatch with the actual state of
+ * the vms, so that runtimes longer or shorter than estimated do not bind the
+ * remaining jobs to a stale plan as a static HEFT plan does.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class DynamicCriticalPathSchedulingAlgorithm extends BaseSchedulingAlgorithm {
+
+    /**
+     * A job and its rank
+     */
+    private static class RankedJob {
+
+        private final Task job;
+        private final double rank;
+        private final long arrival;
+
+        private RankedJob(Task job, double rank, long arrival) {
+            this.job = job;
+            this.rank = rank;
+            this.arrival = arrival;
+        }
+    }
+    /**
+     * The upward ranks of the jobs and of their descendants, by job id
+     */
+    private final Map<Integer, Double> ranks;
+    /**
+     * The jobs waiting to be scheduled, the highest rank first
+     */
+    private final PriorityQueue<RankedJob> readyQueue;
+    /**
+     * The number of jobs that have arrived
+     */
+    private long arrivalNum;
+    /**
+     * The vms by id, for the bandwidth between two vms
+     */
+    private Map<Integer, CondorVM> vmsById;
+    /**
+     * The estimated time each vm is free, by position in the vm list
+     */
+    private double[] availableTimes;
+    private double averageMips;
+    private double averageBandwidth;
+
+    public DynamicCriticalPathSchedulingAlgorithm() {
+        super();
+        this.ranks = new HashMap<Integer, Double>();
+        this.readyQueue = newQueue();
+    }
+
+    /**
+     * Creates a queue of ranked jobs, the highest rank first and then the
+     * first arrived
+     *
+     * @return the queue
+     */
+    private static PriorityQueue<RankedJob> newQueue() {
+        return new PriorityQueue<RankedJob>(11, new Comparator<RankedJob>() {
+            @Override
+            public int compare(RankedJob a, RankedJob b) {
+                int c = Double.compare(b.rank, a.rank);
+                if (c != 0) {
+                    return c;
+                }
+                return a.arrival < b.arrival ? -1 : (a.arrival == b.arrival ? 0 : 1);
+            }
+        });
+    }
+
+    /**
+     * Sets the vm list and the averages the ranks are computed with
+     *
+     * @param list the vms
+     */
+    @Override
+    public void setVmList(List list) {
+        super.setVmList(list);
+        int size = getVmList().size();
+        this.vmsById = new HashMap<Integer, CondorVM>();
+        this.availableTimes = new double[size];
+        this.averageMips = 0.0;
+        this.averageBandwidth = 0.0;
+        for (Object vmObject : getVmList()) {
+            CondorVM vm = (CondorVM) vmObject;
+            vmsById.put(vm.getId(), vm);
+            averageMips += vm.getMips();
+            averageBandwidth += vm.getBw();
+        }
+        if (size > 0) {
+            averageMips /= size;
+            averageBandwidth /= size;
+        }
+    }
+
+    /**
+     * Ranks the jobs and adds them to the ready queue, unless an arbitration
+     * policy picks them
+     *
+     * @param list the jobs
+     */
+    @Override
+    public void onJobsArrived(List list) {
+        if (getArbitrationPolicy() != null) {
+            super.onJobsArrived(list);
+            return;
+        }
+        for (Object jobObject : list) {
+            Task job = (Task) jobObject;
+            readyQueue.add(new RankedJob(job, getRank(job), arrivalNum++));
+        }
+    }
+
+    /**
+     * Schedules the ready jobs that are best run on an idle vm now
+     *
+     * @return the scheduled jobs
+     */
+    @Override
+    public List dispatch() throws Exception {
+        if (getArbitrationPolicy() != null) {
+            return super.dispatch();
+        }
+        getScheduledList().clear();
+        readyQueue.addAll(schedule(readyQueue));
+        return new ArrayList(getScheduledList());
+    }
+
+    /**
+     * The main function, over the jobs of the cloudlet list
+     */
+    @Override
+    public void run() {
+        PriorityQueue<RankedJob> queue = newQueue();
+        for (Object jobObject : getCloudletList()) {
+            Task job = (Task) jobObject;
+            queue.add(new RankedJob(job, getRank(job), arrivalNum++));
+        }
+        schedule(queue);
+    }
+
+    /**
+     * Takes the jobs of a queue in order of rank, as long as there is an idle
+     * vm, and schedules each one to the vm with the earliest estimated finish
+     * time if that vm is idle
+     *
+     * @param queue the jobs
+     * @return the jobs taken from the queue that wait for a busy vm
+     */
+    private List<RankedJob> schedule(PriorityQueue<RankedJob> queue) {
+        List<RankedJob> waiting = new ArrayList<RankedJob>();
+        IdleVmIndex idleVms = getIdleVmIndex();
+        if (queue.isEmpty() || idleVms.isEmpty()) {
+            return waiting;
+        }
+        double now = CloudSim.clock();
+        int size = getVmList().size();
+        // when each vm is expected to be free, with the jobs that wait for it
+        double[] readyTimes = new double[size];
+        for (int i = 0; i < size; i++) {
+            CondorVM vm = (CondorVM) getVmList().get(i);
+            readyTimes[i] = vm.getState() == WorkflowSimTags.VM_STATUS_IDLE
+                    ? now : Math.max(now, availableTimes[i]);
+        }
+        while (!queue.isEmpty() && !idleVms.isEmpty()) {
+            RankedJob rankedJob = queue.poll();
+            Task job = rankedJob.job;
+            int chosen = 0;
+            double earliestFinishTime = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                CondorVM vm = (CondorVM) getVmList().get(i);
+                double finishTime = readyTimes[i] + getTransferTime(job, vm)
+                        + job.getCloudletTotalLength() / vm.getMips();
+                if (finishTime < earliestFinishTime) {
+                    earliestFinishTime = finishTime;
+                    chosen = i;
+                }
+            }
+            readyTimes[chosen] = earliestFinishTime;
+            CondorVM vm = (CondorVM) getVmList().get(chosen);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+                job.setVmId(vm.getId());
+                getScheduledList().add(job);
+                availableTimes[chosen] = earliestFinishTime;
+                ranks.remove(job.getCloudletId());
+                Log.printLine("Schedules " + job.getCloudletId() + " with rank "
+                        + rankedJob.rank + " to VM " + vm.getId()
+                        + " finishing at " + earliestFinishTime);
+            } else {
+                waiting.add(rankedJob);
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * Estimates the time to stage in the input files of a job that have no
+     * replica on a vm, from the site with the best bandwidth, as
+     * WorkflowDatacenter does. There is nothing to stage in on a shared file
+     * system.
+     *
+     * @param job the job
+     * @param vm the vm
+     * @return the time in seconds
+     */
+    private double getTransferTime(Task job, CondorVM vm) {
+        if (ReplicaCatalog.getFileSystem() != ReplicaCatalog.FileSystem.LOCAL) {
+            return 0.0;
+        }
+        double time = 0.0;
+        String vmName = Integer.toString(vm.getId());
+        for (File file : FileSymbolTable.getRealInputFiles(job.getFileList(), job)) {
+            if (ReplicaCatalog.hasStorage(file.getName(), vmName)) {
+                continue;
+            }
+            List<String> sites = ReplicaCatalog.getStorageList(file.getName());
+            if (sites == null) {
+                // no replica yet, e.g. before the stage-in job: it comes from the source
+                sites = Collections.singletonList(Parameters.SOURCE);
+            }
+            double maxBwth = 0.0;
+            for (String site : sites) {
+                double bwth = 0.0;
+                if (site.equals(Parameters.SOURCE)) {
+                    bwth = vm.getBw();
+                } else {
+                    CondorVM siteVm = getVm(site);
+                    if (siteVm != null) {
+                        bwth = Math.min(vm.getBw(), siteVm.getBw());
+                    }
+                }
+                maxBwth = Math.max(maxBwth, bwth);
+            }
+            if (maxBwth > 0.0) {
+                time += file.getSize() / Consts.MILLION * 8 / maxBwth;
+            }
+        }
+        return time;
+    }
+
+    /**
+     * Gets the vm a replica site stands for
+     *
+     * @param site the site
+     * @return the vm, null if the site is not a vm of this scheduler
+     */
+    private CondorVM getVm(String site) {
+        try {
+            return vmsById.get(Integer.parseInt(site));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the upward rank of a job, computing the ranks of its descendants
+     * that are not known yet in post order, without recursion
+     *
+     * @param job the job
+     * @return the rank
+     */
+    private double getRank(Task job) {
+        Double rank = ranks.get(job.getCloudletId());
+        if (rank != null) {
+            return rank;
+        }
+        Deque<Task> stack = new ArrayDeque<Task>();
+        stack.push(job);
+        while (!stack.isEmpty()) {
+            Task task = stack.peek();
+            if (ranks.containsKey(task.getCloudletId())) {
+                stack.pop();
+                continue;
+            }
+            boolean childrenRanked = true;
+            for (Task child : task.getChildList()) {
+                if (!ranks.containsKey(child.getCloudletId())) {
+                    stack.push(child);
+                    childrenRanked = false;
+                }
+            }
+            if (childrenRanked) {
+                stack.pop();
+                ranks.put(task.getCloudletId(), computeRank(task));
+            }
+        }
+        return ranks.get(job.getCloudletId());
+    }
+
+    /**
+     * Computes the upward rank of a task whose children are ranked: its
+     * average computation cost plus the most expensive path through one of
+     * its children, with the average cost of transferring the files
+     *
+     * @param task the task
+     * @return the rank
+     */
+    private double computeRank(Task task) {
+        double averageComputationCost = averageMips > 0
+                ? task.getCloudletTotalLength() / averageMips : 0.0;
+        double max = 0.0;
+        for (Task child : task.getChildList()) {
+            double transferCost = averageBandwidth > 0
+                    ? child.getInputSizeFrom(task) / Consts.MILLION * 8 / averageBandwidth : 0.0;
+            max = Math.max(max, transferCost + ranks.get(child.getCloudletId()));
+        }
+        return averageComputationCost + max;
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowSimTags;
+
+/**
+ * IdleVmIndex keeps the idle vms of a scheduler ordered by their current
+ * requested mips, the fastest first. Vms with the same mips come in the order
+ * of the vm list, as when the list is scanned for the first fastest idle vm.
+ * <p>
+ * The vms are attached to the index: CondorVM.setState() adds a vm that
+ * becomes idle and removes one that becomes busy, so that the scheduling
+ * algorithms do not scan the vm list for each cloudlet. The index lasts from
+ * one scheduling round to the next as long as the vm list is the same.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class IdleVmIndex extends IndexedHeap {
+
+    /**
+     * The vms, by ordinal
+     */
+    private final List<CondorVM> vmList;
+    /**
+     * The current requested mips of the vms, by ordinal
+     */
+    private final double[] mips;
+
+    /**
+     * Creates an index of the vms of a list and attaches them to it
+     *
+     * @param list the vms
+     */
+    private IdleVmIndex(List list) {
+        super(list.size());
+        this.vmList = new ArrayList<CondorVM>(list.size());
+        this.mips = new double[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            CondorVM vm = (CondorVM) list.get(i);
+            vmList.add(vm);
+            vm.setIdleVmIndex(this, i);
+            mips[i] = vm.getCurrentRequestedTotalMips();
+        }
+        for (int i = 0; i < mips.length; i++) {
+            if (vmList.get(i).getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                addItem(i);
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the vms of a list: the one they are attached to if it
+     * indexes this list, or else a new one. The mips of the vms are read
+     * again, since they change once a vm is allocated to a host.
+     *
+     * @param list the vms
+     * @return the index
+     */
+    public static IdleVmIndex of(List list) {
+        IdleVmIndex index = null;
+        if (!list.isEmpty()) {
+            index = ((CondorVM) list.get(0)).getIdleVmIndex();
+        }
+        if (index == null || !index.indexes(list)) {
+            return new IdleVmIndex(list);
+        }
+        index.refresh();
+        return index;
+    }
+
+    /**
+     * Tells whether this index indexes the vms of a list, in the same order
+     *
+     * @param list the vms
+     * @return whether it does
+     */
+    private boolean indexes(List list) {
+        if (list.size() != vmList.size()) {
+            return false;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            CondorVM vm = (CondorVM) list.get(i);
+            if (vm != vmList.get(i) || vm.getIdleVmIndex() != this) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the mips and the states of the vms again
+     */
+    private void refresh() {
+        for (int i = 0; i < mips.length; i++) {
+            CondorVM vm = vmList.get(i);
+            double current = vm.getCurrentRequestedTotalMips();
+            if (current != mips[i]) {
+                mips[i] = current;
+                updateItem(i);
+            }
+            stateChanged(i, vm.getState());
+        }
+    }
+
+    @Override
+    protected boolean before(int a, int b) {
+        if (mips[a] != mips[b]) {
+            return mips[a] > mips[b];
+        }
+        return a < b;
+    }
+
+    /**
+     * Called by CondorVM.setState() when the state of a vm changes
+     *
+     * @param ordinal the ordinal of the vm in this index
+     * @param state the new state
+     */
+    public void stateChanged(int ordinal, int state) {
+        if (state == WorkflowSimTags.VM_STATUS_IDLE) {
+            addItem(ordinal);
+        } else {
+            removeItem(ordinal);
+        }
+    }
+
+    /**
+     * Gets the fastest idle vm
+     *
+     * @return the fastest idle vm, null if there is none
+     */
+    public CondorVM getFastest() {
+        if (isEmpty()) {
+            return null;
+        }
+        return vmList.get(peekItem());
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.Arrays;
+
+/**
+ * IndexedHeap is the binary heap the scheduling algorithms share. Its items
+ * are the ints 0 to capacity - 1, the positions of the cloudlets or vms in a
+ * list, so that an item can be removed or moved in O(log n) when its key
+ * changes and nothing is boxed. The subclasses define the order.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+abstract class IndexedHeap {
+
+    /**
+     * The items, heap ordered
+     */
+    private final int[] heap;
+    /**
+     * The position of each item in the heap, -1 if it is not in the heap
+     */
+    private final int[] positions;
+    /**
+     * The number of items in the heap
+     */
+    private int size;
+
+    /**
+     * Creates an empty heap
+     *
+     * @param capacity the number of items
+     */
+    IndexedHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    /**
+     * Tells whether an item comes before another one
+     *
+     * @param a an item
+     * @param b another item
+     * @return whether a comes before b
+     */
+    protected abstract boolean before(int a, int b);
+
+    /**
+     * Adds all the items, in O(n)
+     */
+    final void addAllItems() {
+        size = heap.length;
+        for (int i = 0; i < size; i++) {
+            heap[i] = i;
+            positions[i] = i;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Adds an item, if it is not in the heap
+     *
+     * @param item the item
+     */
+    final void addItem(int item) {
+        if (positions[item] >= 0) {
+            return;
+        }
+        heap[size] = item;
+        positions[item] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Removes an item, if it is in the heap
+     *
+     * @param item the item
+     */
+    final void removeItem(int item) {
+        int i = positions[item];
+        if (i < 0) {
+            return;
+        }
+        positions[item] = -1;
+        size--;
+        if (i != size) {
+            int last = heap[size];
+            heap[i] = last;
+            positions[last] = i;
+            siftDown(i);
+            siftUp(positions[last]);
+        }
+    }
+
+    /**
+     * Restores the order after the key of an item has changed
+     *
+     * @param item the item
+     */
+    final void updateItem(int item) {
+        int i = positions[item];
+        if (i >= 0) {
+            siftUp(i);
+            siftDown(positions[item]);
+        }
+    }
+
+    /**
+     * Tells whether an item is in the heap
+     *
+     * @param item the item
+     * @return whether it is in the heap
+     */
+    final boolean containsItem(int item) {
+        return positions[item] >= 0;
+    }
+
+    /**
+     * Gets the first item
+     *
+     * @return the first item
+     * @pre !isEmpty()
+     */
+    final int peekItem() {
+        return heap[0];
+    }
+
+    /**
+     * Removes the first item
+     *
+     * @return the first item
+     * @pre !isEmpty()
+     */
+    final int pollItem() {
+        int item = heap[0];
+        removeItem(item);
+        return item;
+    }
+
+    /**
+     * Tells whether the heap is empty
+     *
+     * @return whether it is empty
+     */
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of items in the heap
+     *
+     * @return the size
+     */
+    public final int size() {
+        return size;
+    }
+
+    private void siftUp(int i) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(item, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            positions[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = item;
+        positions[item] = i;
+    }
+
+    private void siftDown(int i) {
+        int item = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!before(heap[child], item)) {
+                break;
+            }
+            heap[i] = heap[child];
+            positions[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = item;
+        positions[item] = i;
+    }
+}
@@ -37,83 +37,71 @@ public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public MaxMinSchedulingAlgorithm() {
         super();
     }
+
     /**
-     * the check point list.
+     * The jobs waiting to be scheduled, kept from one dispatch to the next
      */
-    private List hasChecked = new ArrayList<Boolean>();
+    private final PendingCloudletQueue pending = new PendingCloudletQueue(true);
 
+    /**
+     * The main function. The longest cloudlet goes to the fastest idle vm,
+     * until there is no cloudlet or no idle vm left.
+     */
     @Override
     public void run() {
-
-
-        //Log.printLine("Schedulin Cycle");
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            boolean chk = false;
-            hasChecked.add(false);
+        CloudletHeap cloudlets = new CloudletHeap(getCloudletList(), true);
+        IdleVmIndex idleVms = getIdleVmIndex();
+        while (!cloudlets.isEmpty() && !idleVms.isEmpty()) {
+            assign(cloudlets.poll(), idleVms.getFastest());
         }
-        for (int i = 0; i < size; i++) {
-            int maxIndex = 0;
-            Cloudlet maxCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-                if (!chk) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                    break;
-                }
-            }
-            if (maxCloudlet == null) {
-                break;
-            }
-
-
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-
-                if (chk) {
-                    continue;
-                }
-
-                long length = cloudlet.getCloudletLength();
-
-                if (length > maxCloudlet.getCloudletLength()) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                }
-            }
-            hasChecked.set(maxIndex, true);
-
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
-            if (firstIdleVm == null) {
-                break;
-            }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
+    }
 
-                }
-            }
-            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-            maxCloudlet.setVmId(firstIdleVm.getId());
-            getScheduledList().add(maxCloudlet);
-            Log.printLine("Schedules " + maxCloudlet.getCloudletId() + " with "
-                    + maxCloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
-                    + " with " + firstIdleVm.getCurrentRequestedTotalMips());
+    /**
+     * Keeps the waiting jobs in the pending queue, unless an arbitration
+     * policy picks them
+     *
+     * @param list the jobs
+     */
+    @Override
+    public void onJobsArrived(List list) {
+        if (getArbitrationPolicy() != null) {
+            super.onJobsArrived(list);
+        } else {
+            pending.addAll(list);
+        }
+    }
 
+    /**
+     * Takes the first jobs of the pending queue, as many as there are idle
+     * vms, in O(log n) each
+     *
+     * @return the scheduled jobs
+     */
+    @Override
+    public List dispatch() throws Exception {
+        if (getArbitrationPolicy() != null) {
+            return super.dispatch();
+        }
+        getScheduledList().clear();
+        IdleVmIndex idleVms = getIdleVmIndex();
+        while (!pending.isEmpty() && !idleVms.isEmpty()) {
+            assign(pending.poll(), idleVms.getFastest());
         }
+        return new ArrayList(getScheduledList());
+    }
+
+    /**
+     * Schedules a job to a vm
+     *
+     * @param cloudlet the job
+     * @param vm the vm
+     */
+    private void assign(Cloudlet cloudlet, CondorVM vm) {
+        vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+        cloudlet.setVmId(vm.getId());
+        getScheduledList().add(cloudlet);
+        Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
+                + cloudlet.getCloudletLength() + " to VM " + vm.getId()
+                + " with " + vm.getCurrentRequestedTotalMips());
     }
 }
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * PendingCloudletQueue keeps the cloudlets waiting in a long-lived scheduler
+ * ordered by length, the shortest or the longest first. Cloudlets of the same
+ * length come in the order they have arrived, as in CloudletHeap, so that a
+ * scheduler that keeps its cloudlets here picks the same ones as when it runs
+ * over the list of the waiting cloudlets.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class PendingCloudletQueue {
+
+    /**
+     * A cloudlet and the order it has arrived in
+     */
+    private static class Entry {
+
+        private final Cloudlet cloudlet;
+        private final long length;
+        private final long arrival;
+
+        private Entry(Cloudlet cloudlet, long arrival) {
+            this.cloudlet = cloudlet;
+            this.length = cloudlet.getCloudletLength();
+            this.arrival = arrival;
+        }
+    }
+    /**
+     * The cloudlets
+     */
+    private final PriorityQueue<Entry> queue;
+    /**
+     * The number of cloudlets that have arrived
+     */
+    private long arrivalNum;
+
+    /**
+     * Creates an empty queue
+     *
+     * @param longestFirst whether the longest cloudlet comes first, or else
+     * the shortest one
+     */
+    public PendingCloudletQueue(final boolean longestFirst) {
+        this.queue = new PriorityQueue<Entry>(11, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                if (a.length != b.length) {
+                    return (a.length < b.length) != longestFirst ? -1 : 1;
+                }
+                return a.arrival < b.arrival ? -1 : (a.arrival == b.arrival ? 0 : 1);
+            }
+        });
+    }
+
+    /**
+     * Adds cloudlets, in O(log n) each
+     *
+     * @param list the cloudlets, in the order they have arrived
+     */
+    public void addAll(List list) {
+        for (Object cloudlet : list) {
+            queue.add(new Entry((Cloudlet) cloudlet, arrivalNum++));
+        }
+    }
+
+    /**
+     * Removes the first cloudlet, in O(log n)
+     *
+     * @return the shortest or longest cloudlet, null if there is none
+     */
+    public Cloudlet poll() {
+        Entry entry = queue.poll();
+        return entry == null ? null : entry.cloudlet;
+    }
+
+    /**
+     * Tells whether the queue is empty
+     *
+     * @return whether it is empty
+     */
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Gets the number of cloudlets in the queue
+     *
+     * @return the size
+     */
+    public int size() {
+        return queue.size();
+    }
+}
@@ -16,6 +16,8 @@
 package org.workflowsim.scheduling;
 
 import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.workflowsim.CondorVM;
 
 /**
  * The Scheduler interface
@@ -55,4 +57,25 @@ public interface SchedulingAlgorithmInterface {
      * Gets the scheduled jobs.
      */
     public List getScheduledList();
+
+    /**
+     * Adds jobs to the ones waiting to be scheduled.
+     */
+    public void onJobsArrived(List list);
+
+    /**
+     * Tells that a vm has become idle.
+     */
+    public void onVmIdle(CondorVM vm);
+
+    /**
+     * Tells that a job has returned from its vm.
+     */
+    public void onJobFinished(Cloudlet cloudlet);
+
+    /**
+     * Schedules the waiting jobs that can run now and removes them from the
+     * waiting ones.
+     */
+    public List dispatch() throws Exception;
 }
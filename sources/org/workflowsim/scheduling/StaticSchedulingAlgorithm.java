@@ -38,6 +38,16 @@ public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         super();
     }
 
+    /**
+     * The jobs are bound to their vms by the planner
+     *
+     * @return true
+     */
+    @Override
+    protected boolean hasBoundJobs() {
+        return true;
+    }
+
     @Override
     public void run() throws Exception {
 
@@ -0,0 +1,225 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.workflowsim.Task;
+
+/**
+ * FileSymbolTable assigns a dense int id to each file name of a simulation,
+ * starting from 0. The parser registers the files of a workflow as it reads
+ * them, so that tasks can keep the ids of their files in sorted arrays and
+ * compare them with binary searches and merge joins instead of comparing names.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class FileSymbolTable {
+
+    /**
+     * The table of a simulation, kept in its SimulationContext
+     */
+    private static class Table {
+
+        /**
+         * Map from file name to id
+         */
+        private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+        /**
+         * The file names, by id
+         */
+        private final List<String> names = new ArrayList<String>();
+    }
+
+    /**
+     * Gets the table of the simulation bound to the current thread
+     *
+     * @return the table
+     */
+    private static Table table() {
+        SimulationContext context = SimulationContext.current();
+        Table table = context.getAttribute(Table.class);
+        if (table == null) {
+            table = context.putAttributeIfAbsent(Table.class, new Table());
+        }
+        return table;
+    }
+
+    /**
+     * Gets the id of a file name, assigning the next id if it has none yet
+     *
+     * @param name the file name
+     * @return the id
+     */
+    public static int getId(String name) {
+        Table table = table();
+        Integer id = table.ids.get(name);
+        if (id == null) {
+            /**
+             * A datacenter that runs in parallel with others waits for its
+             * turn, so ids are assigned in the same order as in a sequential
+             * run.
+             */
+            CloudSim.awaitTurn();
+            synchronized (table) {
+                id = table.ids.get(name);
+                if (id == null) {
+                    id = table.names.size();
+                    table.names.add(name);
+                    table.ids.put(name, id);
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a file
+     *
+     * @param file the file
+     * @return the id
+     */
+    public static int getId(File file) {
+        return getId(file.getName());
+    }
+
+    /**
+     * Gets the file name of an id
+     *
+     * @param id the id
+     * @return the file name
+     */
+    public static String getName(int id) {
+        Table table = table();
+        synchronized (table) {
+            return table.names.get(id);
+        }
+    }
+
+    /**
+     * Gets the number of file names
+     *
+     * @return the number of file names
+     */
+    public static int size() {
+        Table table = table();
+        synchronized (table) {
+            return table.names.size();
+        }
+    }
+
+    /**
+     * Gets the sorted ids of the files of a given type in a list. A name that
+     * occurs several times in the list occurs as many times in the ids.
+     *
+     * @param list the files
+     * @param type the file type, see Parameters.FileType
+     * @return the ids
+     */
+    public static int[] getIds(List list, int type) {
+        int[] ids = new int[list.size()];
+        int size = 0;
+        for (Iterator it = list.iterator(); it.hasNext();) {
+            File file = (File) it.next();
+            if (file.getType() == type) {
+                ids[size++] = getId(file);
+            }
+        }
+        ids = Arrays.copyOf(ids, size);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Checks whether sorted ids contain the id of a file
+     *
+     * @param ids the sorted ids
+     * @param file the file
+     * @return whether the id of the file is in ids
+     */
+    public static boolean contains(int[] ids, File file) {
+        return Arrays.binarySearch(ids, getId(file)) >= 0;
+    }
+
+    /**
+     * Counts the occurrences of an id in sorted ids
+     *
+     * @param ids the sorted ids
+     * @param id the id
+     * @return the number of occurrences
+     */
+    public static int count(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return 0;
+        }
+        int start = index;
+        while (start > 0 && ids[start - 1] == id) {
+            start--;
+        }
+        int end = index + 1;
+        while (end < ids.length && ids[end] == id) {
+            end++;
+        }
+        return end - start;
+    }
+
+    /**
+     * Checks whether a file is an input file that is not also an output file
+     * in a list, i.e. one that has to be staged in. For workflows, we have a
+     * rule that a file is written once and read many times, thus if a file is
+     * an output file it is generated within the same job.
+     *
+     * @param outputIds the sorted ids of the output files of the list
+     * @param file the file
+     * @return whether the file has to be staged in
+     */
+    public static boolean isRealInputFile(int[] outputIds, File file) {
+        return file.getType() == Parameters.FileType.INPUT.value && !contains(outputIds, file);
+    }
+
+    /**
+     * Gets the files of a list that have to be staged in, i.e. its input files
+     * that are not also output files of the list. If the list is the file list
+     * of a task, the view the task keeps is used instead of scanning it.
+     *
+     * @param list the files
+     * @param cl the cloudlet the files belong to, may be null
+     * @return the files to stage in, in the order of the list
+     */
+    public static List<File> getRealInputFiles(List list, Cloudlet cl) {
+        if (cl instanceof Task && ((Task) cl).getFileList() == list) {
+            return ((Task) cl).getRealInputFiles();
+        }
+        int[] outputIds = getIds(list, Parameters.FileType.OUTPUT.value);
+        List<File> files = new ArrayList<File>();
+        for (Iterator it = list.iterator(); it.hasNext();) {
+            File file = (File) it.next();
+            if (isRealInputFile(outputIds, file)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+}
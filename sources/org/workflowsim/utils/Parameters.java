@@ -16,6 +16,7 @@
 package org.workflowsim.utils;
 
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * This class includes most parameters a user can specify in a configuration
@@ -35,7 +36,7 @@ public class Parameters {
     public enum SchedulingAlgorithm {
 
         MAXMIN, MINMIN, MCT, DATA, 
-        STATIC, FCFS, ROUNDROBIN, INVALID
+        STATIC, FCFS, ROUNDROBIN, DCP, INVALID
     }
     
     /**
@@ -43,7 +44,7 @@ public class Parameters {
      * 
      */
     public enum PlanningAlgorithm{
-        INVALID, RANDOM, HEFT, DHEFT
+        INVALID, RANDOM, HEFT, DHEFT, SCALABLEHEFT
     }
     
     /**
@@ -81,47 +82,46 @@ public class Parameters {
         }
     }
     
-    /** 
-     * Source Host (submit host)
-     */
-    public static String SOURCE = "source";
-    
-    public static final int BASE = 0;
-    
     /**
-     * Scheduling mode
+     * The DAX parser
+     * DOM: build the whole document with JDOM, then read it
+     * STREAMING: read the document as a stream with StAX, which needs much
+     * less memory on large workflows
      */
-    private static SchedulingAlgorithm schedulingAlgorithm;
+    public enum ParserMode{
+        DOM, STREAMING
+    }
     
     /**
-     * Planning mode
+     * The eviction policy of the local storage of a vm (file.system=LOCAL)
+     * NONE: replicas are never evicted and the storage is not bounded
+     * LRU: evicts the least recently used replica first
+     * LFU: evicts the least frequently used replica first
+     * SIZE: evicts the largest replica first
      */
-    private static PlanningAlgorithm planningAlgorithm;
+    public enum EvictionPolicy{
+        NONE, LRU, LFU, SIZE
+    }
     
     /**
-     * Reducer mode
-     */
-    private static String reduceMethod;
-    /**
-     * Number of vms available
+     * The arbitration between the jobs of concurrent workflows, before the
+     * scheduling algorithm
+     * NONE: the jobs are scheduled in the order they are waiting in
+     * FAIRSHARE: the idle vms are shared evenly among the workflows
+     * WEIGHTED: the idle vms are shared in proportion to the workflow weights
+     * EDF: the workflow with the earliest deadline goes first
      */
-    private static int vmNum;
-    /**
-     * The physical path to DAX file
-     */
-    private static String daxPath;
-    /**
-     * The physical path to runtime file In the runtime file, please use format
-     * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
-     * runtime in DAX then you don't need to specify this file
-     */
-    private static String runtimePath;
-    /**
-     * The physical path to datasize file In the datasize file, please use
-     * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
-     * specified datasize in DAX then you don't need to specify this file
+    public enum ArbitrationPolicy{
+        NONE, FAIRSHARE, WEIGHTED, EDF
+    }
+    
+    /** 
+     * Source Host (submit host)
      */
-    private static String datasizePath;
+    public static String SOURCE = "source";
+    
+    public static final int BASE = 0;
+    
     /**
      * Version number
      */
@@ -130,45 +130,114 @@ public class Parameters {
      * Note information
      */
     private static final String note = " supports planning algorithm at Nov 9, 2013";
-    /**
-     * Overhead parameters
-     */
-    private static OverheadParameters oParams;
-    /**
-     * Clustering parameters
-     */
-    private static ClusteringParameters cParams;
-    /**
-     * Deadline of a workflow
-     */
-    private static long deadline;
-    
-    /**
-     * the bandwidth from one vm to one vm
-     */
-    private static double[][] bandwidths;
-    
-    
-    /**
-     * The maximum depth. It is inited manually and used in FailureGenerator
-     */
-    private static int maxDepth;
-    
     /**
      * Invalid String
      */
     private static String INVALID = "Invalid";
     
     /**
-     * The scale of runtime. Multiple runtime by this
+     * The parameters of a simulation, kept in its SimulationContext
      */
-    private static double runtime_scale = 1.0;
-    
+    private static class Settings {
+
+        /**
+         * Scheduling mode
+         */
+        private SchedulingAlgorithm schedulingAlgorithm;
+        /**
+         * Planning mode
+         */
+        private PlanningAlgorithm planningAlgorithm;
+        /**
+         * Reducer mode
+         */
+        private String reduceMethod;
+        /**
+         * Number of vms available
+         */
+        private int vmNum;
+        /**
+         * The physical path to DAX file
+         */
+        private String daxPath;
+        /**
+         * The physical path to runtime file In the runtime file, please use format
+         * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
+         * runtime in DAX then you don't need to specify this file
+         */
+        private String runtimePath;
+        /**
+         * The physical path to datasize file In the datasize file, please use
+         * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
+         * specified datasize in DAX then you don't need to specify this file
+         */
+        private String datasizePath;
+        /**
+         * Overhead parameters
+         */
+        private OverheadParameters oParams;
+        /**
+         * Clustering parameters
+         */
+        private ClusteringParameters cParams;
+        /**
+         * Deadline of a workflow
+         */
+        private long deadline;
+        /**
+         * the bandwidth from one vm to one vm
+         */
+        private double[][] bandwidths;
+        /**
+         * The maximum depth. It is inited manually and used in FailureGenerator
+         */
+        private int maxDepth;
+        /**
+         * The scale of runtime. Multiple runtime by this
+         */
+        private double runtime_scale = 1.0;
+        /**
+         * The default cost model is based on datacenter, similar to CloudSim
+         */
+        private CostModel costModel = CostModel.DATACENTER;
+        /**
+         * The DAX parser, JDOM by default
+         */
+        private ParserMode parserMode = ParserMode.DOM;
+        /**
+         * The eviction policy of the local storage of a vm, none by default
+         */
+        private EvictionPolicy evictionPolicy = EvictionPolicy.NONE;
+        /**
+         * The capacity of the local storage of a vm, in the unit of the file
+         * sizes
+         */
+        private double vmStorageCapacity = Double.MAX_VALUE;
+        /**
+         * The arbitration between concurrent workflows, none by default
+         */
+        private ArbitrationPolicy arbitrationPolicy = ArbitrationPolicy.NONE;
+        /**
+         * The number of threads the planner evaluates the vms with, 1 by
+         * default
+         */
+        private int planningParallelism = 1;
+    }
+
     /**
-     * The default cost model is based on datacenter, similar to CloudSim
+     * Gets the parameters of the simulation bound to the current thread
+     *
+     * @return the parameters
      */
-    private static CostModel costModel = CostModel.DATACENTER;
-    
+    private static Settings settings() {
+        SimulationContext context = SimulationContext.current();
+        Settings settings = context.getAttribute(Settings.class);
+        if (settings == null) {
+            settings = context.putAttributeIfAbsent(Settings.class, new Settings());
+        }
+        return settings;
+    }
+
     /**
      * A static function so that you can specify them in any place
      *
@@ -193,18 +262,19 @@ public class Parameters {
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
 
-        cParams = cp;
-        vmNum = vm;
-        daxPath = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
+        Settings settings = settings();
+        settings.cParams = cp;
+        settings.vmNum = vm;
+        settings.daxPath = dax;
+        settings.runtimePath = runtime;
+        settings.datasizePath = datasize;
 
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        settings.oParams = op;
+        settings.schedulingAlgorithm = scheduler;
+        settings.planningAlgorithm = planner;
+        settings.reduceMethod = rMethod;
+        settings.deadline = dl;
+        settings.maxDepth = 0;
     }
 
     /**
@@ -215,7 +285,7 @@ public class Parameters {
      * @post $none
      */
     public static OverheadParameters getOverheadParams() {
-        return oParams;
+        return settings().oParams;
     }
 
     
@@ -228,6 +298,7 @@ public class Parameters {
      * @post $none
      */
     public static String getReduceMethod() {
+        String reduceMethod = settings().reduceMethod;
         if(reduceMethod!=null){
             return reduceMethod;
         }else{
@@ -245,7 +316,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDaxPath() {
-        return daxPath;
+        return settings().daxPath;
     }
 
     /**
@@ -256,7 +327,7 @@ public class Parameters {
      * @post $none
      */
     public static String getRuntimePath() {
-        return runtimePath;
+        return settings().runtimePath;
     }
 
     /**
@@ -267,7 +338,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDatasizePath() {
-        return datasizePath;
+        return settings().datasizePath;
     }
 
     
@@ -279,7 +350,7 @@ public class Parameters {
      * @post $none
      */
     public static int getVmNum() {
-        return vmNum;
+        return settings().vmNum;
     }
 
     
@@ -289,7 +360,7 @@ public class Parameters {
      * @return costModel
      */
     public static CostModel getCostModel(){
-        return costModel;
+        return settings().costModel;
     }
     
     /**
@@ -300,7 +371,7 @@ public class Parameters {
      * @post $none
      */
     public static void setVmNum(int num) {
-        vmNum = num;
+        settings().vmNum = num;
     }
 
     /**
@@ -311,7 +382,7 @@ public class Parameters {
      * @post $none
      */
     public static ClusteringParameters getClusteringParameters() {
-        return cParams;
+        return settings().cParams;
     }
 
     /**
@@ -322,7 +393,7 @@ public class Parameters {
      * @post $none
      */
     public static SchedulingAlgorithm getSchedulingAlgorithm() {
-        return schedulingAlgorithm;
+        return settings().schedulingAlgorithm;
     }
     
     /**
@@ -331,7 +402,7 @@ public class Parameters {
      * 
      */
     public static PlanningAlgorithm getPlanningAlgorithm() {
-        return planningAlgorithm;
+        return settings().planningAlgorithm;
     }
     /**
      * Gets the version
@@ -349,7 +420,7 @@ public class Parameters {
      * Gets the deadline
      */
     public static long getDeadline(){
-    	return deadline;
+    	return settings().deadline;
     }
     
     /**
@@ -357,7 +428,7 @@ public class Parameters {
      * @return the maxDepth
      */
     public static int getMaxDepth(){
-        return maxDepth;
+        return settings().maxDepth;
     }
     
     /**
@@ -365,7 +436,7 @@ public class Parameters {
      * @param depth the maxDepth
      */
     public static void setMaxDepth(int depth){
-        maxDepth = depth;
+        settings().maxDepth = depth;
     }
     
     /**
@@ -373,7 +444,7 @@ public class Parameters {
      * @param scale 
      */
     public static void setRuntimeScale(double scale){
-        runtime_scale = scale;
+        settings().runtime_scale = scale;
     }
     
     /**
@@ -381,7 +452,7 @@ public class Parameters {
      * @param model
      */
     public static void setCostModel(CostModel model){
-        costModel = model;
+        settings().costModel = model;
     }
     
     /**
@@ -389,6 +460,93 @@ public class Parameters {
      * @return 
      */
     public static double getRuntimeScale(){
-        return runtime_scale;
+        return settings().runtime_scale;
+    }
+    
+    /**
+     * Sets the DAX parser
+     * @param mode
+     */
+    public static void setParserMode(ParserMode mode){
+        settings().parserMode = mode;
+    }
+    
+    /**
+     * Gets the DAX parser
+     * @return the parser mode
+     */
+    public static ParserMode getParserMode(){
+        return settings().parserMode;
+    }
+    
+    /**
+     * Sets the eviction policy of the local storage of the vms. It has to be
+     * set before the vms are created
+     * @param policy
+     */
+    public static void setEvictionPolicy(EvictionPolicy policy){
+        settings().evictionPolicy = policy;
+    }
+    
+    /**
+     * Gets the eviction policy of the local storage of the vms
+     * @return the eviction policy
+     */
+    public static EvictionPolicy getEvictionPolicy(){
+        return settings().evictionPolicy;
+    }
+    
+    /**
+     * Sets the capacity of the local storage of the vms, in the unit of the
+     * file sizes. It has to be set before the vms are created
+     * @param capacity
+     */
+    public static void setVmStorageCapacity(double capacity){
+        settings().vmStorageCapacity = capacity;
+    }
+    
+    /**
+     * Gets the capacity of the local storage of the vms
+     * @return the capacity
+     */
+    public static double getVmStorageCapacity(){
+        return settings().vmStorageCapacity;
+    }
+    
+    /**
+     * Sets the arbitration between the jobs of concurrent workflows
+     * @param policy
+     */
+    public static void setArbitrationPolicy(ArbitrationPolicy policy){
+        settings().arbitrationPolicy = policy;
+    }
+    
+    /**
+     * Gets the arbitration between the jobs of concurrent workflows
+     * @return the arbitration policy
+     */
+    public static ArbitrationPolicy getArbitrationPolicy(){
+        return settings().arbitrationPolicy;
+    }
+    
+    /**
+     * Sets the number of threads HEFT evaluates the candidate vms of a task
+     * with. The plan is the same whatever the number of threads
+     * @param parallelism 1 to evaluate them one after another
+     */
+    public static void setPlanningParallelism(int parallelism){
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The planning parallelism must be at least 1");
+        }
+        settings().planningParallelism = parallelism;
+    }
+    
+    /**
+     * Gets the number of threads HEFT evaluates the candidate vms of a task
+     * with
+     * @return the planning parallelism
+     */
+    public static int getPlanningParallelism(){
+        return settings().planningParallelism;
     }
 }
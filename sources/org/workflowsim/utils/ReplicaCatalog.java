@@ -18,12 +18,22 @@
 package org.workflowsim.utils;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
- * ReplicaCatalog stores all the data information and where (site) there are
+ * ReplicaCatalog stores all the data information and where (site) there are.
+ * The replicas of each file are kept in a hash set, and a reverse index gives
+ * the files stored on each site. The catalog may be read and updated from
+ * several threads, e.g. by parallel planners and schedulers.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -38,18 +48,124 @@ public class ReplicaCatalog {
 
         SHARED, LOCAL
     }
+
     /**
-     * Map from file name to a file object
+     * The sites of a file, in the order they were added. Adding a site appends
+     * it to an array only the writers use, in amortized constant time, and
+     * publishes a read-only view of the filled part of the array with a
+     * volatile write, so readers iterate over the sites without locking. The
+     * filled part is never written again. Removing a site, e.g. on eviction,
+     * copies the other sites into new replicas.
      */
-    private static Map FileName2File;
+    private static class Replicas {
+
+        /**
+         * The sites
+         */
+        private final Set<String> storageSet;
+        /**
+         * The sites in the order they were added, guarded by the catalog
+         */
+        private String[] sites;
+        /**
+         * The number of sites, guarded by the catalog
+         */
+        private int siteNum;
+        /**
+         * The published sites, a read-only view of the filled part of sites
+         */
+        private volatile List<String> storageList;
+
+        private Replicas(Collection<String> storages) {
+            storageSet = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            sites = new String[Math.max(2, storages.size())];
+            storageList = Collections.emptyList();
+            for (String storage : storages) {
+                add(storage);
+            }
+        }
+
+        /**
+         * Appends a site, holding the lock of the catalog
+         *
+         * @param storage the site
+         */
+        private void add(String storage) {
+            if (siteNum == sites.length) {
+                sites = Arrays.copyOf(sites, 2 * siteNum);
+            }
+            sites[siteNum++] = storage;
+            storageList = Collections.unmodifiableList(Arrays.asList(sites).subList(0, siteNum));
+            storageSet.add(storage);
+        }
+    }
+
     /**
-     * The selection of file.system
+     * The catalog of a simulation, kept in its SimulationContext
      */
-    private static FileSystem fileSystem;
+    private static class Catalog {
+
+        /**
+         * Map from file name to a file object
+         */
+        private Map<String, org.cloudbus.cloudsim.File> FileName2File;
+        /**
+         * The selection of file.system
+         */
+        private volatile FileSystem fileSystem;
+        /**
+         * Map from file to its replicas
+         */
+        private Map<String, Replicas> dataReplicaCatalog;
+        /**
+         * Map from storage to the files it has, guarded by the catalog
+         */
+        private Map<String, Set<String>> storage2Files;
+    }
+
     /**
-     * Map from file to a list of data storage
+     * Gets the catalog of the simulation bound to the current thread. The file
+     * system and the file objects are set up before the datacenters use them,
+     * so they can be read without waiting.
+     *
+     * @return the catalog
      */
-    private static Map dataReplicaCatalog;
+    private static Catalog catalog() {
+        SimulationContext context = SimulationContext.current();
+        Catalog catalog = context.getAttribute(Catalog.class);
+        if (catalog == null) {
+            catalog = new Catalog();
+            clear(catalog);
+            catalog = context.putAttributeIfAbsent(Catalog.class, catalog);
+        }
+        return catalog;
+    }
+
+    /**
+     * Gets the catalog to change it or to read the replicas. The replicas are
+     * added and removed by the datacenters, so a datacenter that runs in
+     * parallel with others waits for its turn first, and then sees them as in
+     * a sequential simulation. Until then, the replicas it adds are kept aside.
+     *
+     * @return the catalog
+     */
+    private static Catalog catalogInTurn() {
+        CloudSim.awaitTurn();
+        return catalog();
+    }
+
+    /**
+     * Empties a catalog
+     *
+     * @param catalog the catalog
+     */
+    private static void clear(Catalog catalog) {
+        synchronized (catalog) {
+            catalog.dataReplicaCatalog = new ConcurrentHashMap<String, Replicas>();
+            catalog.FileName2File = new ConcurrentHashMap<String, org.cloudbus.cloudsim.File>();
+            catalog.storage2Files = new ConcurrentHashMap<String, Set<String>>();
+        }
+    }
 
     /**
      * Initialize a ReplicaCatalog
@@ -57,9 +173,9 @@ public class ReplicaCatalog {
      * @param fs the type of file system
      */
     public static void init(FileSystem fs) {
-        fileSystem = fs;
-        dataReplicaCatalog = new HashMap< String, List>();
-        FileName2File = new HashMap<String, org.cloudbus.cloudsim.File>();
+        Catalog catalog = catalogInTurn();
+        catalog.fileSystem = fs;
+        clear(catalog);
     }
 
     /**
@@ -68,7 +184,7 @@ public class ReplicaCatalog {
      * @return file system
      */
     public static FileSystem getFileSystem() {
-        return fileSystem;
+        return catalog().fileSystem;
     }
 
     /**
@@ -78,7 +194,7 @@ public class ReplicaCatalog {
      * @return file object
      */
     public static org.cloudbus.cloudsim.File getFile(String fileName) {
-        return (org.cloudbus.cloudsim.File) FileName2File.get(fileName);
+        return catalog().FileName2File.get(fileName);
     }
 
     /**
@@ -88,7 +204,7 @@ public class ReplicaCatalog {
      * @param file , the file object
      */
     public static void setFile(String fileName, org.cloudbus.cloudsim.File file) {
-        FileName2File.put(fileName, file);
+        catalogInTurn().FileName2File.put(fileName, file);
     }
 
     /**
@@ -98,32 +214,151 @@ public class ReplicaCatalog {
      * @return boolean, whether the file exist
      */
     public static boolean containsFile(String fileName) {
-        return FileName2File.containsKey(fileName);
+        return catalog().FileName2File.containsKey(fileName);
     }
 
     /**
      * Gets the list of storages a file exists
      *
      * @param file the file object
-     * @return list of storages
+     * @return list of storages, read only, or null if the file has none
      */
-    public static List getStorageList(String file) {
-        return (List) dataReplicaCatalog.get(file);
+    public static List<String> getStorageList(String file) {
+        Replicas replicas = catalogInTurn().dataReplicaCatalog.get(file);
+        return replicas == null ? null : replicas.storageList;
     }
 
     /**
-     * Adds a file to a storage
+     * Checks whether a storage has a replica of a file, in constant time
+     *
+     * @param file the file name
+     * @param storage the storage
+     * @return whether the storage has the file
+     */
+    public static boolean hasStorage(String file, String storage) {
+        Replicas replicas = catalogInTurn().dataReplicaCatalog.get(file);
+        return replicas != null && replicas.storageSet.contains(storage);
+    }
+
+    /**
+     * Checks whether a file has a replica in any storage. A file never loses
+     * its last replica, since a storage that evicts it writes it back to the
+     * source first, so a datacenter that runs in parallel with others only
+     * waits for its turn if it finds none.
+     *
+     * @param file the file name
+     * @return whether a storage has the file
+     */
+    public static boolean hasStorage(String file) {
+        Replicas replicas = catalog().dataReplicaCatalog.get(file);
+        if (replicas == null || replicas.storageSet.isEmpty()) {
+            replicas = catalogInTurn().dataReplicaCatalog.get(file);
+        }
+        return replicas != null && !replicas.storageSet.isEmpty();
+    }
+
+    /**
+     * Adds a file to a storage. A datacenter that runs in parallel with
+     * others adds it at its turn, without waiting for it.
      *
      * @param file, a file object
      * @param storage , the storage associated with this file
      */
-    public static void addStorageList(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList());
+    public static void addStorageList(final String file, final String storage) {
+        CloudSim.runInTurn(new Runnable() {
+            @Override
+            public void run() {
+                addStorageList(catalog(), file, storage);
+            }
+        });
+    }
+
+    /**
+     * Adds a file to a storage of a catalog
+     *
+     * @param catalog the catalog
+     * @param file the file name
+     * @param storage the storage
+     */
+    private static void addStorageList(Catalog catalog, String file, String storage) {
+        Replicas replicas = catalog.dataReplicaCatalog.get(file);
+        if (replicas != null && replicas.storageSet.contains(storage)) {
+            return;
+        }
+        synchronized (catalog) {
+            replicas = catalog.dataReplicaCatalog.get(file);
+            if (replicas == null) {
+                catalog.dataReplicaCatalog.put(file, new Replicas(Collections.singletonList(storage)));
+            } else if (replicas.storageSet.contains(storage)) {
+                return;
+            } else {
+                replicas.add(storage);
+            }
+
+            Set<String> files = catalog.storage2Files.get(storage);
+            if (files == null) {
+                files = new LinkedHashSet<String>();
+                catalog.storage2Files.put(storage, files);
+            }
+            files.add(file);
+        }
+    }
+
+    /**
+     * Removes a file from a storage, e.g. when it is evicted
+     *
+     * @param file the file name
+     * @param storage the storage
+     * @return whether the storage had the file
+     */
+    public static boolean removeStorageList(String file, String storage) {
+        Catalog catalog = catalogInTurn();
+        synchronized (catalog) {
+            Replicas replicas = catalog.dataReplicaCatalog.get(file);
+            if (replicas == null || !replicas.storageSet.contains(storage)) {
+                return false;
+            }
+            List<String> storages = new ArrayList<String>(replicas.storageList);
+            storages.remove(storage);
+            catalog.dataReplicaCatalog.put(file, new Replicas(storages));
+
+            Set<String> files = catalog.storage2Files.get(storage);
+            files.remove(file);
+            if (files.isEmpty()) {
+                catalog.storage2Files.remove(storage);
+            }
+            return true;
         }
-        List list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
+    }
+
+    /**
+     * Gets the files a storage has
+     *
+     * @param storage the storage
+     * @return the file names, in the order they were added to the storage
+     */
+    public static List<String> getFileList(String storage) {
+        Catalog catalog = catalogInTurn();
+        synchronized (catalog) {
+            Set<String> files = catalog.storage2Files.get(storage);
+            if (files == null) {
+                return new ArrayList<String>();
+            }
+            return new ArrayList<String>(files);
+        }
+    }
+
+    /**
+     * Gets the number of files a storage has
+     *
+     * @param storage the storage
+     * @return the number of files
+     */
+    public static int getFileNum(String storage) {
+        Catalog catalog = catalogInTurn();
+        synchronized (catalog) {
+            Set<String> files = catalog.storage2Files.get(storage);
+            return files == null ? 0 : files.size();
         }
     }
 }
@@ -0,0 +1,431 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HarddriveStorage;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+
+/**
+ * SweepRunner simulates a grid of workflow, algorithm and vm number
+ * combinations on a fixed pool of threads in the same JVM, and collects the
+ * makespan, the cost and the wall clock time of each run in a table. Each run
+ * has its own SimulationContext, so runs do not share Parameters,
+ * ReplicaCatalog or any other simulation state. The datacenter and the vms are
+ * the same as in WorkflowSimBasicExample1; override createDatacenter and
+ * createVMs to change them.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class SweepRunner {
+
+    /**
+     * One combination of the grid
+     */
+    public static class Run {
+
+        private final String daxPath;
+        private final Parameters.SchedulingAlgorithm schedulingAlgorithm;
+        private final Parameters.PlanningAlgorithm planningAlgorithm;
+        private final ClusteringParameters clusteringParameters;
+        private final int vmNum;
+
+        /**
+         * Creates a run
+         *
+         * @param daxPath the DAX path
+         * @param scheduler the scheduling algorithm
+         * @param planner the planning algorithm
+         * @param cp the clustering parameters
+         * @param vmNum the number of vms
+         */
+        public Run(String daxPath, Parameters.SchedulingAlgorithm scheduler,
+                Parameters.PlanningAlgorithm planner, ClusteringParameters cp, int vmNum) {
+            this.daxPath = daxPath;
+            this.schedulingAlgorithm = scheduler;
+            this.planningAlgorithm = planner;
+            this.clusteringParameters = cp;
+            this.vmNum = vmNum;
+        }
+
+        public String getDaxPath() {
+            return daxPath;
+        }
+
+        public Parameters.SchedulingAlgorithm getSchedulingAlgorithm() {
+            return schedulingAlgorithm;
+        }
+
+        public Parameters.PlanningAlgorithm getPlanningAlgorithm() {
+            return planningAlgorithm;
+        }
+
+        public ClusteringParameters getClusteringParameters() {
+            return clusteringParameters;
+        }
+
+        public int getVmNum() {
+            return vmNum;
+        }
+    }
+
+    /**
+     * The outcome of a run
+     */
+    public static class Result {
+
+        private final Run run;
+        private final int jobNum;
+        private final double makespan;
+        private final double cost;
+        private final double wallClockTime;
+        private final Exception error;
+
+        private Result(Run run, int jobNum, double makespan, double cost,
+                double wallClockTime, Exception error) {
+            this.run = run;
+            this.jobNum = jobNum;
+            this.makespan = makespan;
+            this.cost = cost;
+            this.wallClockTime = wallClockTime;
+            this.error = error;
+        }
+
+        public Run getRun() {
+            return run;
+        }
+
+        /**
+         * Gets the number of jobs returned to the workflow engine
+         *
+         * @return the number of jobs
+         */
+        public int getJobNum() {
+            return jobNum;
+        }
+
+        /**
+         * Gets the simulated time at which the last job finished
+         *
+         * @return the makespan
+         */
+        public double getMakespan() {
+            return makespan;
+        }
+
+        /**
+         * Gets the total processing cost of the jobs
+         *
+         * @return the cost
+         */
+        public double getCost() {
+            return cost;
+        }
+
+        /**
+         * Gets the wall clock time of the run
+         *
+         * @return the time in milliseconds
+         */
+        public double getWallClockTime() {
+            return wallClockTime;
+        }
+
+        /**
+         * Gets the exception that stopped the run
+         *
+         * @return the exception, or null if the run succeeded
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+    /**
+     * The number of threads
+     */
+    private final int threadNum;
+    /**
+     * The overhead parameters of every run
+     */
+    private OverheadParameters overheadParameters = new OverheadParameters(0, null, null, null, null, 0);
+    /**
+     * The file system of every run
+     */
+    private ReplicaCatalog.FileSystem fileSystem = ReplicaCatalog.FileSystem.SHARED;
+
+    /**
+     * Creates a SweepRunner
+     *
+     * @param threadNum the number of runs simulated at the same time
+     */
+    public SweepRunner(int threadNum) {
+        if (threadNum <= 0) {
+            throw new IllegalArgumentException("The number of threads should be positive, but is " + threadNum);
+        }
+        this.threadNum = threadNum;
+    }
+
+    /**
+     * Sets the overhead parameters used by every run. There are no overheads
+     * by default.
+     *
+     * @param op the overhead parameters
+     */
+    public void setOverheadParameters(OverheadParameters op) {
+        this.overheadParameters = op;
+    }
+
+    /**
+     * Sets the file system used by every run. The default is SHARED.
+     *
+     * @param fs the file system
+     */
+    public void setFileSystem(ReplicaCatalog.FileSystem fs) {
+        this.fileSystem = fs;
+    }
+
+    /**
+     * Builds every combination of the given values, in order, the last list
+     * varying fastest
+     *
+     * @param daxPaths the DAX paths
+     * @param schedulers the scheduling algorithms
+     * @param planners the planning algorithms
+     * @param clusterings the clustering parameters
+     * @param vmNums the numbers of vms
+     * @return the runs
+     */
+    public static List<Run> grid(List<String> daxPaths,
+            List<Parameters.SchedulingAlgorithm> schedulers,
+            List<Parameters.PlanningAlgorithm> planners,
+            List<ClusteringParameters> clusterings, List<Integer> vmNums) {
+        List<Run> runs = new ArrayList<Run>();
+        for (String daxPath : daxPaths) {
+            for (Parameters.SchedulingAlgorithm scheduler : schedulers) {
+                for (Parameters.PlanningAlgorithm planner : planners) {
+                    for (ClusteringParameters cp : clusterings) {
+                        for (int vmNum : vmNums) {
+                            runs.add(new Run(daxPath, scheduler, planner, cp, vmNum));
+                        }
+                    }
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Simulates the runs and waits for all of them to finish. Log is disabled
+     * in the meantime, since the runs would interleave their output.
+     *
+     * @param runs the runs
+     * @return the results, in the order of the runs
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<Result> run(List<Run> runs) throws InterruptedException {
+        boolean disabled = Log.isDisabled();
+        Log.disable();
+        ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+        try {
+            List<Future<Result>> futures = new ArrayList<Future<Result>>();
+            for (final Run run : runs) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        SimulationContext.setCurrent(new SimulationContext());
+                        long start = System.nanoTime();
+                        try {
+                            return simulate(run, start);
+                        } catch (Exception e) {
+                            return new Result(run, 0, 0.0, 0.0, (System.nanoTime() - start) / 1e6, e);
+                        } finally {
+                            SimulationContext.setCurrent(null);
+                        }
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<Result>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+            Log.setDisabled(disabled);
+        }
+    }
+
+    /**
+     * Simulates one run in the context bound to the current thread
+     *
+     * @param run the run
+     * @param start the start time of the run, from System.nanoTime
+     * @return the result
+     * @throws Exception if the simulation fails
+     */
+    protected Result simulate(Run run, long start) throws Exception {
+        if (!new File(run.getDaxPath()).exists()) {
+            throw new IllegalArgumentException("DAX file not found: " + run.getDaxPath());
+        }
+        Parameters.init(run.getVmNum(), run.getDaxPath(), null, null, overheadParameters,
+                run.getClusteringParameters(), run.getSchedulingAlgorithm(),
+                run.getPlanningAlgorithm(), null, 0);
+        ReplicaCatalog.init(fileSystem);
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+        WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0", run.getVmNum());
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        List<CondorVM> vmlist0 = createVMs(wfEngine.getSchedulerId(0), run.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+        CloudSim.startSimulation();
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+
+        double makespan = 0.0;
+        double cost = 0.0;
+        for (Job job : outputList0) {
+            makespan = Math.max(makespan, job.getFinishTime());
+            cost += job.getProcessingCost();
+        }
+        return new Result(run, outputList0.size(), makespan, cost, (System.nanoTime() - start) / 1e6, null);
+    }
+
+    /**
+     * Creates the datacenter of a run: one host with two 2000 MIPS PEs per
+     * vm, and at least 20 hosts
+     *
+     * @param name the datacenter name
+     * @param vmNum the number of vms of the run
+     * @return the datacenter
+     * @throws Exception if the datacenter cannot be created
+     */
+    protected WorkflowDatacenter createDatacenter(String name, int vmNum) throws Exception {
+        List<Host> hostList = new ArrayList<Host>();
+        int hostNum = Math.max(20, vmNum);
+        for (int i = 1; i <= hostNum; i++) {
+            List<Pe> peList1 = new ArrayList<Pe>();
+            int mips = 2000;
+            peList1.add(new Pe(0, new PeProvisionerSimple(mips)));
+            peList1.add(new Pe(1, new PeProvisionerSimple(mips)));
+            int ram = 2048; //host memory (MB)
+            long storage = 1000000; //host storage
+            int bw = 10000;
+            hostList.add(new Host(0, new RamProvisionerSimple(ram), new BwProvisionerSimple(bw),
+                    storage, peList1, new VmSchedulerTimeShared(peList1)));
+        }
+
+        String arch = "x86";      // system architecture
+        String os = "Linux";          // operating system
+        String vmm = "Xen";
+        double time_zone = 10.0;         // time zone this resource located
+        double cost = 3.0;              // the cost of using processing in this resource
+        double costPerMem = 0.05;		// the cost of using memory in this resource
+        double costPerStorage = 0.1;	// the cost of using storage in this resource
+        double costPerBw = 0.1;			// the cost of using bw in this resource
+        LinkedList<Storage> storageList = new LinkedList<Storage>();
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                arch, os, vmm, hostList, time_zone, cost, costPerMem, costPerStorage, costPerBw);
+
+        /**
+         * The bandwidth within a data center in MB/s.
+         */
+        int maxTransferRate = 15;
+        HarddriveStorage s1 = new HarddriveStorage(name, 1e12);
+        s1.setMaxTransferRate(maxTransferRate);
+        storageList.add(s1);
+        return new WorkflowDatacenter(name, characteristics, new VmAllocationPolicySimple(hostList), storageList, 0);
+    }
+
+    /**
+     * Creates the vms of a run
+     *
+     * @param userId the id of the scheduler that controls the vms
+     * @param vms the number of vms
+     * @return the vms
+     */
+    protected List<CondorVM> createVMs(int userId, int vms) {
+        LinkedList<CondorVM> list = new LinkedList<CondorVM>();
+        long size = 10000; //image size (MB)
+        int ram = 512; //vm memory (MB)
+        int mips = 1000;
+        long bw = 1000;
+        int pesNumber = 1; //number of cpus
+        String vmm = "Xen"; //VMM name
+        for (int i = 0; i < vms; i++) {
+            list.add(new CondorVM(i, userId, mips, pesNumber, ram, bw, size, vmm, new CloudletSchedulerSpaceShared()));
+        }
+        return list;
+    }
+
+    /**
+     * Prints the results as a tab separated table, one run per line
+     *
+     * @param results the results
+     * @param out the stream to print to
+     */
+    public static void printResults(List<Result> results, PrintStream out) {
+        DecimalFormat dft = new DecimalFormat("###.##");
+        out.println("DAX\tScheduler\tPlanner\tClustering\tVMs\tJobs\tMakespan\tCost\tRuntime(ms)\tError");
+        for (Result result : results) {
+            Run run = result.getRun();
+            ClusteringParameters cp = run.getClusteringParameters();
+            out.println(new File(run.getDaxPath()).getName()
+                    + "\t" + run.getSchedulingAlgorithm()
+                    + "\t" + run.getPlanningAlgorithm()
+                    + "\t" + (cp == null ? "" : cp.getClusteringMethod())
+                    + "\t" + run.getVmNum()
+                    + "\t" + result.getJobNum()
+                    + "\t" + dft.format(result.getMakespan())
+                    + "\t" + dft.format(result.getCost())
+                    + "\t" + dft.format(result.getWallClockTime())
+                    + "\t" + (result.getError() == null ? "" : result.getError()));
+        }
+    }
+}